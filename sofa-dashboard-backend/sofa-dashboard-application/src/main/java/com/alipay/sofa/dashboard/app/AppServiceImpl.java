@@ -20,11 +20,20 @@ import com.alipay.sofa.dashboard.client.model.common.Application;
 import com.alipay.sofa.dashboard.client.registry.AppSubscriber;
 import com.alipay.sofa.dashboard.model.ApplicationInfo;
 import com.alipay.sofa.dashboard.spi.AppService;
+import com.alipay.sofa.dashboard.utils.NameSearchIndex;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -35,31 +44,67 @@ import java.util.stream.Collectors;
 @Service
 public class AppServiceImpl implements AppService {
 
+    /**
+     * 检查注册数据是否变化的最小间隔(ms)，AppSubscriber 没有变更通知，只能定期对账
+     */
+    private static final long      CHECK_INTERVAL  = TimeUnit.SECONDS.toMillis(1);
+
     private final AppSubscriber<?> subscriber;
 
+    private final NameSearchIndex  appNameIndex    = new NameSearchIndex();
+
+    /**
+     * 注册数据的版本号，检查到实例变化时递增
+     */
+    private final AtomicLong       version         = new AtomicLong();
+
+    private volatile byte[]        lastFingerprint;
+
+    private volatile long          lastCheck;
+
     public AppServiceImpl(AppSubscriber<?> subscriber) {
         this.subscriber = subscriber;
     }
 
     @Override
     public List<ApplicationInfo> getAllStatistics() {
-        return getStatisticsByKeyword(null);
+        return summaryStatistics();
     }
 
     @Override
     public List<ApplicationInfo> getStatisticsByKeyword(@Nullable String keyword) {
-        return subscriber.summaryCounts().entrySet().stream().map(entry -> {
-            ApplicationInfo statistic = new ApplicationInfo();
-            statistic.setApplicationName(entry.getKey());
-            statistic.setApplicationCount(entry.getValue());
-            return statistic;
-        }).filter(it ->
-            // 关键词为空或者服务名包含关键词
-                (StringUtils.isEmpty(keyword) ||
-            // 名字不为空，并且实例数不为 0
-            !StringUtils.isEmpty(it.getApplicationName())
-            && it.getApplicationName().contains(keyword)) && it.getApplicationCount() > 0
-        ).collect(Collectors.toList());
+        return getStatisticsByKeyword(keyword, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<ApplicationInfo> getStatisticsByKeyword(@Nullable String keyword, int limit) {
+        if (StringUtils.isEmpty(keyword)) {
+            return summaryStatistics().stream().limit(Math.max(limit, 0))
+                .collect(Collectors.toList());
+        }
+        checkChanges();
+        // 检索结果按匹配程度排序，只对命中的应用查询实例数
+        List<ApplicationInfo> result = new ArrayList<>();
+        for (String appName : appNameIndex.search(keyword, Integer.MAX_VALUE)) {
+            if (result.size() >= limit) {
+                break;
+            }
+            int count = subscriber.getByName(appName).size();
+            // 实例数不为 0
+            if (count > 0) {
+                ApplicationInfo statistic = new ApplicationInfo();
+                statistic.setApplicationName(appName);
+                statistic.setApplicationCount(count);
+                result.add(statistic);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long fetchVersion() {
+        checkChanges();
+        return version.get();
     }
 
     @Override
@@ -72,4 +117,58 @@ public class AppServiceImpl implements AppService {
         return StringUtils.isEmpty(serviceName) ? subscriber.getAll() : subscriber
             .getByName(serviceName);
     }
+
+    private List<ApplicationInfo> summaryStatistics() {
+        return subscriber.summaryCounts().entrySet().stream().map(entry -> {
+            ApplicationInfo statistic = new ApplicationInfo();
+            statistic.setApplicationName(entry.getKey());
+            statistic.setApplicationCount(entry.getValue());
+            return statistic;
+        }).filter(it -> it.getApplicationCount() > 0).collect(Collectors.toList());
+    }
+
+    /**
+     * 按实例的摘要判断注册数据是否变化，变化时递增版本号并同步应用名索引
+     */
+    private void checkChanges() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck >= CHECK_INTERVAL) {
+            synchronized (appNameIndex) {
+                if (now - lastCheck >= CHECK_INTERVAL) {
+                    byte[] fingerprint = fingerprint(subscriber.getAll());
+                    if (!Arrays.equals(fingerprint, lastFingerprint)) {
+                        appNameIndex.sync(subscriber.getAllNames());
+                        version.incrementAndGet();
+                        lastFingerprint = fingerprint;
+                    }
+                    lastCheck = now;
+                }
+            }
+        }
+    }
+
+    /**
+     * 与顺序无关的实例摘要：每个实例按对外序列化的字段拼成一行，排序后计算 SHA-1
+     */
+    private static byte[] fingerprint(List<Application> applications) {
+        List<String> lines = new ArrayList<>(applications.size());
+        for (Application application : applications) {
+            lines.add(application.getAppName() + '\0' + application.getHostName() + '\0'
+                      + application.getPort() + '\0' + application.getAppState() + '\0'
+                      + application.getStartTime() + '\0' + application.getLastRecover());
+        }
+        Collections.sort(lines);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // 每个 JVM 都必须支持 SHA-1
+            throw new IllegalStateException(e);
+        }
+        for (String line : lines) {
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return digest.digest();
+    }
 }
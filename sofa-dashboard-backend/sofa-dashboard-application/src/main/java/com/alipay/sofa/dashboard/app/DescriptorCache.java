@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.app;
+
+import com.alipay.sofa.dashboard.client.model.common.HostAndPort;
+import com.alipay.sofa.dashboard.client.model.io.StoreRecord;
+import com.alipay.sofa.dashboard.client.utils.JsonUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 反序列化后的实例记录缓存
+ * <p>
+ * 以 (实例地址, 记录类型, 记录时间戳) 为 key，同一条记录只解析一次，有更新的记录写入后自然换成新的 key。
+ * 按原始 JSON 的字符数限制总大小，写入超过 ttl 的条目过期。缓存的对象在多个请求间共享，调用方不能修改。
+ */
+public class DescriptorCache {
+
+    private final Cache<Key, Entry> cache;
+
+    /**
+     * @param maxWeight 缓存记录的原始 JSON 字符数上限
+     * @param ttl       条目写入后的存活时间(ms)
+     */
+    public DescriptorCache(long maxWeight, long ttl) {
+        this.cache = CacheBuilder.newBuilder().maximumWeight(maxWeight)
+            .weigher((Key key, Entry entry) -> entry.weight)
+            .expireAfterWrite(ttl, TimeUnit.MILLISECONDS).recordStats().build();
+    }
+
+    /**
+     * 获取记录反序列化后的对象，未命中时解析并缓存
+     *
+     * @param hostAndPort    实例地址
+     * @param schemeName     记录类型
+     * @param record         记录
+     * @param descriptorType 反序列化的类型
+     * @return 反序列化后的对象
+     */
+    public <T> T decode(HostAndPort hostAndPort, String schemeName, StoreRecord record,
+                        Class<T> descriptorType) {
+        Key key = new Key(hostAndPort, schemeName, record.getTimestamp(), descriptorType);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            return descriptorType.cast(entry.value);
+        }
+        String json = record.getValue();
+        T value = JsonUtils.parseObject(json, descriptorType);
+        if (value != null) {
+            cache.put(key, new Entry(value, json == null ? 1 : Math.max(1, json.length())));
+        }
+        return value;
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+
+    /**
+     * 命中、未命中、淘汰次数等完整统计
+     *
+     * @return 统计信息
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static final class Key {
+
+        private final HostAndPort hostAndPort;
+
+        private final String      schemeName;
+
+        private final long        timestamp;
+
+        private final Class<?>    descriptorType;
+
+        private final int         hash;
+
+        private Key(HostAndPort hostAndPort, String schemeName, long timestamp,
+                    Class<?> descriptorType) {
+            this.hostAndPort = hostAndPort;
+            this.schemeName = schemeName;
+            this.timestamp = timestamp;
+            this.descriptorType = descriptorType;
+            this.hash = Objects.hash(hostAndPort, schemeName, timestamp, descriptorType);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && timestamp == other.timestamp
+                   && descriptorType == other.descriptorType
+                   && Objects.equals(schemeName, other.schemeName)
+                   && Objects.equals(hostAndPort, other.hostAndPort);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+
+        private final int    weight;
+
+        private Entry(Object value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
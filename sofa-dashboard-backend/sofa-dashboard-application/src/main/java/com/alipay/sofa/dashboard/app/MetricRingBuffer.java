@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.app;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个实例单类指标的列式环形缓冲区
+ * <p>
+ * 时间戳和每个字段各占一个定长的基本类型数组，写满后覆盖最旧的样本，字段数超过 maxFields 的部分被丢弃，
+ * 因此每个缓冲区的内存上限为 capacity * (1 + maxFields) * 8 字节。样本中缺失的字段记为 NaN。
+ * 时间戳必须递增写入，不大于最新时间戳的样本视为重复数据被忽略
+ */
+public class MetricRingBuffer {
+
+    private final long[]               timestamps;
+
+    private final double[][]           columns;
+
+    private final String[]             fieldNames;
+
+    private final Map<String, Integer> fieldIndex   = new HashMap<>();
+
+    private int                        fieldCount;
+
+    /**
+     * 下一个写入位置
+     */
+    private int                        head;
+
+    private int                        size;
+
+    /**
+     * 该时间之后的记录都已写入缓冲区，未同步过时为 Long.MAX_VALUE
+     */
+    private long                       coveredSince = Long.MAX_VALUE;
+
+    /**
+     * @param capacity  保留的样本数
+     * @param maxFields 最多保留的字段数
+     */
+    public MetricRingBuffer(int capacity, int maxFields) {
+        if (capacity <= 0 || maxFields < 0) {
+            throw new IllegalArgumentException("Illegal ring buffer capacity " + capacity
+                                               + " with max fields " + maxFields);
+        }
+        this.timestamps = new long[capacity];
+        this.columns = new double[maxFields][];
+        this.fieldNames = new String[maxFields];
+    }
+
+    /**
+     * 写入一个样本
+     *
+     * @param timestamp 样本时间(ms)
+     * @param values    字段路径到数值的映射
+     * @return 是否写入，时间戳不大于最新样本时返回 false
+     */
+    public synchronized boolean append(long timestamp, Map<String, Double> values) {
+        if (size > 0 && timestamp <= getLatestTimestamp()) {
+            return false;
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            columns[i][head] = Double.NaN;
+        }
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            int index = indexOf(entry.getKey());
+            if (index >= 0 && entry.getValue() != null) {
+                columns[index][head] = entry.getValue();
+            }
+        }
+        timestamps[head] = timestamp;
+        head = (head + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+        return true;
+    }
+
+    private int indexOf(String field) {
+        Integer index = fieldIndex.get(field);
+        if (index != null) {
+            return index;
+        }
+        if (fieldCount == columns.length) {
+            return -1;
+        }
+        // 新字段在之前的样本中均视为缺失
+        double[] column = new double[timestamps.length];
+        Arrays.fill(column, Double.NaN);
+        columns[fieldCount] = column;
+        fieldNames[fieldCount] = field;
+        fieldIndex.put(field, fieldCount);
+        return fieldCount++;
+    }
+
+    /**
+     * 将 [start, end] 内的样本写入降采样器
+     *
+     * @param downsampler 降采样器
+     * @param start       起始时间(ms)，包含
+     * @param end         结束时间(ms)，包含
+     */
+    public synchronized void feed(SeriesDownsampler downsampler, long start, long end) {
+        int oldest = (head - size + timestamps.length) % timestamps.length;
+        for (int n = 0; n < size; n++) {
+            int slot = (oldest + n) % timestamps.length;
+            long timestamp = timestamps[slot];
+            if (timestamp < start) {
+                continue;
+            }
+            if (timestamp > end) {
+                break;
+            }
+            for (int i = 0; i < fieldCount; i++) {
+                downsampler.add(timestamp, fieldNames[i], columns[i][slot]);
+            }
+        }
+    }
+
+    /**
+     * @return 最新样本的时间戳，没有样本时返回 Long.MIN_VALUE
+     */
+    public synchronized long getLatestTimestamp() {
+        if (size == 0) {
+            return Long.MIN_VALUE;
+        }
+        return timestamps[(head - 1 + timestamps.length) % timestamps.length];
+    }
+
+    /**
+     * @return 最旧样本的时间戳，没有样本时返回 Long.MAX_VALUE
+     */
+    public synchronized long getOldestTimestamp() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        return timestamps[(head - size + timestamps.length) % timestamps.length];
+    }
+
+    public synchronized long getCoveredSince() {
+        return coveredSince;
+    }
+
+    public synchronized void setCoveredSince(long coveredSince) {
+        this.coveredSince = coveredSince;
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return timestamps.length;
+    }
+
+    public synchronized boolean isFull() {
+        return size == timestamps.length;
+    }
+
+    /**
+     * 已分配的数组占用的字节数，不含对象头和字段名
+     *
+     * @return 字节数
+     */
+    public synchronized long getFootprint() {
+        return (long) timestamps.length * (1 + fieldCount) * 8;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+        coveredSince = Long.MAX_VALUE;
+    }
+}
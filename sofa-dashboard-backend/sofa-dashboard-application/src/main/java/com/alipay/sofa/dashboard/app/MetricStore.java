@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.app;
+
+import com.alipay.sofa.dashboard.client.io.RecordExporter;
+import com.alipay.sofa.dashboard.client.model.common.HostAndPort;
+import com.alipay.sofa.dashboard.client.model.io.StoreRecord;
+import com.alipay.sofa.dashboard.client.utils.JsonUtils;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实例指标的本地列式存储，每个 (实例地址, 记录类型) 对应一个 {@link MetricRingBuffer}
+ * <p>
+ * 读取时从 {@link RecordExporter} 增量同步：缓冲区已覆盖查询范围时只拉取最新样本之后的记录，
+ * 否则拉取整个范围重建缓冲区。记录只在写入时解析一次，之后的查询直接读取基本类型数组。
+ * 查询范围超过缓冲区能保留的时长(capacity * sampleInterval)时不经过缓冲区，直接从存储读取。
+ * 一段时间内没有被查询的缓冲区会被回收
+ */
+public class MetricStore {
+
+    private final RecordExporter                      exporter;
+
+    private final LoadingCache<Key, MetricRingBuffer> buffers;
+
+    /**
+     * 缓冲区能保留的时长(ms)
+     */
+    private final long                                retention;
+
+    /**
+     * @param exporter   记录来源
+     * @param capacity       每个缓冲区保留的样本数
+     * @param sampleInterval 实例上报记录的间隔(ms)
+     * @param maxFields      每个缓冲区最多保留的字段数
+     * @param maxBuffers     缓冲区个数上限
+     * @param idleTtl        缓冲区最后一次访问后的存活时间(ms)
+     */
+    public MetricStore(RecordExporter exporter, int capacity, long sampleInterval,
+                       int maxFields, long maxBuffers, long idleTtl) {
+        this.exporter = exporter;
+        this.retention = capacity * Math.max(1, sampleInterval);
+        this.buffers = CacheBuilder.newBuilder().maximumSize(maxBuffers)
+            .expireAfterAccess(idleTtl, TimeUnit.MILLISECONDS)
+            .build(CacheLoader.from(key -> new MetricRingBuffer(capacity, maxFields)));
+    }
+
+    /**
+     * 将降采样器时间范围内的样本写入降采样器。范围在缓冲区保留时长以内时先同步缓冲区再从缓冲区读取，
+     * 否则直接从存储读取并解析，不创建缓冲区
+     *
+     * @param hostAndPort 实例地址
+     * @param schemeName  记录类型
+     * @param downsampler 降采样器
+     */
+    public void feed(HostAndPort hostAndPort, String schemeName, SeriesDownsampler downsampler) {
+        long start = downsampler.getStart();
+        long end = downsampler.getEnd();
+        if (end - start <= retention) {
+            MetricRingBuffer buffer = sync(hostAndPort, schemeName, start, end);
+            // 实际上报间隔小于 sampleInterval 时缓冲区可能覆盖不到起始时间
+            if (!buffer.isFull() || start >= buffer.getOldestTimestamp()) {
+                buffer.feed(downsampler, start, end);
+                return;
+            }
+        }
+        for (StoreRecord record : exporter.getLatestRecords(hostAndPort, schemeName, end - start)) {
+            long timestamp = record.getTimestamp();
+            if (timestamp >= start && timestamp <= end && record.getValue() != null) {
+                downsampler.add(timestamp, JsonUtils.parseObject(record.getValue(), Map.class));
+            }
+        }
+    }
+
+    /**
+     * 将 [start, now] 内的记录同步到缓冲区后返回
+     *
+     * @param hostAndPort 实例地址
+     * @param schemeName  记录类型
+     * @param start       需要覆盖的起始时间(ms)
+     * @param now         当前时间(ms)
+     * @return 已同步的缓冲区
+     */
+    public MetricRingBuffer sync(HostAndPort hostAndPort, String schemeName, long start, long now) {
+        MetricRingBuffer buffer = buffers.getUnchecked(new Key(hostAndPort, schemeName));
+        synchronized (buffer) {
+            // 缓冲区写满后无法保留更早的样本，此时不再回溯
+            if (start < buffer.getCoveredSince() && !buffer.isFull()) {
+                buffer.clear();
+                ingest(buffer, exporter.getLatestRecords(hostAndPort, schemeName, now - start));
+                buffer.setCoveredSince(start);
+            } else {
+                long latest = buffer.getLatestTimestamp();
+                long duration = latest == Long.MIN_VALUE ? now - start : now - latest;
+                ingest(buffer, exporter.getLatestRecords(hostAndPort, schemeName, duration));
+            }
+        }
+        return buffer;
+    }
+
+    private void ingest(MetricRingBuffer buffer, List<StoreRecord> records) {
+        List<StoreRecord> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingLong(StoreRecord::getTimestamp));
+        long latest = buffer.getLatestTimestamp();
+        for (StoreRecord record : sorted) {
+            if (record.getTimestamp() <= latest || record.getValue() == null) {
+                continue;
+            }
+            Map<?, ?> document = JsonUtils.parseObject(record.getValue(), Map.class);
+            buffer.append(record.getTimestamp(), SeriesDownsampler.numericFields(document));
+        }
+    }
+
+    /**
+     * @return 缓冲区能保留的时长(ms)
+     */
+    public long getRetention() {
+        return retention;
+    }
+
+    /**
+     * @return 当前缓冲区个数
+     */
+    public long getBufferCount() {
+        return buffers.size();
+    }
+
+    /**
+     * @return 所有缓冲区数组占用的字节数
+     */
+    public long getFootprint() {
+        return buffers.asMap().values().stream().mapToLong(MetricRingBuffer::getFootprint).sum();
+    }
+
+    public void invalidateAll() {
+        buffers.invalidateAll();
+    }
+
+    private static final class Key {
+
+        private final HostAndPort hostAndPort;
+
+        private final String      schemeName;
+
+        private Key(HostAndPort hostAndPort, String schemeName) {
+            this.hostAndPort = hostAndPort;
+            this.schemeName = schemeName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(schemeName, other.schemeName)
+                   && Objects.equals(hostAndPort, other.hostAndPort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hostAndPort, schemeName);
+        }
+    }
+}
@@ -27,17 +27,32 @@ import com.alipay.sofa.dashboard.client.model.logger.LoggersDescriptor;
 import com.alipay.sofa.dashboard.client.model.mappings.MappingsDescriptor;
 import com.alipay.sofa.dashboard.client.model.memory.MemoryDescriptor;
 import com.alipay.sofa.dashboard.client.model.thread.ThreadSummaryDescriptor;
-import com.alipay.sofa.dashboard.client.utils.JsonUtils;
+import com.alipay.sofa.dashboard.model.MetricSeries;
 import com.alipay.sofa.dashboard.model.StampedValueEntity;
 import com.alipay.sofa.dashboard.spi.MonitorService;
+import com.alipay.sofa.dashboard.utils.TimestampFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.util.annotation.NonNull;
 import reactor.util.annotation.Nullable;
 
+import javax.annotation.PreDestroy;
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -48,17 +63,92 @@ import java.util.stream.Collectors;
 @Component
 public class MonitorServiceImpl implements MonitorService {
 
+    private static final Logger      LOGGER                   = LoggerFactory
+                                                                    .getLogger(MonitorServiceImpl.class);
+
     /**
      * 查询最近数据时间片(minutes)
      */
-    private static final int     SINGLE_QUERY_DURATION = 1;
+    private static final int         SINGLE_QUERY_DURATION    = 1;
 
     /**
      * 查询过去多条记录时间片(minutes)
      */
-    private static final int     MULTI_QUERY_DURATION  = 5;
+    private static final int         MULTI_QUERY_DURATION     = 5;
+
+    private final RecordExporter     exporter;
+
+    /**
+     * 批量查询时并发访问存储的线程数
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.queryParallelism:16}")
+    private int                      queryParallelism         = 16;
+
+    /**
+     * 一次批量查询等待全部实例返回的最长时间(ms)
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.queryTimeout:5000}")
+    private long                     queryTimeout             = 5000;
+
+    private ExecutorService          queryExecutor;
+
+    /**
+     * 反序列化结果缓存的大小上限，按原始 JSON 的字符数计算
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.descriptorCache.maxWeight:16777216}")
+    private long                     descriptorCacheMaxWeight = 16 * 1024 * 1024;
+
+    /**
+     * 反序列化结果缓存的存活时间(ms)
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.descriptorCache.ttl:60000}")
+    private long                     descriptorCacheTtl       = 60000;
+
+    private volatile DescriptorCache descriptorCache;
+
+    /**
+     * 降采样序列允许查询的最长时间范围(ms)
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.series.maxRange:86400000}")
+    private long                     seriesMaxRange           = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * 降采样序列的最大桶数，超过时放大分辨率
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.series.maxPoints:1440}")
+    private int                      seriesMaxPoints          = 1440;
+
+    /**
+     * 本地指标缓冲区每个实例每类指标保留的样本数，默认按 10s 采样保留 1 小时
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.metricStore.capacity:360}")
+    private int                      metricStoreCapacity      = 360;
+
+    /**
+     * 实例上报指标记录的间隔(ms)，与 capacity 一起决定本地缓冲区能覆盖的时长
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.metricStore.sampleInterval:10000}")
+    private long                     metricSampleInterval     = 10000;
+
+    /**
+     * 本地指标缓冲区每类指标最多保留的字段数
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.metricStore.maxFields:64}")
+    private int                      metricStoreMaxFields     = 64;
+
+    /**
+     * 本地指标缓冲区个数上限
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.metricStore.maxBuffers:20000}")
+    private long                     metricStoreMaxBuffers    = 20000;
+
+    /**
+     * 本地指标缓冲区最后一次查询后的存活时间(ms)
+     */
+    @Value("${com.alipay.sofa.dashboard.monitor.metricStore.idleTtl:600000}")
+    private long                     metricStoreIdleTtl       = 600000;
 
-    private final RecordExporter exporter;
+    private volatile MetricStore     metricStore;
 
     public MonitorServiceImpl(RecordExporter exporter) {
         this.exporter = exporter;
@@ -75,11 +165,21 @@ public class MonitorServiceImpl implements MonitorService {
         return queryOne(hostAndPort, RecordName.HEALTH, HealthDescriptor.class);
     }
 
+    @Override
+    public Map<HostAndPort, HealthDescriptor> fetchHealth(Collection<HostAndPort> hostAndPorts) {
+        return queryBatch(hostAndPorts, RecordName.HEALTH, HealthDescriptor.class);
+    }
+
     @Override
     public InfoDescriptor fetchInfo(HostAndPort hostAndPort) {
         return queryOne(hostAndPort, RecordName.INFO, InfoDescriptor.class);
     }
 
+    @Override
+    public Map<HostAndPort, InfoDescriptor> fetchInfo(Collection<HostAndPort> hostAndPorts) {
+        return queryBatch(hostAndPorts, RecordName.INFO, InfoDescriptor.class);
+    }
+
     @Override
     public LoggersDescriptor fetchLoggers(HostAndPort hostAndPort) {
         return queryOne(hostAndPort, RecordName.LOGGERS, LoggersDescriptor.class);
@@ -92,42 +192,202 @@ public class MonitorServiceImpl implements MonitorService {
 
     @Override
     public List<StampedValueEntity<ThreadSummaryDescriptor>> fetchThreadInfo(HostAndPort hostAndPort) {
-        return queryList(hostAndPort, RecordName.THREAD_SUMMARY, ThreadSummaryDescriptor.class);
+        return fetchThreadInfo(hostAndPort, true);
+    }
+
+    @Override
+    public List<StampedValueEntity<ThreadSummaryDescriptor>> fetchThreadInfo(HostAndPort hostAndPort,
+                                                                             boolean formatTimestamp) {
+        return queryList(hostAndPort, RecordName.THREAD_SUMMARY, ThreadSummaryDescriptor.class,
+            formatTimestamp);
     }
 
     @Override
     public List<StampedValueEntity<MemoryDescriptor>> fetchMemoryInfo(HostAndPort hostAndPort) {
-        return queryList(hostAndPort, RecordName.MEMORY, MemoryDescriptor.class);
+        return fetchMemoryInfo(hostAndPort, true);
+    }
+
+    @Override
+    public List<StampedValueEntity<MemoryDescriptor>> fetchMemoryInfo(HostAndPort hostAndPort,
+                                                                      boolean formatTimestamp) {
+        return queryList(hostAndPort, RecordName.MEMORY, MemoryDescriptor.class, formatTimestamp);
+    }
+
+    @Override
+    public MetricSeries fetchMemorySeries(HostAndPort hostAndPort, long range, long resolution) {
+        return querySeries(hostAndPort, RecordName.MEMORY, range, resolution);
+    }
+
+    @Override
+    public MetricSeries fetchThreadSeries(HostAndPort hostAndPort, long range, long resolution) {
+        return querySeries(hostAndPort, RecordName.THREAD_SUMMARY, range, resolution);
+    }
+
+    @Override
+    public Map<String, Number> fetchCacheStats() {
+        DescriptorCache cache = getDescriptorCache();
+        MetricStore store = getMetricStore();
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("descriptorCache.hitCount", cache.getHitCount());
+        stats.put("descriptorCache.missCount", cache.getMissCount());
+        stats.put("descriptorCache.hitRate", cache.getHitRate());
+        stats.put("descriptorCache.evictionCount", cache.getEvictionCount());
+        stats.put("descriptorCache.size", cache.getSize());
+        stats.put("metricStore.bufferCount", store.getBufferCount());
+        stats.put("metricStore.footprint", store.getFootprint());
+        return stats;
     }
 
     @Nullable
     private <T> T queryOne(HostAndPort hostAndPort, String schemeName, Class<T> descriptorType) {
         List<StoreRecord> records = exporter.getLatestRecords(hostAndPort, schemeName,
             TimeUnit.MINUTES.toMillis(SINGLE_QUERY_DURATION));
-        return records.stream().map(StoreRecord::getValue)
-            .map(it -> JsonUtils.parseObject(it, descriptorType))
+        return records.stream()
+            .map(it -> getDescriptorCache().decode(hostAndPort, schemeName, it, descriptorType))
             .findFirst()
             .orElse(null);
     }
 
+    /**
+     * 批量查询多个实例的最新记录，地址去重后一次性提交到有界线程池，查询和反序列化都在线程池中并行完成。
+     * 单个实例失败或超过 queryTimeout 仍未返回时只记录日志，结果中不包含该实例
+     */
+    @NonNull
+    private <T> Map<HostAndPort, T> queryBatch(Collection<HostAndPort> hostAndPorts,
+                                               String schemeName, Class<T> descriptorType) {
+        Set<HostAndPort> distinct = new LinkedHashSet<>(hostAndPorts);
+        Map<HostAndPort, T> result = new LinkedHashMap<>();
+        if (distinct.size() == 1) {
+            // 单个实例没有并发的必要，直接在调用线程查询
+            HostAndPort hostAndPort = distinct.iterator().next();
+            T value = queryOne(hostAndPort, schemeName, descriptorType);
+            if (value != null) {
+                result.put(hostAndPort, value);
+            }
+            return result;
+        }
+
+        ExecutorService executor = queryExecutor();
+        Map<HostAndPort, Future<T>> futures = new LinkedHashMap<>();
+        for (HostAndPort hostAndPort : distinct) {
+            futures.put(hostAndPort,
+                executor.submit(() -> queryOne(hostAndPort, schemeName, descriptorType)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queryTimeout);
+        for (Map.Entry<HostAndPort, Future<T>> entry : futures.entrySet()) {
+            Future<T> future = entry.getValue();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                T value = future.get(remaining, TimeUnit.NANOSECONDS);
+                if (value != null) {
+                    result.put(entry.getKey(), value);
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                future.cancel(true);
+                LOGGER.warn("Failed to query {} of instance {}.", schemeName, entry.getKey(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(it -> it.cancel(true));
+                break;
+            }
+        }
+        return result;
+    }
+
+    private synchronized ExecutorService queryExecutor() {
+        if (queryExecutor == null) {
+            int parallelism = Math.max(1, queryParallelism);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60L,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), MonitorServiceImpl::newThread);
+            executor.allowCoreThreadTimeOut(true);
+            queryExecutor = executor;
+        }
+        return queryExecutor;
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "monitor-record-query");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 反序列化结果缓存，命中率等统计信息从这里获取
+     *
+     * @return 缓存
+     */
+    public DescriptorCache getDescriptorCache() {
+        DescriptorCache cache = descriptorCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = descriptorCache;
+                if (cache == null) {
+                    cache = new DescriptorCache(descriptorCacheMaxWeight, descriptorCacheTtl);
+                    descriptorCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 本地列式指标存储，缓冲区个数和内存占用从这里获取
+     *
+     * @return 指标存储
+     */
+    public MetricStore getMetricStore() {
+        MetricStore store = metricStore;
+        if (store == null) {
+            synchronized (this) {
+                store = metricStore;
+                if (store == null) {
+                    store = new MetricStore(exporter, metricStoreCapacity,
+                        metricSampleInterval, metricStoreMaxFields, metricStoreMaxBuffers,
+                        metricStoreIdleTtl);
+                    metricStore = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+        }
+    }
+
     @NonNull
     private <T extends Serializable> List<StampedValueEntity<T>> queryList(
-        HostAndPort hostAndPort, String schemeName, Class<T> descriptorType) {
+        HostAndPort hostAndPort, String schemeName, Class<T> descriptorType,
+        boolean formatTimestamp) {
         List<StoreRecord> records = exporter.getLatestRecords(hostAndPort,
             schemeName, TimeUnit.MINUTES.toMillis(MULTI_QUERY_DURATION));
 
         return records.stream().map(it -> {
             StampedValueEntity<T> value = new StampedValueEntity<>();
             value.setName(RecordName.THREAD_SUMMARY);
-            value.setTimestamp(formatTime(it.getTimestamp()));
-            value.setValue(JsonUtils.parseObject(it.getValue(), descriptorType));
+            value.setEpochMillis(it.getTimestamp());
+            if (formatTimestamp) {
+                value.setTimestamp(TimestampFormatter.format(it.getTimestamp()));
+            }
+            value.setValue(getDescriptorCache().decode(hostAndPort, schemeName, it,
+                descriptorType));
             return value;
         }).collect(Collectors.toList());
     }
 
+    /**
+     * 查询截止到当前的一段记录并在服务端降采样，时间范围和分辨率的约束见 {@link SeriesDownsampler#ofWindow}，
+     * 读取方式见 {@link MetricStore#feed}
+     */
     @NonNull
-    private String formatTime(long timestamp) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        return dateFormat.format(timestamp);
+    private MetricSeries querySeries(HostAndPort hostAndPort, String schemeName, long range,
+                                     long resolution) {
+        SeriesDownsampler downsampler = SeriesDownsampler.ofWindow(System.currentTimeMillis(),
+            range, resolution, seriesMaxRange, seriesMaxPoints);
+        getMetricStore().feed(hostAndPort, schemeName, downsampler);
+        return downsampler.build(schemeName);
     }
 }
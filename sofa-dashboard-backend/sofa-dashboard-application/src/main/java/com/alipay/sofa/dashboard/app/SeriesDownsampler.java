@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.app;
+
+import com.alipay.sofa.dashboard.model.MetricSeries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 时间序列降采样
+ * <p>
+ * 将 [start, end] 按 resolution 切分为等宽的桶，每个数值字段在桶内分别统计 min/max/avg。
+ * 嵌套的记录按数值叶子节点展开，字段名为以 '.' 连接的路径，例如 heap.used。非线程安全
+ */
+public class SeriesDownsampler {
+
+    private final long                          start;
+
+    private final long                          end;
+
+    private final long                          resolution;
+
+    private final int                           bucketCount;
+
+    private final Map<String, FieldAccumulator> fields = new TreeMap<>();
+
+    /**
+     * @param start      起始时间(ms)，包含
+     * @param end        结束时间(ms)，包含
+     * @param resolution 每个桶的时间跨度(ms)
+     */
+    public SeriesDownsampler(long start, long end, long resolution) {
+        if (resolution <= 0 || end < start) {
+            throw new IllegalArgumentException("Illegal series range [" + start + ", " + end
+                                               + "] with resolution " + resolution);
+        }
+        this.start = start;
+        this.end = end;
+        this.resolution = resolution;
+        this.bucketCount = (int) ((end - start) / resolution + 1);
+    }
+
+    /**
+     * 创建截止到 end 的降采样器。时间范围不超过 maxRange，分辨率不超过时间范围，桶数超过 maxPoints 时放大分辨率；
+     * 起始时间向后对齐到分辨率的整数倍，前端轮询时桶的边界保持稳定，且 end - start 不超过时间范围
+     *
+     * @param end        结束时间(ms)
+     * @param range      时间范围(ms)
+     * @param resolution 期望的分辨率(ms)
+     * @param maxRange   时间范围上限(ms)
+     * @param maxPoints  桶数上限
+     * @return 降采样器
+     */
+    public static SeriesDownsampler ofWindow(long end, long range, long resolution, long maxRange,
+                                             int maxPoints) {
+        long window = Math.max(1, Math.min(range, maxRange));
+        long points = Math.max(1, maxPoints);
+        long step = Math.max(Math.max(1, resolution), (window + points - 1) / points);
+        step = Math.min(step, window);
+        long start = (end - window + step - 1) / step * step;
+        return new SeriesDownsampler(start, end, step);
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * 添加一个字段的样本，超出范围的样本被忽略
+     *
+     * @param timestamp 样本时间(ms)
+     * @param field     字段路径
+     * @param value     样本值
+     * @return 样本是否在范围内
+     */
+    public boolean add(long timestamp, String field, double value) {
+        if (timestamp < start || timestamp > end || Double.isNaN(value)) {
+            return false;
+        }
+        int bucket = (int) ((timestamp - start) / resolution);
+        fields.computeIfAbsent(field, it -> new FieldAccumulator(bucketCount)).add(bucket, value);
+        return true;
+    }
+
+    /**
+     * 添加一条记录，记录中所有数值叶子节点都作为样本
+     *
+     * @param timestamp 记录时间(ms)
+     * @param document  反序列化为 Map 的记录
+     */
+    public void add(long timestamp, Map<?, ?> document) {
+        if (timestamp < start || timestamp > end || document == null) {
+            return;
+        }
+        numericFields(document).forEach((field, value) -> add(timestamp, field, value));
+    }
+
+    /**
+     * 将嵌套的记录展开为数值叶子节点，字段名为以 '.' 连接的路径，非数值节点被忽略
+     *
+     * @param document 反序列化为 Map 的记录
+     * @return 字段路径到数值的映射
+     */
+    public static Map<String, Double> numericFields(Map<?, ?> document) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (document != null) {
+            collectNumericFields(null, document, result);
+        }
+        return result;
+    }
+
+    private static void collectNumericFields(String prefix, Map<?, ?> document,
+                                             Map<String, Double> result) {
+        for (Map.Entry<?, ?> entry : document.entrySet()) {
+            String path = prefix == null ? String.valueOf(entry.getKey()) : prefix + "."
+                                                                             + entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Number) {
+                result.put(path, ((Number) value).doubleValue());
+            } else if (value instanceof Map) {
+                collectNumericFields(path, (Map<?, ?>) value, result);
+            }
+        }
+    }
+
+    /**
+     * 生成降采样结果，只保留至少有一个样本的桶
+     *
+     * @param name 数据名称
+     * @return 时间序列
+     */
+    public MetricSeries build(String name) {
+        boolean[] present = new boolean[bucketCount];
+        for (FieldAccumulator accumulator : fields.values()) {
+            for (int i = 0; i < bucketCount; i++) {
+                present[i] |= accumulator.count[i] > 0;
+            }
+        }
+
+        MetricSeries series = new MetricSeries();
+        series.setName(name);
+        series.setStart(start);
+        series.setEnd(end);
+        series.setResolution(resolution);
+        List<Long> timestamps = new ArrayList<>();
+        for (int i = 0; i < bucketCount; i++) {
+            if (present[i]) {
+                timestamps.add(start + i * resolution);
+            }
+        }
+        series.setTimestamps(timestamps);
+        for (Map.Entry<String, FieldAccumulator> entry : fields.entrySet()) {
+            series.getFields().put(entry.getKey(), entry.getValue().toSeries(present));
+        }
+        return series;
+    }
+
+    private static final class FieldAccumulator {
+
+        private final double[] min;
+
+        private final double[] max;
+
+        private final double[] sum;
+
+        private final int[]    count;
+
+        private FieldAccumulator(int bucketCount) {
+            this.min = new double[bucketCount];
+            this.max = new double[bucketCount];
+            this.sum = new double[bucketCount];
+            this.count = new int[bucketCount];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        private void add(int bucket, double value) {
+            min[bucket] = Math.min(min[bucket], value);
+            max[bucket] = Math.max(max[bucket], value);
+            sum[bucket] += value;
+            count[bucket]++;
+        }
+
+        private MetricSeries.FieldSeries toSeries(boolean[] present) {
+            MetricSeries.FieldSeries series = new MetricSeries.FieldSeries();
+            for (int i = 0; i < present.length; i++) {
+                if (!present[i]) {
+                    continue;
+                }
+                boolean empty = count[i] == 0;
+                series.getMin().add(empty ? null : min[i]);
+                series.getMax().add(empty ? null : max[i]);
+                series.getAvg().add(empty ? null : sum[i] / count[i]);
+            }
+            return series;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.alipay.sofa.dashboard.app;
 
 import com.alipay.sofa.dashboard.client.model.common.Application;
+import com.alipay.sofa.dashboard.client.registry.AppPublisher;
 import com.alipay.sofa.dashboard.mock.MockRegistry;
 import com.alipay.sofa.dashboard.model.ApplicationInfo;
 import com.alipay.sofa.dashboard.spi.AppService;
@@ -25,6 +26,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.springframework.util.StringUtils;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -123,6 +125,53 @@ public class AppServiceTest {
         }
     }
 
+    @Test
+    public void queryStatisticsRankedTest() throws Exception {
+        for (String appName : new String[] { "admin_order", "order_center", "order" }) {
+            registry.publisher(
+                Application.newBuilder().appState("NORMAL").startTime(System.currentTimeMillis())
+                    .lastRecover(System.currentTimeMillis()).hostName("10.1.1.1")
+                    .appName(appName).port(random.nextInt(65536)).build()).register();
+        }
+
+        List<String> query = service.getStatisticsByKeyword("order", 2).stream()
+            .map(ApplicationInfo::getApplicationName).collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("order", "order_center"), query);
+    }
+
+    @Test
+    public void versionTest() throws Exception {
+        long version = service.fetchVersion();
+        Assert.assertEquals(version, service.fetchVersion());
+
+        registry.publisher(
+            Application.newBuilder().appState("NORMAL").startTime(System.currentTimeMillis())
+                .lastRecover(System.currentTimeMillis()).hostName("10.1.1.1")
+                .appName("service_a").port(random.nextInt(65536)).build()).register();
+        // 变化在检查间隔之后才会被发现
+        Thread.sleep(1100);
+        Assert.assertTrue(service.fetchVersion() > version);
+    }
+
+    @Test
+    public void versionOnStateChangeTest() throws Exception {
+        long current = System.currentTimeMillis();
+        AppPublisher<?> publisher = registry.publisher(
+            Application.newBuilder().appState("NORMAL").startTime(current).lastRecover(current)
+                .hostName("10.1.1.1").appName("service_a").port(12200).build());
+        publisher.register();
+        Thread.sleep(1100);
+        long version = service.fetchVersion();
+
+        // 同一实例只有状态变化，实例数和应用名都不变
+        publisher.unRegister();
+        registry.publisher(
+            Application.newBuilder().appState("FAILED").startTime(current).lastRecover(current)
+                .hostName("10.1.1.1").appName("service_a").port(12200).build()).register();
+        Thread.sleep(1100);
+        Assert.assertTrue(service.fetchVersion() > version);
+    }
+
     @Test
     public void queryAllInstancesTest() throws Exception {
         long current = System.currentTimeMillis();
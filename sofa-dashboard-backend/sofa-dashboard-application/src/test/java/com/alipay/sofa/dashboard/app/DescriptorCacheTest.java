@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.app;
+
+import com.alipay.sofa.dashboard.client.model.common.HostAndPort;
+import com.alipay.sofa.dashboard.client.model.health.HealthDescriptor;
+import com.alipay.sofa.dashboard.client.model.io.RecordName;
+import com.alipay.sofa.dashboard.client.model.io.StoreRecord;
+import com.alipay.sofa.dashboard.client.utils.JsonUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 反序列化结果按记录时间戳复用
+ */
+public class DescriptorCacheTest {
+
+    private final HostAndPort hostAndPort = new HostAndPort("10.0.0.1", 8080);
+
+    @Test
+    public void testReuseUntilNewerRecord() {
+        DescriptorCache cache = new DescriptorCache(1024 * 1024, 60000);
+        StoreRecord record = healthRecord(1000L, "UP");
+
+        HealthDescriptor first = decode(cache, record);
+        Assert.assertEquals("UP", first.getStatus());
+        Assert.assertSame(first, decode(cache, healthRecord(1000L, "UP")));
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+
+        // 有更新的记录时重新解析
+        HealthDescriptor newer = decode(cache, healthRecord(2000L, "DOWN"));
+        Assert.assertEquals("DOWN", newer.getStatus());
+        Assert.assertEquals(2, cache.getMissCount());
+
+        // 不同实例的同一时刻记录互不影响
+        Assert.assertFalse(first == cache.decode(new HostAndPort("10.0.0.2", 8080),
+            RecordName.HEALTH, record, HealthDescriptor.class));
+    }
+
+    @Test
+    public void testWeightBound() {
+        // 上限约能放下 10 条记录
+        int weight = healthRecord(1000L, "UP").getValue().length();
+        DescriptorCache cache = new DescriptorCache(weight * 10, 60000);
+        for (int i = 0; i < 100; i++) {
+            decode(cache, healthRecord(1000L + i, "UP"));
+        }
+        Assert.assertTrue(cache.getSize() <= 10);
+        Assert.assertEquals(100 - cache.getSize(), cache.getEvictionCount());
+    }
+
+    private HealthDescriptor decode(DescriptorCache cache, StoreRecord record) {
+        return cache.decode(hostAndPort, RecordName.HEALTH, record, HealthDescriptor.class);
+    }
+
+    private static StoreRecord healthRecord(long timestamp, String status) {
+        HealthDescriptor descriptor = new HealthDescriptor();
+        descriptor.setStatus(status);
+        return StoreRecord.newBuilder().schemeName(RecordName.HEALTH).timestamp(timestamp)
+            .value(JsonUtils.toJsonString(descriptor)).build();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.app;
+
+import com.alipay.sofa.dashboard.model.MetricSeries;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MetricRingBufferTest {
+
+    @Test
+    public void overwriteOldestTest() {
+        MetricRingBuffer buffer = new MetricRingBuffer(3, 4);
+        for (int i = 1; i <= 5; i++) {
+            Assert.assertTrue(buffer.append(i * 1000, Collections.singletonMap("used", i * 10D)));
+        }
+        // 重复或过期的时间戳被忽略
+        Assert.assertFalse(buffer.append(5000, Collections.singletonMap("used", 0D)));
+        Assert.assertFalse(buffer.append(1000, Collections.singletonMap("used", 0D)));
+
+        Assert.assertTrue(buffer.isFull());
+        Assert.assertEquals(3000, buffer.getOldestTimestamp());
+        Assert.assertEquals(5000, buffer.getLatestTimestamp());
+        Assert.assertEquals(3 * 2 * 8, buffer.getFootprint());
+
+        SeriesDownsampler downsampler = new SeriesDownsampler(0, 9999, 2000);
+        buffer.feed(downsampler, 0, 9999);
+        MetricSeries series = downsampler.build("memory");
+        Assert.assertEquals(Arrays.asList(2000L, 4000L), series.getTimestamps());
+        Assert.assertEquals(Arrays.asList(30D, 45D), series.getFields().get("used").getAvg());
+    }
+
+    @Test
+    public void missingAndOverflowFieldsTest() {
+        MetricRingBuffer buffer = new MetricRingBuffer(4, 2);
+        buffer.append(1000, Collections.singletonMap("a", 1D));
+        Map<String, Double> values = new HashMap<>();
+        values.put("a", 2D);
+        values.put("b", 20D);
+        buffer.append(2000, values);
+        // 超过字段数上限的字段被丢弃
+        buffer.append(3000, Collections.singletonMap("c", 300D));
+
+        SeriesDownsampler downsampler = new SeriesDownsampler(0, 3999, 1000);
+        buffer.feed(downsampler, 1500, 3999);
+        MetricSeries series = downsampler.build("memory");
+        // 最后一个样本的字段都被丢弃，因此只有 2000 这个桶
+        Assert.assertEquals(Collections.singletonList(2000L), series.getTimestamps());
+        Assert.assertEquals(Collections.singletonList(2D), series.getFields().get("a").getMax());
+        Assert.assertEquals(Collections.singletonList(20D), series.getFields().get("b").getMax());
+        Assert.assertFalse(series.getFields().containsKey("c"));
+        Assert.assertEquals(4 * 3 * 8, buffer.getFootprint());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.app;
+
+import com.alipay.sofa.dashboard.client.model.common.HostAndPort;
+import com.alipay.sofa.dashboard.client.model.io.RecordName;
+import com.alipay.sofa.dashboard.client.model.io.StoreRecord;
+import com.alipay.sofa.dashboard.mock.MockStore;
+import com.alipay.sofa.dashboard.model.MetricSeries;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MetricStoreTest {
+
+    @Rule
+    public final MockStore    store       = new MockStore();
+
+    private final MetricStore metricStore = new MetricStore(store, 4, 1000, 8, 16, 60000);
+
+    private final HostAndPort hostAndPort = new HostAndPort("127.0.0.1", 8080);
+
+    @Test
+    public void incrementalSyncTest() {
+        addMemory(1000, 10);
+        addMemory(2000, 20);
+
+        MetricRingBuffer buffer = metricStore.sync(hostAndPort, RecordName.MEMORY, 0, 2000);
+        Assert.assertEquals(2, buffer.getSize());
+        Assert.assertEquals(0, buffer.getCoveredSince());
+
+        // 已写入的记录不会重复写入，新记录追加到缓冲区
+        addMemory(3000, 30);
+        Assert.assertSame(buffer, metricStore.sync(hostAndPort, RecordName.MEMORY, 0, 3000));
+        Assert.assertEquals(3, buffer.getSize());
+        Assert.assertEquals(3000, buffer.getLatestTimestamp());
+        Assert.assertEquals(1, metricStore.getBufferCount());
+
+        SeriesDownsampler downsampler = new SeriesDownsampler(0, 3999, 2000);
+        buffer.feed(downsampler, 0, 3999);
+        MetricSeries series = downsampler.build(RecordName.MEMORY);
+        Assert.assertEquals(Arrays.asList(0L, 2000L), series.getTimestamps());
+        Assert.assertEquals(Arrays.asList(10D, 25D), series.getFields().get("heap.used").getAvg());
+    }
+
+    @Test
+    public void backfillTest() {
+        addMemory(1000, 10);
+        addMemory(2000, 20);
+
+        MetricRingBuffer buffer = metricStore.sync(hostAndPort, RecordName.MEMORY, 1500, 2000);
+        Assert.assertEquals(1500, buffer.getCoveredSince());
+
+        // 查询更早的范围时重新拉取并重建缓冲区
+        buffer = metricStore.sync(hostAndPort, RecordName.MEMORY, 500, 2000);
+        Assert.assertEquals(500, buffer.getCoveredSince());
+        Assert.assertEquals(2, buffer.getSize());
+        Assert.assertEquals(1000, buffer.getOldestTimestamp());
+    }
+
+    @Test
+    public void rangeBeyondRetentionTest() {
+        for (int i = 1; i <= 10; i++) {
+            addMemory(i * 1000, i);
+        }
+        Assert.assertEquals(4000, metricStore.getRetention());
+
+        // 超过缓冲区能保留的时长，直接从存储读取，不创建缓冲区
+        SeriesDownsampler downsampler = new SeriesDownsampler(0, 10000, 5000);
+        metricStore.feed(hostAndPort, RecordName.MEMORY, downsampler);
+        Assert.assertEquals(0, metricStore.getBufferCount());
+        MetricSeries series = downsampler.build(RecordName.MEMORY);
+        Assert.assertEquals(Arrays.asList(0L, 5000L, 10000L), series.getTimestamps());
+        Assert.assertEquals(Arrays.asList(1D, 5D, 10D), series.getFields().get("heap.used")
+            .getMin());
+
+        // 保留时长以内的范围从缓冲区读取
+        downsampler = new SeriesDownsampler(7000, 10000, 1000);
+        metricStore.feed(hostAndPort, RecordName.MEMORY, downsampler);
+        Assert.assertEquals(1, metricStore.getBufferCount());
+        Assert.assertEquals(Arrays.asList(7000L, 8000L, 9000L, 10000L),
+            downsampler.build(RecordName.MEMORY).getTimestamps());
+    }
+
+    private void addMemory(long timestamp, long used) {
+        store.addRecords(
+            hostAndPort,
+            Lists.newArrayList(StoreRecord.newBuilder().schemeName(RecordName.MEMORY)
+                .timestamp(timestamp).value("{\"heap\":{\"used\":" + used + "}}").build()));
+    }
+}
@@ -34,6 +34,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 
@@ -83,6 +84,39 @@ public class MonitorServiceTest {
         LOGGER.info("Fetch env => {}", JsonUtils.toJsonString(query));
     }
 
+    @Test
+    public void fetchHealthBatchTest() {
+        HostAndPort up = randomInstance();
+        HostAndPort down = randomInstance();
+        HostAndPort absent = randomInstance();
+        addHealth(up, "UP");
+        addHealth(down, "DOWN");
+
+        Map<HostAndPort, HealthDescriptor> query = service.fetchHealth(Lists.newArrayList(down,
+            absent, up, down));
+        // 重复地址只查询一次，无数据的实例不在结果中，顺序与传入一致
+        Assert.assertEquals(Lists.newArrayList(down, up), Lists.newArrayList(query.keySet()));
+        Assert.assertEquals("UP", query.get(up).getStatus());
+        Assert.assertEquals("DOWN", query.get(down).getStatus());
+
+        Assert.assertTrue(service.fetchHealth(Lists.newArrayList()).isEmpty());
+        Assert.assertEquals("UP", service.fetchHealth(Lists.newArrayList(up)).get(up).getStatus());
+    }
+
+    @Test
+    public void fetchCacheStatsTest() {
+        HostAndPort hostAndPort = randomInstance();
+        addHealth(hostAndPort, "UP");
+        service.fetchHealth(hostAndPort);
+        service.fetchHealth(hostAndPort);
+
+        Map<String, Number> stats = service.fetchCacheStats();
+        Assert.assertEquals(1L, stats.get("descriptorCache.missCount"));
+        Assert.assertEquals(1L, stats.get("descriptorCache.hitCount"));
+        Assert.assertEquals(1L, stats.get("descriptorCache.size"));
+        Assert.assertEquals(0L, stats.get("metricStore.bufferCount"));
+    }
+
     @Test
     public void fetchInfoTest() {
         InfoDescriptor descriptor = new InfoDescriptor();
@@ -131,6 +165,16 @@ public class MonitorServiceTest {
         LOGGER.info("Fetch env => {}", JsonUtils.toJsonString(query));
     }
 
+    private void addHealth(HostAndPort hostAndPort, String status) {
+        HealthDescriptor descriptor = new HealthDescriptor();
+        descriptor.setStatus(status);
+        store.addRecords(
+            hostAndPort,
+            Lists.newArrayList(StoreRecord.newBuilder().schemeName(RecordName.HEALTH)
+                .timestamp(System.currentTimeMillis()).value(JsonUtils.toJsonString(descriptor))
+                .build()));
+    }
+
     private HostAndPort randomInstance() {
         String host = UUID.randomUUID().toString().replace("-", "").substring(8);
         int port = random.nextInt(65536);
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.app;
+
+import com.alipay.sofa.dashboard.model.MetricSeries;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SeriesDownsamplerTest {
+
+    @Test
+    public void downsampleNestedFieldsTest() {
+        SeriesDownsampler downsampler = new SeriesDownsampler(1000, 4999, 1000);
+        downsampler.add(1000, record(10, 3));
+        downsampler.add(1500, record(30, 5));
+        downsampler.add(3200, record(20, null));
+        // 超出范围的记录被忽略
+        downsampler.add(999, record(1000, 1000));
+        downsampler.add(5000, record(1000, 1000));
+
+        MetricSeries series = downsampler.build("memory");
+        Assert.assertEquals("memory", series.getName());
+        Assert.assertEquals(1000, series.getResolution());
+        // 没有样本的桶不返回
+        Assert.assertEquals(Arrays.asList(1000L, 3000L), series.getTimestamps());
+
+        MetricSeries.FieldSeries used = series.getFields().get("heap.used");
+        Assert.assertEquals(Arrays.asList(10D, 20D), used.getMin());
+        Assert.assertEquals(Arrays.asList(30D, 20D), used.getMax());
+        Assert.assertEquals(Arrays.asList(20D, 20D), used.getAvg());
+
+        // 字段在有样本的桶内缺失时为 null
+        MetricSeries.FieldSeries threads = series.getFields().get("threads");
+        Assert.assertEquals(Arrays.asList(3D, null), threads.getMin());
+        Assert.assertEquals(Arrays.asList(4D, null), threads.getAvg());
+
+        // 非数值字段不参与统计
+        Assert.assertFalse(series.getFields().containsKey("heap.name"));
+    }
+
+    @Test
+    public void oversizeResolutionTest() {
+        long hour = 3600000L;
+        long end = 1700000000000L + 123;
+        // 分辨率远大于时间范围时不会把起始时间对齐到更早的时刻
+        SeriesDownsampler downsampler = SeriesDownsampler.ofWindow(end, hour, 24 * hour,
+            24 * hour, 1440);
+        Assert.assertEquals(hour, downsampler.getResolution());
+        Assert.assertTrue(end - downsampler.getStart() <= hour);
+        Assert.assertEquals(0, downsampler.getStart() % hour);
+
+        downsampler = SeriesDownsampler.ofWindow(end, Long.MAX_VALUE, Long.MAX_VALUE, 24 * hour,
+            1440);
+        Assert.assertTrue(end - downsampler.getStart() <= 24 * hour);
+
+        // 桶数超过上限时放大分辨率
+        downsampler = SeriesDownsampler.ofWindow(end, hour, 1, 24 * hour, 60);
+        Assert.assertEquals(60000, downsampler.getResolution());
+        Assert.assertTrue(end - downsampler.getStart() <= hour);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalResolutionTest() {
+        new SeriesDownsampler(0, 1000, 0);
+    }
+
+    private Map<String, Object> record(long heapUsed, Integer threads) {
+        Map<String, Object> heap = new HashMap<>();
+        heap.put("used", heapUsed);
+        heap.put("name", "heap");
+        Map<String, Object> record = new HashMap<>();
+        record.put("heap", heap);
+        if (threads != null) {
+            record.put("threads", threads);
+        }
+        return record;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.app;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地指标存储堆占用的基准测试
+ * <p>
+ * 默认 5000 个实例，每个实例保留内存和线程两类指标，按 10s 采样保留 1 小时(360 个样本)。
+ * columnar 为 {@link MetricRingBuffer} 的列式布局；maps 为按记录保留解析后的字段 Map 的布局。
+ * 迭代结束时输出 GC 后的堆增量、平均每个实例的字节数以及缓冲区数组的估算值
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class MetricStoreFootprintBenchmark {
+
+    private static final long INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
+    @Param({ "columnar", "maps" })
+    private String            layout;
+
+    @Param({ "5000" })
+    private int               instances;
+
+    @Param({ "360" })
+    private int               samples;
+
+    @Param({ "12" })
+    private int               memoryFields;
+
+    @Param({ "6" })
+    private int               threadFields;
+
+    private String[]          memoryNames;
+
+    private String[]          threadNames;
+
+    private List<Object>      retained;
+
+    private long              baseline;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        memoryNames = fieldNames("heap", memoryFields);
+        threadNames = fieldNames("thread", threadFields);
+        retained = null;
+        baseline = usedHeapAfterGc();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        long used = usedHeapAfterGc() - baseline;
+        long arrays = 0;
+        for (Object buffer : retained) {
+            if (buffer instanceof MetricRingBuffer) {
+                arrays += ((MetricRingBuffer) buffer).getFootprint();
+            }
+        }
+        System.out.printf("%n[%s] %d instances retain %d MB, %d bytes per instance, "
+                          + "arrays %d MB%n", layout, instances, used >> 20, used / instances,
+            arrays >> 20);
+        retained = null;
+    }
+
+    @Benchmark
+    public List<Object> build() {
+        List<Object> result = new ArrayList<>(instances * 2);
+        boolean columnar = "columnar".equals(layout);
+        for (int i = 0; i < instances; i++) {
+            result.add(fill(columnar, i, memoryNames));
+            result.add(fill(columnar, i, threadNames));
+        }
+        retained = result;
+        return result;
+    }
+
+    private Object fill(boolean columnar, int instance, String[] names) {
+        MetricRingBuffer buffer = columnar ? new MetricRingBuffer(samples, names.length) : null;
+        List<Map<String, Double>> records = columnar ? null : new ArrayList<>(samples);
+        for (int n = 0; n < samples; n++) {
+            // 与 SeriesDownsampler.numericFields 解析出的结构一致
+            Map<String, Double> values = new HashMap<>();
+            for (int f = 0; f < names.length; f++) {
+                values.put(names[f], (double) (instance * 31 + n * 7 + f));
+            }
+            if (columnar) {
+                buffer.append(n * INTERVAL, values);
+            } else {
+                records.add(values);
+            }
+        }
+        return columnar ? buffer : records;
+    }
+
+    private static String[] fieldNames(String prefix, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = prefix + ".field" + i;
+        }
+        return names;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
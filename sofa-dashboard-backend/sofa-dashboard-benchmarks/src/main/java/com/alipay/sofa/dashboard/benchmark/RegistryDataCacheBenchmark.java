@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.benchmark;
+
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.cache.SofaRegistryDataCacheImpl;
+import com.alipay.sofa.dashboard.cache.ZookeeperRegistryDataCacheImpl;
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.dashboard.domain.RpcService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RegistryDataCache 写入、删除和查询的基准测试
+ * <p>
+ * implementation 选择缓存实现，services、instances 控制模拟注册中心的规模，
+ * 最大的 25000 * 4 对应启动时一次写入 10 万个 provider 节点。
+ * 写入类测试每次都在新的缓存上进行，查询类测试在预先填充好的缓存上随机选取服务。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistryDataCacheBenchmark {
+
+    @Param({ "zookeeper", "sofa" })
+    private String            implementation;
+
+    @Param({ "1000", "10000", "25000" })
+    private int               services;
+
+    @Param({ "4" })
+    private int               instances;
+
+    @Param({ "100" })
+    private int               apps;
+
+    private SyntheticRegistry registry;
+
+    private RegistryDataCache cache;
+
+    private List<RpcService>  serviceList;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new SyntheticRegistry(services, instances, apps);
+        serviceList = registry.services();
+        cache = newCache(implementation);
+        registry.populate(cache);
+    }
+
+    /**
+     * 全量写入一个空缓存
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public RegistryDataCache ingest() {
+        RegistryDataCache target = newCache(implementation);
+        registry.populate(target);
+        return target;
+    }
+
+    /**
+     * 单个服务的 provider 和 consumer 全部下线后重新上线，对应一次应用发布
+     */
+    @Benchmark
+    public void removeAndAdd() {
+        int index = randomService();
+        String serviceName = registry.serviceName(index);
+        List<RpcProvider> providers = registry.providers(index);
+        List<RpcConsumer> consumers = registry.consumers(index);
+        cache.removeProviders(serviceName, providers);
+        cache.removeConsumers(serviceName, consumers);
+        cache.addProviders(serviceName, providers);
+        cache.addConsumers(serviceName, consumers);
+    }
+
+    /**
+     * 服务下线后重新注册
+     */
+    @Benchmark
+    public void removeAndAddService() {
+        List<RpcService> service = Collections.singletonList(serviceList.get(randomService()));
+        cache.removeService(service);
+        cache.addService(service);
+    }
+
+    @Benchmark
+    public void fetchProvidersAndConsumers(Blackhole blackhole) {
+        String serviceName = registry.serviceName(randomService());
+        blackhole.consume(cache.fetchProvidersByService(serviceName));
+        blackhole.consume(cache.fetchConsumersByService(serviceName));
+    }
+
+    @Benchmark
+    public void fetchServicesByApp(Blackhole blackhole) {
+        String appName = registry.appName(randomService());
+        blackhole.consume(cache.fetchProvidedServicesByApp(appName));
+        blackhole.consume(cache.fetchConsumedServicesByApp(appName));
+    }
+
+    @Benchmark
+    public Object fetchServiceModels() {
+        return cache.fetchServiceModels();
+    }
+
+    @Benchmark
+    public Object fetchAppSummaries() {
+        return cache.fetchAppSummaries();
+    }
+
+    @Benchmark
+    public Object searchServices() {
+        return cache.searchServices("SampleService" + randomService(), 20);
+    }
+
+    private int randomService() {
+        return ThreadLocalRandom.current().nextInt(services);
+    }
+
+    static RegistryDataCache newCache(String implementation) {
+        if ("sofa".equals(implementation)) {
+            return new SofaRegistryDataCacheImpl();
+        }
+        return new ZookeeperRegistryDataCacheImpl();
+    }
+}
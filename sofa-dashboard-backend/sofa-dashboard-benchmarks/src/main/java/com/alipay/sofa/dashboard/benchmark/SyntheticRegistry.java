@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.benchmark;
+
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.dashboard.domain.RpcService;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按规模生成的模拟注册中心数据
+ * <p>
+ * 服务、实例和应用之间的关系是确定的，同样的规模参数每次生成相同的数据，便于不同版本间对比。
+ * 节点名按 SOFARPC 注册到 zookeeper 的格式生成，可直接交给 ZookeeperNodeConverter 解析。
+ */
+public class SyntheticRegistry {
+
+    public static final String  SERVICE_PREFIX = "com.alipay.sofa.benchmark.SampleService";
+
+    public static final String  APP_PREFIX     = "benchmark-app-";
+
+    public static final int     RPC_PORT       = 12200;
+
+    private static final String VERSION        = "1.0";
+
+    private final int           serviceCount;
+
+    private final int           instanceCount;
+
+    private final int           appCount;
+
+    /**
+     * @param serviceCount  服务数
+     * @param instanceCount 每个服务的 provider 数，consumer 数与之相同
+     * @param appCount      应用数，服务按序号平均分配到各应用
+     */
+    public SyntheticRegistry(int serviceCount, int instanceCount, int appCount) {
+        this.serviceCount = serviceCount;
+        this.instanceCount = instanceCount;
+        this.appCount = Math.max(1, appCount);
+    }
+
+    public int getServiceCount() {
+        return serviceCount;
+    }
+
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    public int getAppCount() {
+        return appCount;
+    }
+
+    public String serviceName(int serviceIndex) {
+        return SERVICE_PREFIX + serviceIndex + ":" + VERSION;
+    }
+
+    public String interfaceName(int serviceIndex) {
+        return SERVICE_PREFIX + serviceIndex;
+    }
+
+    public String appName(int serviceIndex) {
+        return APP_PREFIX + (serviceIndex % appCount);
+    }
+
+    /**
+     * consumer 所在应用与 provider 错开一位，保证每个应用同时有提供和消费的服务
+     */
+    public String consumerAppName(int serviceIndex) {
+        return APP_PREFIX + ((serviceIndex + 1) % appCount);
+    }
+
+    public String providerHost(int serviceIndex, int instanceIndex) {
+        return host(10, serviceIndex * instanceCount + instanceIndex);
+    }
+
+    public String consumerHost(int serviceIndex, int instanceIndex) {
+        return host(11, serviceIndex * instanceCount + instanceIndex);
+    }
+
+    public List<String> serviceNames() {
+        List<String> result = new ArrayList<>(serviceCount);
+        for (int i = 0; i < serviceCount; i++) {
+            result.add(serviceName(i));
+        }
+        return result;
+    }
+
+    public List<RpcService> services() {
+        List<RpcService> result = new ArrayList<>(serviceCount);
+        for (int i = 0; i < serviceCount; i++) {
+            result.add(service(i));
+        }
+        return result;
+    }
+
+    public RpcService service(int serviceIndex) {
+        return RpcService.newBuilder().serviceName(serviceName(serviceIndex))
+            .appName(appName(serviceIndex)).version(VERSION).build();
+    }
+
+    public List<RpcProvider> providers(int serviceIndex) {
+        List<RpcProvider> result = new ArrayList<>(instanceCount);
+        for (int i = 0; i < instanceCount; i++) {
+            result.add(provider(serviceIndex, i));
+        }
+        return result;
+    }
+
+    public RpcProvider provider(int serviceIndex, int instanceIndex) {
+        return RpcProvider.newBuilder().serviceName(serviceName(serviceIndex))
+            .address(providerHost(serviceIndex, instanceIndex)).port(RPC_PORT)
+            .appName(appName(serviceIndex)).weight(100).build();
+    }
+
+    public List<RpcConsumer> consumers(int serviceIndex) {
+        List<RpcConsumer> result = new ArrayList<>(instanceCount);
+        for (int i = 0; i < instanceCount; i++) {
+            result.add(consumer(serviceIndex, i));
+        }
+        return result;
+    }
+
+    public RpcConsumer consumer(int serviceIndex, int instanceIndex) {
+        return RpcConsumer.newBuilder().serviceName(serviceName(serviceIndex))
+            .address(consumerHost(serviceIndex, instanceIndex))
+            .appName(consumerAppName(serviceIndex)).build();
+    }
+
+    /**
+     * 把全部服务、provider 和 consumer 写入缓存
+     */
+    public void populate(RegistryDataCache cache) {
+        cache.addService(services());
+        for (int i = 0; i < serviceCount; i++) {
+            String serviceName = serviceName(i);
+            cache.addProviders(serviceName, providers(i));
+            cache.addConsumers(serviceName, consumers(i));
+        }
+    }
+
+    /**
+     * provider 在 zookeeper 上的节点名，即 URL 编码后的 provider url
+     */
+    public String providerNode(int serviceIndex, int instanceIndex) {
+        String url = "bolt://" + providerHost(serviceIndex, instanceIndex) + ":" + RPC_PORT
+                     + "/" + interfaceName(serviceIndex) + "?version=" + VERSION
+                     + "&accepts=100000&weight=100&language=java&pid=" + (1000 + instanceIndex)
+                     + "&interface=" + interfaceName(serviceIndex)
+                     + "&timeout=3000&serialization=hessian2&protocol=bolt&delay=-1"
+                     + "&dynamic=true&startTime=1561619281318&id=rpc-cfg-" + serviceIndex
+                     + "&uniqueId=&appName=" + appName(serviceIndex) + "&rpcVer=50600";
+        return encode(url);
+    }
+
+    /**
+     * consumer 在 zookeeper 上的节点名
+     */
+    public String consumerNode(int serviceIndex, int instanceIndex) {
+        String url = "bolt://" + consumerHost(serviceIndex, instanceIndex) + "/"
+                     + interfaceName(serviceIndex) + "?version=" + VERSION + "&pid="
+                     + (2000 + instanceIndex) + "&interface=" + interfaceName(serviceIndex)
+                     + "&timeout=3000&serialization=hessian2&protocol=bolt"
+                     + "&startTime=1561619281318&id=rpc-cfg-" + serviceIndex
+                     + "&uniqueId=&appName=" + consumerAppName(serviceIndex) + "&rpcVer=50600";
+        return encode(url);
+    }
+
+    private static String host(int firstOctet, int sequence) {
+        return firstOctet + "." + ((sequence >> 16) & 0xFF) + "." + ((sequence >> 8) & 0xFF)
+               + "." + (sequence & 0xFF);
+    }
+
+    private static String encode(String url) {
+        try {
+            return URLEncoder.encode(url, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.controller;
+
+import com.alipay.sofa.dashboard.benchmark.SyntheticRegistry;
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.cache.ZookeeperRegistryDataCacheImpl;
+import com.alipay.sofa.dashboard.utils.ETagUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ServiceManageController 列表和检索接口的基准测试
+ * <p>
+ * 直接调用 controller 方法，不经过 MVC 的参数绑定和 JSON 序列化，只衡量缓存聚合、排序和分页的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceManageControllerBenchmark {
+
+    private static final String     ETAG_SCOPE = "registry";
+
+    @Param({ "1000", "10000" })
+    private int                     services;
+
+    @Param({ "4" })
+    private int                     instances;
+
+    @Param({ "100" })
+    private int                     apps;
+
+    private SyntheticRegistry       registry;
+
+    private ServiceManageController controller;
+
+    private String                  currentETag;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new SyntheticRegistry(services, instances, apps);
+        RegistryDataCache cache = new ZookeeperRegistryDataCacheImpl();
+        registry.populate(cache);
+        controller = new ServiceManageController();
+        ReflectionTestUtils.setField(controller, "registryDataCache", cache);
+        currentETag = ETagUtils.of(ETAG_SCOPE, cache.fetchVersion());
+    }
+
+    /**
+     * 服务维度首页：全量列表按 provider 数倒序后取第一页
+     */
+    @Benchmark
+    public Object serviceListFirstPage() {
+        return controller.queryServiceListByService("", 1, 20, "providerNum", "desc",
+            newRequest(), new MockHttpServletResponse());
+    }
+
+    /**
+     * 服务维度按关键字检索
+     */
+    @Benchmark
+    public Object serviceListSearch() {
+        return controller.queryServiceListByService("SampleService" + randomService(), 1, 20,
+            null, null, newRequest(), new MockHttpServletResponse());
+    }
+
+    /**
+     * 应用维度首页
+     */
+    @Benchmark
+    public Object appListFirstPage() {
+        return controller.queryServiceListByApp("", 1, 20, newRequest(),
+            new MockHttpServletResponse());
+    }
+
+    @Benchmark
+    public Object serviceByApp() {
+        return controller.queryServiceByAppName(registry.appName(randomService()), newRequest());
+    }
+
+    @Benchmark
+    public Object serviceProviders() {
+        return controller.queryServiceProviders(registry.serviceName(randomService()),
+            newRequest());
+    }
+
+    @Benchmark
+    public Object serviceSearch() {
+        return controller.queryService("SampleService" + randomService(), 20, newRequest());
+    }
+
+    /**
+     * 客户端带着最新的 ETag 轮询，数据没有变化时直接返回 304
+     */
+    @Benchmark
+    public Object serviceListNotModified() {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET",
+            "/api/service/all-service");
+        servletRequest.addHeader("If-None-Match", currentETag);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        return controller.queryServiceListByService("", 1, 20, null, null,
+            new ServletWebRequest(servletRequest, servletResponse), servletResponse);
+    }
+
+    private ServletWebRequest newRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/api/service"),
+            new MockHttpServletResponse());
+    }
+
+    private int randomService() {
+        return ThreadLocalRandom.current().nextInt(services);
+    }
+}
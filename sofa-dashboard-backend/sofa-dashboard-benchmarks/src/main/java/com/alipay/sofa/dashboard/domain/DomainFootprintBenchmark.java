@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.domain;
+
+import com.alipay.sofa.dashboard.benchmark.SyntheticRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * provider 对象堆占用的基准测试
+ * <p>
+ * interned 为当前的 {@link RpcProvider}，字符串经过 {@link RpcInterners} 去重；plain 为去重之前的可变对象，
+ * 每个实例持有各自的字符串。每次迭代构造 services * instances 个对象并保持引用，
+ * 迭代结束时输出 GC 后的堆增量和平均每个对象的字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class DomainFootprintBenchmark {
+
+    @Param({ "interned", "plain" })
+    private String            layout;
+
+    @Param({ "10000" })
+    private int               services;
+
+    @Param({ "20" })
+    private int               instances;
+
+    private SyntheticRegistry registry;
+
+    private List<Object>      retained;
+
+    private long              baseline;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        registry = new SyntheticRegistry(services, instances, services / 100);
+        retained = null;
+        baseline = usedHeapAfterGc();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        long used = usedHeapAfterGc() - baseline;
+        System.out.printf("%n[%s] %d providers retain %d KB, %d bytes per provider%n", layout,
+            retained.size(), used >> 10, used / retained.size());
+        retained = null;
+    }
+
+    @Benchmark
+    public List<Object> build() {
+        List<Object> result = new ArrayList<>(services * instances);
+        boolean interned = "interned".equals(layout);
+        for (int i = 0; i < services; i++) {
+            for (int j = 0; j < instances; j++) {
+                // 每次拼接得到新的字符串实例，与解析节点名时的情况一致
+                String serviceName = registry.serviceName(i);
+                String address = registry.providerHost(i, j);
+                String appName = registry.appName(i);
+                if (interned) {
+                    result.add(RpcProvider.newBuilder().serviceName(serviceName)
+                        .address(address).port(SyntheticRegistry.RPC_PORT).appName(appName)
+                        .weight(100).build());
+                } else {
+                    PlainProvider provider = new PlainProvider();
+                    provider.serviceName = serviceName;
+                    provider.address = address;
+                    provider.port = SyntheticRegistry.RPC_PORT;
+                    provider.appName = appName;
+                    provider.weight = 100;
+                    result.add(provider);
+                }
+            }
+        }
+        retained = result;
+        return result;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 去重之前的 provider 字段布局
+     */
+    private static class PlainProvider {
+
+        private String              serviceName;
+        private String              url;
+        private Map<String, String> parameters;
+        private String              address;
+        private int                 port;
+        private Map<String, String> overrides;
+        private String              appName;
+        private int                 weight;
+        private boolean             enabled;
+        private boolean             dynamic;
+        private boolean             cell;
+    }
+}
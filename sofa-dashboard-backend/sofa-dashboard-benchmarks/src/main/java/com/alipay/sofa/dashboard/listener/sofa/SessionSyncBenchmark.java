@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.sofa;
+
+import com.alibaba.fastjson.JSON;
+import com.alipay.sofa.dashboard.benchmark.SyntheticRegistry;
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.cache.SofaRegistryDataCacheImpl;
+import com.alipay.sofa.dashboard.constants.SofaDashboardConstants;
+import com.alipay.sofa.rpc.config.RegistryConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SOFARegistry session 全量同步的基准测试
+ * <p>
+ * 用一个本地 HTTP 服务模拟 session 的 digest 接口，latency 为每个请求的模拟网络延迟，
+ * fetchParallelism 为 {@link SofaRegistryRestClient} 拉取 pub/sub 数据的并发度。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SessionSyncBenchmark {
+
+    private static final String    DATA_INFO_ID_PARAM = "dataInfoId=";
+
+    @Param({ "10000" })
+    private int                    services;
+
+    @Param({ "2" })
+    private int                    instances;
+
+    @Param({ "1", "8", "32" })
+    private int                    fetchParallelism;
+
+    /**
+     * 每个请求的模拟延迟，单位毫秒
+     */
+    @Param({ "0", "2" })
+    private long                   latency;
+
+    private SyntheticRegistry      registry;
+
+    private Map<String, Integer>   serviceIndexes;
+
+    private HttpServer             server;
+
+    private ExecutorService        serverExecutor;
+
+    private SofaRegistryRestClient client;
+
+    private RegistryDataCache      cache;
+
+    @Setup(Level.Trial)
+    public void setUpServer() throws IOException {
+        registry = new SyntheticRegistry(services, instances, services / 100);
+        serviceIndexes = new HashMap<>(services * 2);
+        for (int i = 0; i < services; i++) {
+            serviceIndexes.put(registry.serviceName(i), i);
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/digest/getDataInfoIdList",
+            exchange -> respond(exchange, registry.serviceNames()));
+        server.createContext("/digest/pub/data/query",
+            exchange -> respond(exchange, sessionData(exchange, true)));
+        server.createContext("/digest/sub/data/query",
+            exchange -> respond(exchange, sessionData(exchange, false)));
+        serverExecutor = Executors.newFixedThreadPool(64);
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpClient() {
+        cache = new SofaRegistryDataCacheImpl();
+        client = new SofaRegistryRestClient();
+        ReflectionTestUtils.setField(client, "restTemplate", new RestTemplate());
+        ReflectionTestUtils.setField(client, "registryDataCache", cache);
+        ReflectionTestUtils.setField(client, "fetchParallelism", fetchParallelism);
+        client.init(new RegistryConfig().setAddress("127.0.0.1:"
+                                                    + server.getAddress().getPort()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownClient() {
+        client.shutdown();
+        if (cache.fetchService().size() != services) {
+            throw new IllegalStateException("Expect " + services + " services but "
+                                            + cache.fetchService().size());
+        }
+    }
+
+    @Benchmark
+    public RegistryDataCache syncAllSessionData() {
+        client.syncAllSessionData();
+        return cache;
+    }
+
+    /**
+     * 按 session 的返回格式构造 pub/sub 数据：zone 到发布者或订阅者列表的映射
+     */
+    private Map<String, List<Map<String, Object>>> sessionData(HttpExchange exchange,
+                                                               boolean publisher) {
+        String query = exchange.getRequestURI().getRawQuery();
+        String dataInfoId = query == null ? "" : decode(query.substring(query
+            .indexOf(DATA_INFO_ID_PARAM) + DATA_INFO_ID_PARAM.length()));
+        Integer serviceIndex = serviceIndexes.get(dataInfoId);
+        if (serviceIndex == null) {
+            return Collections.emptyMap();
+        }
+        List<Map<String, Object>> records = new ArrayList<>(instances);
+        for (int i = 0; i < instances; i++) {
+            Map<String, Object> record = new HashMap<>();
+            record.put(SofaDashboardConstants.REGISTRY_DATA_ID_KEY, dataInfoId);
+            if (publisher) {
+                record.put(SofaDashboardConstants.APP_NAME, registry.appName(serviceIndex));
+                record.put(SofaDashboardConstants.REGISTRY_PROCESS_ID_KEY,
+                    registry.providerHost(serviceIndex, i) + ":" + SyntheticRegistry.RPC_PORT);
+            } else {
+                record.put(SofaDashboardConstants.APP_NAME,
+                    registry.consumerAppName(serviceIndex));
+                record.put(SofaDashboardConstants.REGISTRY_PROCESS_ID_KEY,
+                    registry.consumerHost(serviceIndex, i) + ":" + SyntheticRegistry.RPC_PORT);
+            }
+            records.add(record);
+        }
+        return Collections.singletonMap("DEFAULT_ZONE", records);
+    }
+
+    private void respond(HttpExchange exchange, Object body) throws IOException {
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] bytes = JSON.toJSONString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.benchmark.SyntheticRegistry;
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.cache.ZookeeperRegistryDataCacheImpl;
+import com.alipay.sofa.dashboard.constants.SofaDashboardConstants;
+import com.alipay.sofa.dashboard.registry.ZookeeperAdminRegistry;
+import com.alipay.sofa.rpc.config.RegistryConfig;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * children 和 tree 两种订阅模式的初始同步基准测试
+ * <p>
+ * 在内嵌 zookeeper 上按规模写入 /sofa-rpc/{service}/providers|consumers/{url} 节点，每次迭代启动一个新的
+ * {@link ZookeeperAdminRegistry} 并订阅，直到缓存中出现全部 provider 和 consumer 为止。
+ * 迭代结束时输出 zookeeper 上的 watch 数和同步完成后的堆占用。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SubscriptionModeBenchmark {
+
+    private static final long                  SYNC_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+    @Param({ "children", "tree" })
+    private String                             subscribeMode;
+
+    @Param({ "10000" })
+    private int                                services;
+
+    @Param({ "2" })
+    private int                                instances;
+
+    private TestingServer                      server;
+
+    private AnnotationConfigApplicationContext context;
+
+    private RegistryDataCache                  cache;
+
+    @Setup(Level.Trial)
+    public void setUpServer() throws Exception {
+        server = new TestingServer(true);
+        SyntheticRegistry registry = new SyntheticRegistry(services, instances, services / 100);
+        CuratorFramework client = CuratorFrameworkFactory.newClient(
+            server.getConnectString(), new RetryOneTime(1000));
+        client.start();
+        try {
+            String root = SofaDashboardConstants.SEPARATOR + SofaDashboardConstants.DEFAULT_GROUP;
+            for (int i = 0; i < services; i++) {
+                String servicePath = root + SofaDashboardConstants.SEPARATOR
+                                     + registry.serviceName(i);
+                for (int j = 0; j < instances; j++) {
+                    client.create().creatingParentsIfNeeded()
+                        .forPath(servicePath + "/providers/" + registry.providerNode(i, j));
+                    client.create().creatingParentsIfNeeded()
+                        .forPath(servicePath + "/consumers/" + registry.consumerNode(i, j));
+                }
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownServer() throws Exception {
+        server.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpContext() {
+        context = new AnnotationConfigApplicationContext();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("com.alipay.sofa.dashboard.registry.zookeeper.subscribeMode",
+            subscribeMode);
+        context.getEnvironment().getPropertySources()
+            .addFirst(new MapPropertySource("benchmark", properties));
+        context.register(SubscriptionConfiguration.class);
+        context.refresh();
+        cache = context.getBean(RegistryDataCache.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownContext() throws Exception {
+        System.gc();
+        long usedHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.printf("%n[%s] watches: %s, used heap after sync: %d MB%n", subscribeMode,
+            watchSummary(), usedHeap >> 20);
+
+        ZookeeperAdminRegistry adminRegistry = context.getBean(ZookeeperAdminRegistry.class);
+        CuratorFramework zkClient = (CuratorFramework) ReflectionTestUtils.getField(
+            adminRegistry, "zkClient");
+        context.close();
+        if (zkClient != null) {
+            zkClient.close();
+        }
+    }
+
+    @Benchmark
+    public int initialSync() throws Exception {
+        ZookeeperAdminRegistry adminRegistry = context.getBean(ZookeeperAdminRegistry.class);
+        adminRegistry.start(new RegistryConfig().setAddress(server.getConnectString()));
+        adminRegistry.subscribe(SofaDashboardConstants.DEFAULT_GROUP, null);
+
+        int expected = services * instances;
+        long deadline = System.currentTimeMillis() + SYNC_TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            if (cache.fetchService().size() == services && countInstances() == expected * 2) {
+                return expected;
+            }
+            Thread.sleep(20);
+        }
+        throw new IllegalStateException("Initial sync did not finish in " + SYNC_TIMEOUT + "ms");
+    }
+
+    private int countInstances() {
+        int count = 0;
+        for (String serviceName : cache.fetchService().keySet()) {
+            count += cache.fetchProvidersByService(serviceName).size();
+            count += cache.fetchConsumersByService(serviceName).size();
+        }
+        return count;
+    }
+
+    /**
+     * zookeeper 四字命令 wchs 的输出，包含连接数和 watch 总数
+     */
+    private String watchSummary() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("wchs".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                socket.getInputStream(), StandardCharsets.US_ASCII));
+            StringBuilder summary = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                summary.append(line.trim()).append(' ');
+            }
+            return summary.toString().trim();
+        }
+    }
+
+    /**
+     * 只装配 zookeeper 订阅相关的组件
+     */
+    @Configuration
+    @ComponentScan(basePackageClasses = RegistryEventBatcher.class)
+    static class SubscriptionConfiguration {
+
+        @Bean
+        public RegistryDataCache registryDataCache() {
+            return new ZookeeperRegistryDataCacheImpl();
+        }
+
+        @Bean
+        public ZookeeperAdminRegistry zookeeperAdminRegistry() {
+            return new ZookeeperAdminRegistry();
+        }
+    }
+}
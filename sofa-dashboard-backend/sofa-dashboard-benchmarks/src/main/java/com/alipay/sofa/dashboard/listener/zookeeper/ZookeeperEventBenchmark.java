@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.benchmark.SyntheticRegistry;
+import com.alipay.sofa.dashboard.cache.ZookeeperRegistryDataCacheImpl;
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.EventType;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.NodeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * zookeeper 节点事件处理的基准测试
+ * <p>
+ * 包括节点名解析（单次扫描与 ProviderHelper 两种方式）和 {@link RegistryEventBatcher} 合并写入缓存。
+ * batchWindow 为 0 时每个事件直接写缓存，否则同一批事件在 flush 时合并写入。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZookeeperEventBenchmark {
+
+    private static final int     NODE_SAMPLES = 1024;
+
+    @Param({ "10000" })
+    private int                  services;
+
+    @Param({ "4" })
+    private int                  instances;
+
+    /**
+     * 一次突发事件涉及的服务数，每个服务的全部 provider 和 consumer 同时变化
+     */
+    @Param({ "100" })
+    private int                  burst;
+
+    @Param({ "0", "60000" })
+    private long                 batchWindow;
+
+    private SyntheticRegistry    registry;
+
+    private String[]             serviceNames;
+
+    private String[]             providerNodes;
+
+    private String[]             consumerNodes;
+
+    private RegistryEventBatcher batcher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new SyntheticRegistry(services, instances, services / 100);
+        serviceNames = new String[NODE_SAMPLES];
+        providerNodes = new String[NODE_SAMPLES];
+        consumerNodes = new String[NODE_SAMPLES];
+        for (int i = 0; i < NODE_SAMPLES; i++) {
+            int serviceIndex = i % services;
+            int instanceIndex = i % instances;
+            serviceNames[i] = registry.serviceName(serviceIndex);
+            providerNodes[i] = registry.providerNode(serviceIndex, instanceIndex);
+            consumerNodes[i] = registry.consumerNode(serviceIndex, instanceIndex);
+        }
+
+        ZookeeperRegistryDataCacheImpl cache = new ZookeeperRegistryDataCacheImpl();
+        registry.populate(cache);
+        batcher = new RegistryEventBatcher();
+        batcher.setBatchWindow(batchWindow);
+        batcher.setRegistryDataCache(cache);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Benchmark
+    public RpcProvider convertProvider() {
+        int i = randomSample();
+        return ZookeeperNodeConverter.convert2Provider(serviceNames[i], providerNodes[i]);
+    }
+
+    @Benchmark
+    public RpcProvider convertProviderByProviderInfo() {
+        int i = randomSample();
+        return ZookeeperNodeConverter.convert2ProviderByProviderInfo(serviceNames[i],
+            providerNodes[i]);
+    }
+
+    @Benchmark
+    public RpcConsumer convertConsumer() {
+        int i = randomSample();
+        return ZookeeperNodeConverter.convert2Consumer(serviceNames[i], consumerNodes[i]);
+    }
+
+    @Benchmark
+    public RpcConsumer convertConsumerByProviderInfo() {
+        int i = randomSample();
+        return ZookeeperNodeConverter.convert2ConsumerByProviderInfo(serviceNames[i],
+            consumerNodes[i]);
+    }
+
+    /**
+     * 一批服务的实例先全部下线再全部上线，对应一次大规模发布
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void restartBurst() {
+        int first = ThreadLocalRandom.current().nextInt(services);
+        for (EventType eventType : new EventType[] { EventType.REMOVE, EventType.ADD }) {
+            for (int n = 0; n < burst; n++) {
+                int serviceIndex = (first + n) % services;
+                String serviceName = registry.serviceName(serviceIndex);
+                for (int i = 0; i < instances; i++) {
+                    batcher.submit(NodeType.PROVIDER, eventType, serviceName,
+                        registry.providerNode(serviceIndex, i));
+                    batcher.submit(NodeType.CONSUMER, eventType, serviceName,
+                        registry.consumerNode(serviceIndex, i));
+                }
+            }
+        }
+        batcher.flush();
+    }
+
+    private static int randomSample() {
+        return ThreadLocalRandom.current().nextInt(NODE_SAMPLES);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.utils;
+
+import com.alipay.sofa.dashboard.benchmark.SyntheticRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务名检索的基准测试，对比 n-gram 索引和逐个扫描
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NameSearchIndexBenchmark {
+
+    @Param({ "50000" })
+    private int             names;
+
+    /**
+     * 每次检索最多返回的条数
+     */
+    @Param({ "20" })
+    private int             limit;
+
+    private List<String>    serviceNames;
+
+    private NameSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serviceNames = new SyntheticRegistry(names, 1, 1).serviceNames();
+        index = new NameSearchIndex();
+        index.sync(serviceNames);
+    }
+
+    /**
+     * 检索词只命中一个服务
+     */
+    @Benchmark
+    public List<String> searchSelective() {
+        return index.search(selectiveKeyword(), limit);
+    }
+
+    @Benchmark
+    public List<String> scanSelective() {
+        return NameSearchIndex.scan(serviceNames, selectiveKeyword(), limit);
+    }
+
+    /**
+     * 检索词命中全部服务，只取前 limit 条
+     */
+    @Benchmark
+    public List<String> searchBroad() {
+        return index.search("Sample", limit);
+    }
+
+    @Benchmark
+    public List<String> scanBroad() {
+        return NameSearchIndex.scan(serviceNames, "Sample", limit);
+    }
+
+    private String selectiveKeyword() {
+        return "SampleService" + ThreadLocalRandom.current().nextInt(names) + ":";
+    }
+}
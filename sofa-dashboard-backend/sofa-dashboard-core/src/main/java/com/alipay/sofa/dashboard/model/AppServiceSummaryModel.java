@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.model;
+
+/**
+ * 应用维度的服务统计
+ */
+public class AppServiceSummaryModel {
+
+    private String appName;
+
+    /**
+     * 应用提供的服务数
+     */
+    private int    providerNum;
+
+    /**
+     * 应用消费的服务数
+     */
+    private int    consumerNum;
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public void setAppName(String appName) {
+        this.appName = appName;
+    }
+
+    public int getProviderNum() {
+        return providerNum;
+    }
+
+    public void setProviderNum(int providerNum) {
+        this.providerNum = providerNum;
+    }
+
+    public int getConsumerNum() {
+        return consumerNum;
+    }
+
+    public void setConsumerNum(int consumerNum) {
+        this.consumerNum = consumerNum;
+    }
+}
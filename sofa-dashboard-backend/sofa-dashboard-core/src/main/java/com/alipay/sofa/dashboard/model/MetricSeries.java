@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 降采样后的时间序列，按列存储
+ * <p>
+ * timestamps 为各个桶的起始时间，只包含有样本的桶；fields 中每个字段的 min/max/avg 与 timestamps 一一对应，
+ * 字段在某个桶内没有样本时对应位置为 null
+ */
+public class MetricSeries implements Serializable {
+
+    private static final long        serialVersionUID = 0x12;
+
+    /**
+     * 数据名称
+     */
+    private String                   name;
+
+    /**
+     * 查询范围的起始时间(ms)，已按 resolution 对齐
+     */
+    private long                     start;
+
+    /**
+     * 查询范围的结束时间(ms)
+     */
+    private long                     end;
+
+    /**
+     * 每个桶的时间跨度(ms)
+     */
+    private long                     resolution;
+
+    /**
+     * 各个桶的起始时间
+     */
+    private List<Long>               timestamps       = new ArrayList<>();
+
+    /**
+     * 字段路径(如 heap.used)到统计值的映射
+     */
+    private Map<String, FieldSeries> fields           = new LinkedHashMap<>();
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public void setStart(long start) {
+        this.start = start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public void setEnd(long end) {
+        this.end = end;
+    }
+
+    public long getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(long resolution) {
+        this.resolution = resolution;
+    }
+
+    public List<Long> getTimestamps() {
+        return timestamps;
+    }
+
+    public void setTimestamps(List<Long> timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    public Map<String, FieldSeries> getFields() {
+        return fields;
+    }
+
+    public void setFields(Map<String, FieldSeries> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * 单个字段在每个桶内的统计值
+     */
+    public static class FieldSeries implements Serializable {
+
+        private static final long serialVersionUID = 0x13;
+
+        private List<Double>      min              = new ArrayList<>();
+
+        private List<Double>      max              = new ArrayList<>();
+
+        private List<Double>      avg              = new ArrayList<>();
+
+        public List<Double> getMin() {
+            return min;
+        }
+
+        public void setMin(List<Double> min) {
+            this.min = min;
+        }
+
+        public List<Double> getMax() {
+            return max;
+        }
+
+        public void setMax(List<Double> max) {
+            this.max = max;
+        }
+
+        public List<Double> getAvg() {
+            return avg;
+        }
+
+        public void setAvg(List<Double> avg) {
+            this.avg = avg;
+        }
+    }
+}
@@ -28,10 +28,15 @@ public class StampedValueEntity<T extends Serializable> implements Serializable
     private static final int serialVersionUID = 0x11;
 
     /**
-     * 获取时间戳
+     * 格式化后的时间，epoch millis 模式下为 null
      */
     private String           timestamp;
 
+    /**
+     * 毫秒时间戳，由前端自行格式化
+     */
+    private long             epochMillis;
+
     /**
      * 数据名称
      */
@@ -50,6 +55,14 @@ public class StampedValueEntity<T extends Serializable> implements Serializable
         this.timestamp = timestamp;
     }
 
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    public void setEpochMillis(long epochMillis) {
+        this.epochMillis = epochMillis;
+    }
+
     public String getName() {
         return name;
     }
@@ -47,6 +47,23 @@ public interface AppService {
     @NonNull
     List<ApplicationInfo> getStatisticsByKeyword(@Nullable String keyword);
 
+    /**
+     * 获取包含关键词的应用统计信息，完全相等的排在最前，其次是前缀匹配，最后是其余包含关键词的应用
+     *
+     * @param keyword 关键词，如果为空，则返回全部统计信息
+     * @param limit   最多返回的条数
+     * @return 满足条件应用统计信息，如果没有实例则返回空列表
+     */
+    @NonNull
+    List<ApplicationInfo> getStatisticsByKeyword(@Nullable String keyword, int limit);
+
+    /**
+     * 应用实例数据的版本号，数据变化后递增，用于判断数据是否变化
+     *
+     * @return 版本号
+     */
+    long fetchVersion();
+
     /**
      * 获取全部应用实例信息
      *
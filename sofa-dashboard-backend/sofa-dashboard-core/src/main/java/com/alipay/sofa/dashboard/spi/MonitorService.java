@@ -24,11 +24,14 @@ import com.alipay.sofa.dashboard.client.model.logger.LoggersDescriptor;
 import com.alipay.sofa.dashboard.client.model.mappings.MappingsDescriptor;
 import com.alipay.sofa.dashboard.client.model.memory.MemoryDescriptor;
 import com.alipay.sofa.dashboard.client.model.thread.ThreadSummaryDescriptor;
+import com.alipay.sofa.dashboard.model.MetricSeries;
 import com.alipay.sofa.dashboard.model.StampedValueEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 应用实例统计面板信息
@@ -55,6 +58,15 @@ public interface MonitorService {
     @Nullable
     HealthDescriptor fetchHealth(@NonNull HostAndPort hostAndPort);
 
+    /**
+     * 批量获取多个应用实例的健康度信息.
+     *
+     * @param hostAndPorts 实例地址
+     * @return 实例地址到健康度信息的映射，按传入顺序排列，无数据或查询失败的实例不在结果中
+     */
+    @NonNull
+    Map<HostAndPort, HealthDescriptor> fetchHealth(@NonNull Collection<HostAndPort> hostAndPorts);
+
     /**
      * 获取应用实例描述.
      *
@@ -64,6 +76,15 @@ public interface MonitorService {
     @Nullable
     InfoDescriptor fetchInfo(@NonNull HostAndPort hostAndPort);
 
+    /**
+     * 批量获取多个应用实例描述.
+     *
+     * @param hostAndPorts 实例地址
+     * @return 实例地址到实例描述的映射，按传入顺序排列，无数据或查询失败的实例不在结果中
+     */
+    @NonNull
+    Map<HostAndPort, InfoDescriptor> fetchInfo(@NonNull Collection<HostAndPort> hostAndPorts);
+
     /**
      * 获取应用的logger信息.
      *
@@ -91,6 +112,17 @@ public interface MonitorService {
     @NonNull
     List<StampedValueEntity<ThreadSummaryDescriptor>> fetchThreadInfo(@NonNull HostAndPort hostAndPort);
 
+    /**
+     * 获取过去一段时间的线程概况统计信息(按照时间升序排序).
+     *
+     * @param hostAndPort     实例地址
+     * @param formatTimestamp 是否返回格式化的时间，为 false 时只返回毫秒时间戳
+     * @return 线程概况统计信息, 如果数据为空则返回空列表
+     */
+    @NonNull
+    List<StampedValueEntity<ThreadSummaryDescriptor>> fetchThreadInfo(@NonNull HostAndPort hostAndPort,
+                                                                      boolean formatTimestamp);
+
     /**
      * 获取过去一段时间的内存概况统计信息(按照时间升序排序).
      *
@@ -100,4 +132,45 @@ public interface MonitorService {
     @NonNull
     List<StampedValueEntity<MemoryDescriptor>> fetchMemoryInfo(@NonNull HostAndPort hostAndPort);
 
+    /**
+     * 获取过去一段时间的内存概况统计信息(按照时间升序排序).
+     *
+     * @param hostAndPort     实例地址
+     * @param formatTimestamp 是否返回格式化的时间，为 false 时只返回毫秒时间戳
+     * @return 内存概况统计信息，如果数据为空则返回空列表
+     */
+    @NonNull
+    List<StampedValueEntity<MemoryDescriptor>> fetchMemoryInfo(@NonNull HostAndPort hostAndPort,
+                                                               boolean formatTimestamp);
+
+    /**
+     * 获取最近一段时间内存概况的降采样序列，每个数值字段按 resolution 分桶统计 min/max/avg.
+     *
+     * @param hostAndPort 实例地址
+     * @param range       截止到当前的时间范围(ms)，超过上限时按上限处理
+     * @param resolution  每个桶的时间跨度(ms)，桶数超过上限时自动放大
+     * @return 降采样后的序列，如果数据为空则返回没有桶的序列
+     */
+    @NonNull
+    MetricSeries fetchMemorySeries(@NonNull HostAndPort hostAndPort, long range, long resolution);
+
+    /**
+     * 获取最近一段时间线程概况的降采样序列，每个数值字段按 resolution 分桶统计 min/max/avg.
+     *
+     * @param hostAndPort 实例地址
+     * @param range       截止到当前的时间范围(ms)，超过上限时按上限处理
+     * @param resolution  每个桶的时间跨度(ms)，桶数超过上限时自动放大
+     * @return 降采样后的序列，如果数据为空则返回没有桶的序列
+     */
+    @NonNull
+    MetricSeries fetchThreadSeries(@NonNull HostAndPort hostAndPort, long range, long resolution);
+
+    /**
+     * 获取本地缓存的统计信息，包括反序列化结果缓存的命中、未命中、淘汰次数和本地指标缓冲区的占用.
+     *
+     * @return 统计项名称到数值的映射
+     */
+    @NonNull
+    Map<String, Number> fetchCacheStats();
+
 }
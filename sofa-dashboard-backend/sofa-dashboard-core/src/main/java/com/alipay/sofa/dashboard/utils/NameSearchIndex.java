@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 名称的子串检索索引
+ * <p>
+ * 按 3-gram 建立倒排，关键词不短于 3 个字符时只校验包含关键词最少的那个 gram 的名称，更短的关键词退化为有序扫描。
+ * 结果按匹配类型排序：完全相等、前缀匹配、其余子串匹配，同一类型内按名称字典序，与 {@link String#contains}
+ * 一样区分大小写。
+ * <p>
+ * 写操作串行执行，读操作不加锁，检索期间并发的增删可能被看到也可能看不到。
+ */
+public class NameSearchIndex {
+
+    private static final int               GRAM_LENGTH = 3;
+
+    private final NavigableSet<String>     names       = new ConcurrentSkipListSet<>();
+
+    private final Map<String, Set<String>> grams       = new ConcurrentHashMap<>();
+
+    /**
+     * 添加名称
+     *
+     * @param name 名称
+     * @return 名称之前不存在时返回 true
+     */
+    public synchronized boolean add(String name) {
+        if (name == null || !names.add(name)) {
+            return false;
+        }
+        for (String gram : gramsOf(name)) {
+            grams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(name);
+        }
+        return true;
+    }
+
+    /**
+     * 移除名称
+     *
+     * @param name 名称
+     * @return 名称存在时返回 true
+     */
+    public synchronized boolean remove(String name) {
+        if (name == null || !names.remove(name)) {
+            return false;
+        }
+        for (String gram : gramsOf(name)) {
+            grams.computeIfPresent(gram, (key, posting) -> {
+                posting.remove(name);
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+        return true;
+    }
+
+    /**
+     * 将索引中的名称调整为与给定集合一致，只处理差异部分
+     *
+     * @param latest 最新的全部名称
+     */
+    public synchronized void sync(Collection<String> latest) {
+        Set<String> expected = latest instanceof Set ? (Set<String>) latest : new HashSet<>(latest);
+        for (String name : names) {
+            if (!expected.contains(name)) {
+                remove(name);
+            }
+        }
+        for (String name : expected) {
+            add(name);
+        }
+    }
+
+    public boolean contains(String name) {
+        return name != null && names.contains(name);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * 检索包含关键词的名称
+     *
+     * @param keyword 关键词，为空时按字典序返回全部名称
+     * @param limit   最多返回的条数
+     * @return 按匹配类型排序的名称
+     */
+    public List<String> search(String keyword, int limit) {
+        List<String> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        if (keyword == null || keyword.isEmpty()) {
+            for (String name : names) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(name);
+            }
+            return result;
+        }
+        if (names.contains(keyword)) {
+            result.add(keyword);
+        }
+        for (String name : names.tailSet(keyword, false)) {
+            if (result.size() >= limit || !name.startsWith(keyword)) {
+                break;
+            }
+            result.add(name);
+        }
+        if (result.size() >= limit) {
+            return result;
+        }
+        if (keyword.length() < GRAM_LENGTH) {
+            // 短关键词没有可用的 gram，有序扫描到够数即可
+            for (String name : names) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (isInnerMatch(name, keyword)) {
+                    result.add(name);
+                }
+            }
+            return result;
+        }
+        List<String> matches = new ArrayList<>();
+        for (String name : candidates(keyword)) {
+            if (isInnerMatch(name, keyword)) {
+                matches.add(name);
+            }
+        }
+        Collections.sort(matches);
+        for (String name : matches) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(name);
+        }
+        return result;
+    }
+
+    /**
+     * 不使用索引，逐个比较名称，排序规则与 {@link #search} 相同
+     *
+     * @param names   全部名称
+     * @param keyword 关键词，为空时返回全部名称
+     * @param limit   最多返回的条数
+     * @return 按匹配类型排序的名称
+     */
+    public static List<String> scan(Collection<String> names, String keyword, int limit) {
+        List<String> exact = new ArrayList<>();
+        List<String> prefix = new ArrayList<>();
+        List<String> inner = new ArrayList<>();
+        for (String name : names) {
+            if (name == null) {
+                continue;
+            }
+            if (keyword == null || keyword.isEmpty() || name.startsWith(keyword)) {
+                if (name.equals(keyword)) {
+                    exact.add(name);
+                } else {
+                    prefix.add(name);
+                }
+            } else if (name.contains(keyword)) {
+                inner.add(name);
+            }
+        }
+        Collections.sort(prefix);
+        Collections.sort(inner);
+        List<String> result = new ArrayList<>(exact);
+        result.addAll(prefix);
+        result.addAll(inner);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, Math.max(limit, 0)))
+            : result;
+    }
+
+    private Collection<String> candidates(String keyword) {
+        Set<String> smallest = null;
+        for (String gram : gramsOf(keyword)) {
+            Set<String> posting = grams.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest == null ? Collections.emptySet() : smallest;
+    }
+
+    private static boolean isInnerMatch(String name, String keyword) {
+        return !name.startsWith(keyword) && name.contains(keyword);
+    }
+
+    private static Set<String> gramsOf(String name) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+            result.add(name.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+}
@@ -16,7 +16,6 @@
  */
 package com.alipay.sofa.dashboard.utils;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**
@@ -30,7 +29,6 @@ public class SofaDashboardUtil {
     }
 
     public static String formatDate(Date date) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        return dateFormat.format(date);
+        return TimestampFormatter.format(date.getTime());
     }
 }
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 线程安全的时间格式化，格式为 yyyy-MM-dd HH:mm:ss
+ * <p>
+ * 共享一个不可变的 {@link DateTimeFormatter}，并按秒缓存最近格式化过的字符串：时间序列中的采样点集中在最近几分钟，
+ * 同一秒内的时间戳只格式化一次。缓存是按秒取模的定长数组，槽位中的对象不可变，并发读写无需加锁。
+ */
+public final class TimestampFormatter {
+
+    public static final String             PATTERN    = "yyyy-MM-dd HH:mm:ss";
+
+    private static final DateTimeFormatter FORMATTER  = DateTimeFormatter.ofPattern(PATTERN)
+                                                          .withZone(ZoneId.systemDefault());
+
+    /**
+     * 缓存槽位数，需为 2 的幂，覆盖约 17 分钟的采样
+     */
+    private static final int               CACHE_SIZE = 1024;
+
+    private static final Entry[]           CACHE      = new Entry[CACHE_SIZE];
+
+    private TimestampFormatter() {
+    }
+
+    /**
+     * 格式化毫秒时间戳，精确到秒
+     *
+     * @param epochMillis 毫秒时间戳
+     * @return 格式化后的时间
+     */
+    public static String format(long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000L);
+        int slot = (int) (epochSecond & (CACHE_SIZE - 1));
+        Entry entry = CACHE[slot];
+        if (entry != null && entry.epochSecond == epochSecond) {
+            return entry.text;
+        }
+        String text = FORMATTER.format(Instant.ofEpochSecond(epochSecond));
+        CACHE[slot] = new Entry(epochSecond, text);
+        return text;
+    }
+
+    private static final class Entry {
+
+        private final long   epochSecond;
+
+        private final String text;
+
+        private Entry(long epochSecond, String text) {
+            this.epochSecond = epochSecond;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.cache;
+
+import com.alipay.sofa.dashboard.model.AppServiceSummaryModel;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 应用到服务的反向索引
+ * <p>
+ * 同一个应用通常会有多个实例注册到同一个服务上，这里按实例数做引用计数，
+ * 只有该应用在服务上的最后一个实例下线时，才会把服务从应用的索引中移除。
+ */
+public class AppServiceIndex {
+
+    /**
+     * appName -> (serviceName -> 实例数)
+     */
+    private final Map<String, Map<String, Integer>> index = new ConcurrentHashMap<>();
+
+    /**
+     * 记录应用的一个实例注册到了服务上
+     *
+     * @param appName     应用名
+     * @param serviceName 服务名
+     */
+    public void add(String appName, String serviceName) {
+        if (StringUtils.isBlank(appName) || StringUtils.isBlank(serviceName)) {
+            return;
+        }
+        index.compute(appName, (app, services) -> {
+            Map<String, Integer> current = services == null ? new ConcurrentHashMap<>() : services;
+            current.merge(serviceName, 1, Integer::sum);
+            return current;
+        });
+    }
+
+    /**
+     * 记录应用的一个实例从服务上下线
+     *
+     * @param appName     应用名
+     * @param serviceName 服务名
+     */
+    public void remove(String appName, String serviceName) {
+        if (StringUtils.isBlank(appName) || StringUtils.isBlank(serviceName)) {
+            return;
+        }
+        index.computeIfPresent(appName, (app, services) -> {
+            services.computeIfPresent(serviceName, (name, count) -> count > 1 ? count - 1 : null);
+            return services.isEmpty() ? null : services;
+        });
+    }
+
+    /**
+     * 获取应用关联的服务
+     *
+     * @param appName 应用名
+     * @return 服务名集合的拷贝
+     */
+    public Set<String> fetchServices(String appName) {
+        Map<String, Integer> services = StringUtils.isBlank(appName) ? null : index.get(appName);
+        return services == null ? new HashSet<>() : new HashSet<>(services.keySet());
+    }
+
+    /**
+     * 获取全部应用名
+     *
+     * @return 应用名集合的拷贝
+     */
+    public Set<String> fetchApps() {
+        return new HashSet<>(index.keySet());
+    }
+
+    /**
+     * 获取应用关联的服务数
+     *
+     * @param appName 应用名
+     * @return 服务数
+     */
+    public int fetchServiceCount(String appName) {
+        Map<String, Integer> services = StringUtils.isBlank(appName) ? null : index.get(appName);
+        return services == null ? 0 : services.size();
+    }
+
+    /**
+     * 汇总每个应用提供和消费的服务数，每个应用只出现一次
+     *
+     * @param providerIndex provider 的索引
+     * @param consumerIndex consumer 的索引
+     * @return 应用统计列表
+     */
+    public static List<AppServiceSummaryModel> summarize(AppServiceIndex providerIndex,
+                                                         AppServiceIndex consumerIndex) {
+        Set<String> appNames = providerIndex.fetchApps();
+        appNames.addAll(consumerIndex.fetchApps());
+        List<AppServiceSummaryModel> result = new ArrayList<>(appNames.size());
+        for (String appName : appNames) {
+            AppServiceSummaryModel model = new AppServiceSummaryModel();
+            model.setAppName(appName);
+            model.setProviderNum(providerIndex.fetchServiceCount(appName));
+            model.setConsumerNum(consumerIndex.fetchServiceCount(appName));
+            result.add(model);
+        }
+        return result;
+    }
+}
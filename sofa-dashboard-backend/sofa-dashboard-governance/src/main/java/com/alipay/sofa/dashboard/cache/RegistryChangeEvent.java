@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.cache;
+
+import java.util.List;
+
+/**
+ * 注册中心数据的一次变更
+ * <p>
+ * 每次变更都会分配一个递增的版本号，客户端可以用它判断是否漏掉了变更。{@link Category#RESYNC}
+ * 表示数据被整体替换，客户端需要重新拉取全量数据。
+ */
+public class RegistryChangeEvent {
+
+    public enum Category {
+        SERVICE, PROVIDER, CONSUMER, RESYNC
+    }
+
+    public enum Action {
+        ADD, REMOVE, UPDATE
+    }
+
+    private final long     version;
+    private final Category category;
+    private final Action   action;
+    private final String   serviceName;
+    private final List<?>  data;
+
+    public RegistryChangeEvent(long version, Category category, Action action,
+                               String serviceName, List<?> data) {
+        this.version = version;
+        this.category = category;
+        this.action = action;
+        this.serviceName = serviceName;
+        this.data = data;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    /**
+     * 变更涉及的服务、provider 或 consumer
+     *
+     * @return 数据列表，RESYNC 时为 null
+     */
+    public List<?> getData() {
+        return data;
+    }
+}
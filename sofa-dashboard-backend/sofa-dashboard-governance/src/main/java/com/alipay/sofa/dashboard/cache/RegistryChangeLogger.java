@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.cache;
+
+import com.alipay.sofa.dashboard.cache.RegistryChangeEvent.Action;
+import com.alipay.sofa.dashboard.cache.RegistryChangeEvent.Category;
+import com.alipay.sofa.dashboard.domain.RpcService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 注册中心数据变更日志
+ * <p>
+ * 缓存不再逐条以 INFO 打印变更内容，改为在这里按服务汇总各类变更的实例数，周期性地输出一次摘要，
+ * 重连或大规模发布时日志量不再随事件数增长。可通过配置切换模式：
+ * <ul>
+ * <li>summary：只输出周期摘要，默认模式</li>
+ * <li>detail：每个事件输出一行不含实例内容的结构化日志，每个周期有条数上限，超出部分计入摘要</li>
+ * <li>off：不记录</li>
+ * </ul>
+ * 日志使用本类的 logger，在 logback-spring.xml 中通过异步 appender 输出到单独的文件。
+ */
+@Component
+public class RegistryChangeLogger implements RegistryChangeListener {
+
+    private static final Logger               LOGGER         = LoggerFactory
+                                                                   .getLogger(RegistryChangeLogger.class);
+
+    public static final String                MODE_SUMMARY   = "summary";
+
+    public static final String                MODE_DETAIL    = "detail";
+
+    public static final String                MODE_OFF       = "off";
+
+    private static final int                  ACTION_COUNT   = Action.values().length;
+
+    private static final int                  COUNTER_LENGTH = Category.values().length
+                                                               * ACTION_COUNT;
+
+    @Value("${com.alipay.sofa.dashboard.registry.changeLog.mode:summary}")
+    private String                            mode;
+
+    /**
+     * 摘要输出间隔，单位毫秒
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.changeLog.interval:60000}")
+    private long                              interval;
+
+    /**
+     * detail 模式下每个周期最多输出的事件条数
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.changeLog.detailLimit:100}")
+    private int                               detailLimit;
+
+    /**
+     * 每次摘要中最多列出的服务数，按变更实例数从多到少
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.changeLog.topServices:20}")
+    private int                               topServices;
+
+    @Autowired
+    private RegistryDataCache                 registryDataCache;
+
+    private ScheduledThreadPoolExecutor       executor;
+
+    /**
+     * 当前周期内每个服务的计数，下标为 category * ACTION_COUNT + action，由 this 保护
+     */
+    private Map<String, long[]>               counters       = new HashMap<>();
+
+    private long                              events;
+
+    private long                              resyncs;
+
+    private int                               detailLogged;
+
+    private long                              suppressed;
+
+    @PostConstruct
+    public void start() {
+        if (MODE_OFF.equalsIgnoreCase(mode)) {
+            return;
+        }
+        registryDataCache.addChangeListener(this);
+        executor = new ScheduledThreadPoolExecutor(1, RegistryChangeLogger::newThread);
+        executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        registryDataCache.removeChangeListener(this);
+        executor.shutdownNow();
+        flush();
+    }
+
+    @Override
+    public void onChange(RegistryChangeEvent event) {
+        boolean logDetail = false;
+        synchronized (this) {
+            events++;
+            if (event.getCategory() == Category.RESYNC) {
+                resyncs++;
+            } else if (event.getData() == null) {
+                count(event.getServiceName(), event, 0);
+            } else if (event.getServiceName() == null) {
+                // 服务的增删一次可能包含多个服务
+                for (Object item : event.getData()) {
+                    if (item instanceof RpcService) {
+                        count(((RpcService) item).getServiceName(), event, 1);
+                    }
+                }
+            } else {
+                count(event.getServiceName(), event, event.getData().size());
+            }
+            if (MODE_DETAIL.equalsIgnoreCase(mode)) {
+                logDetail = detailLogged < detailLimit;
+                if (logDetail) {
+                    detailLogged++;
+                } else {
+                    suppressed++;
+                }
+            }
+        }
+        if (logDetail && LOGGER.isInfoEnabled()) {
+            LOGGER.info("registry change version={} category={} action={} service={} size={}",
+                event.getVersion(), event.getCategory(), event.getAction(),
+                event.getServiceName(), event.getData() == null ? 0 : event.getData().size());
+        }
+    }
+
+    /**
+     * 输出并清空当前周期的摘要
+     */
+    void flush() {
+        try {
+            if (LOGGER.isInfoEnabled()) {
+                for (String line : drainSummary()) {
+                    LOGGER.info(line);
+                }
+            } else {
+                drainSummary();
+            }
+        } catch (Throwable e) {
+            LOGGER.error("Failed to flush registry change summary.", e);
+        }
+    }
+
+    /**
+     * 取出当前周期的摘要并重新开始计数
+     *
+     * @return 摘要，第一行为总数，其后每个服务一行；周期内没有变更时为空
+     */
+    List<String> drainSummary() {
+        Map<String, long[]> current;
+        long currentEvents;
+        long currentResyncs;
+        long currentSuppressed;
+        synchronized (this) {
+            if (events == 0) {
+                return new ArrayList<>();
+            }
+            current = counters;
+            currentEvents = events;
+            currentResyncs = resyncs;
+            currentSuppressed = suppressed;
+            counters = new HashMap<>();
+            events = 0;
+            resyncs = 0;
+            detailLogged = 0;
+            suppressed = 0;
+        }
+
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(current.entrySet());
+        entries.sort((a, b) -> Long.compare(total(b.getValue()), total(a.getValue())));
+        List<String> lines = new ArrayList<>();
+        lines.add("registry change summary events=" + currentEvents + " services="
+                  + current.size() + " resyncs=" + currentResyncs + " suppressed="
+                  + currentSuppressed);
+        for (int i = 0; i < entries.size() && i < topServices; i++) {
+            lines.add(formatService(entries.get(i).getKey(), entries.get(i).getValue()));
+        }
+        if (entries.size() > topServices) {
+            lines.add("registry change summary omitted services=" + (entries.size() - topServices));
+        }
+        return lines;
+    }
+
+    void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    void setDetailLimit(int detailLimit) {
+        this.detailLimit = detailLimit;
+    }
+
+    void setTopServices(int topServices) {
+        this.topServices = topServices;
+    }
+
+    void setRegistryDataCache(RegistryDataCache registryDataCache) {
+        this.registryDataCache = registryDataCache;
+    }
+
+    private void count(String serviceName, RegistryChangeEvent event, int size) {
+        if (serviceName == null) {
+            return;
+        }
+        long[] counter = counters.computeIfAbsent(serviceName, key -> new long[COUNTER_LENGTH]);
+        Action action = event.getAction() == null ? Action.UPDATE : event.getAction();
+        counter[event.getCategory().ordinal() * ACTION_COUNT + action.ordinal()] += size;
+    }
+
+    private static long total(long[] counter) {
+        long total = 0;
+        for (long value : counter) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * 一个服务一行，只输出非零的计数，如 service=xxx provider.add=3 consumer.remove=1
+     */
+    private static String formatService(String serviceName, long[] counter) {
+        StringBuilder sb = new StringBuilder("registry change service=").append(serviceName);
+        for (Category category : Category.values()) {
+            for (Action action : Action.values()) {
+                long value = counter[category.ordinal() * ACTION_COUNT + action.ordinal()];
+                if (value > 0) {
+                    sb.append(' ').append(category.name().toLowerCase()).append('.')
+                        .append(action.name().toLowerCase()).append('=').append(value);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "registry-change-logger");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
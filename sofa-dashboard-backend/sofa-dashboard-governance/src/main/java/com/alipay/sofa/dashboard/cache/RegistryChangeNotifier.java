@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 维护缓存的数据版本并把变更分发给监听者
+ */
+class RegistryChangeNotifier {
+
+    private static final Logger                LOGGER    = LoggerFactory
+                                                             .getLogger(RegistryChangeNotifier.class);
+
+    private final AtomicLong                   version   = new AtomicLong();
+
+    private final List<RegistryChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    void addListener(RegistryChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(RegistryChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    long fetchVersion() {
+        return version.get();
+    }
+
+    /**
+     * 递增版本号并通知监听者，没有监听者时不创建事件
+     *
+     * @param category    变更类型
+     * @param action      变更动作
+     * @param serviceName 服务名
+     * @param data        变更的数据，会被拷贝
+     */
+    void publish(RegistryChangeEvent.Category category, RegistryChangeEvent.Action action,
+                 String serviceName, List<?> data) {
+        long current = version.incrementAndGet();
+        if (listeners.isEmpty()) {
+            return;
+        }
+        RegistryChangeEvent event = new RegistryChangeEvent(current, category, action,
+            serviceName, data == null ? null : new ArrayList<>(data));
+        for (RegistryChangeListener listener : listeners) {
+            try {
+                listener.onChange(event);
+            } catch (Throwable e) {
+                LOGGER.error("Failed to notify registry change listener {}.", listener, e);
+            }
+        }
+    }
+
+    /**
+     * 数据被整体替换
+     */
+    void publishResync() {
+        publish(RegistryChangeEvent.Category.RESYNC, null, null, null);
+    }
+}
@@ -19,11 +19,16 @@ package com.alipay.sofa.dashboard.cache;
 import com.alipay.sofa.dashboard.domain.RpcConsumer;
 import com.alipay.sofa.dashboard.domain.RpcProvider;
 import com.alipay.sofa.dashboard.domain.RpcService;
+import com.alipay.sofa.dashboard.model.AppServiceSummaryModel;
+import com.alipay.sofa.dashboard.model.ServiceModel;
+import com.alipay.sofa.dashboard.utils.NameSearchIndex;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author bystander
@@ -137,4 +142,123 @@ public interface RegistryDataCache {
     default List<RpcConsumer> fetchConsumersByService(String serviceName) {
         return new ArrayList<>();
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取应用提供的服务
+     *
+     * @param appName 应用名
+     * @return 服务名集合
+     */
+    default Set<String> fetchProvidedServicesByApp(String appName) {
+        return new HashSet<>();
+    }
+
+    /**
+     * 获取应用消费的服务
+     *
+     * @param appName 应用名
+     * @return 服务名集合
+     */
+    default Set<String> fetchConsumedServicesByApp(String appName) {
+        return new HashSet<>();
+    }
+
+    /**
+     * 获取提供或消费了服务的全部应用名
+     *
+     * @return 应用名集合
+     */
+    default Set<String> fetchAppNames() {
+        return new HashSet<>();
+    }
+
+    /**
+     * 获取每个应用提供和消费的服务数
+     *
+     * @return 应用统计列表，每个应用只出现一次
+     */
+    default List<AppServiceSummaryModel> fetchAppSummaries() {
+        List<AppServiceSummaryModel> result = new ArrayList<>();
+        for (String appName : fetchAppNames()) {
+            AppServiceSummaryModel model = new AppServiceSummaryModel();
+            model.setAppName(appName);
+            model.setProviderNum(fetchProvidedServicesByApp(appName).size());
+            model.setConsumerNum(fetchConsumedServicesByApp(appName).size());
+            result.add(model);
+        }
+        return result;
+    }
+
+    /**
+     * 获取服务的汇总模型
+     *
+     * @param serviceName 服务名
+     * @return 服务模型，服务没有任何 provider 和 consumer 时返回 null
+     */
+    default ServiceModel fetchServiceModel(String serviceName) {
+        return null;
+    }
+
+    /**
+     * 按关键词检索服务名，完全相等的排在最前，其次是前缀匹配，最后是其余包含关键词的服务
+     *
+     * @param keyword 关键词，为空时返回全部服务
+     * @param limit   最多返回的条数
+     * @return 服务名列表
+     */
+    default List<String> searchServices(String keyword, int limit) {
+        return NameSearchIndex.scan(fetchService().keySet(), keyword, limit);
+    }
+
+    /**
+     * 获取全部有 provider 或 consumer 的服务的汇总模型
+     *
+     * @return 服务模型列表
+     */
+    default List<ServiceModel> fetchServiceModels() {
+        return new ArrayList<>();
+    }
+
+    /**
+     * 开始构建新一代的全量数据。返回的缓存只用于写入，写完后通过 {@link #publishGeneration} 一次性发布；
+     * 不支持分代的实现直接返回自身，写入即生效
+     *
+     * @return 用于写入新一代数据的缓存
+     */
+    default RegistryDataCache newGeneration() {
+        return this;
+    }
+
+    /**
+     * 发布 {@link #newGeneration} 构建好的数据，替换当前全部数据
+     *
+     * @param generation 新一代数据
+     */
+    default void publishGeneration(RegistryDataCache generation) {
+    }
+
+    /**
+     * 注册数据变更的监听，数据变更后在写缓存的线程上回调
+     *
+     * @param listener 监听者
+     */
+    default void addChangeListener(RegistryChangeListener listener) {
+    }
+
+    /**
+     * 移除注册数据变更的监听
+     *
+     * @param listener 监听者
+     */
+    default void removeChangeListener(RegistryChangeListener listener) {
+    }
+
+    /**
+     * 当前数据的版本号，每次变更递增
+     *
+     * @return 版本号
+     */
+    default long fetchVersion() {
+        return 0L;
+    }
+}
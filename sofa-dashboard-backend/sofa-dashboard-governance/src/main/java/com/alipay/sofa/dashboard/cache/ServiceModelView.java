@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.cache;
+
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.dashboard.model.ServiceModel;
+import com.alipay.sofa.rpc.common.utils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 按服务物化的 {@link ServiceModel}
+ * <p>
+ * provider/consumer 变化时刷新对应服务的模型，服务列表查询只需读取。每次刷新都生成新的模型对象，
+ * 已经返回给调用方的模型不会被修改。没有任何 provider 和 consumer 的服务不生成模型，与列表页不展示这类服务保持一致。
+ */
+class ServiceModelView {
+
+    private final Map<String, ServiceModel> models = new ConcurrentHashMap<>();
+
+    /**
+     * 重新计算服务的模型。数据在同一服务的锁内读取，并发刷新时最后一次刷新一定能看到之前全部的写入
+     *
+     * @param serviceName 服务名
+     * @param providers   读取当前 provider，没有 providers 数据时返回 null
+     * @param consumers   读取当前 consumer，没有 consumers 数据时返回 null
+     */
+    void refresh(String serviceName, Supplier<Collection<RpcProvider>> providers,
+                 Supplier<Collection<RpcConsumer>> consumers) {
+        models.compute(serviceName,
+            (key, previous) -> build(serviceName, providers.get(), consumers.get()));
+    }
+
+    void remove(String serviceName) {
+        models.remove(serviceName);
+    }
+
+    ServiceModel get(String serviceName) {
+        return models.get(serviceName);
+    }
+
+    List<ServiceModel> values() {
+        return new ArrayList<>(models.values());
+    }
+
+    private static ServiceModel build(String serviceName, Collection<RpcProvider> providers,
+                                      Collection<RpcConsumer> consumers) {
+        int providerNum = providers == null ? 0 : providers.size();
+        int consumerNum = consumers == null ? 0 : consumers.size();
+        // 服务提供方和服务消费方都没有，则不展示
+        if (providerNum == 0 && consumerNum == 0) {
+            return null;
+        }
+        ServiceModel model = new ServiceModel();
+        model.setServiceId(serviceName);
+        model.setServiceConsumerAppNum(String.valueOf(consumerNum));
+        model.setServiceProviderAppNum(String.valueOf(providerNum));
+        if (providers != null) {
+            Set<String> appSet = new LinkedHashSet<>();
+            for (RpcProvider provider : providers) {
+                appSet.add(provider.getAppName());
+            }
+            //接口本身没有app信息，所以从服务端取
+            model.setServiceProviderAppName(StringUtils.joinWithComma(appSet
+                .toArray(new String[0])));
+        }
+        return model;
+    }
+}
@@ -16,73 +16,335 @@
  */
 package com.alipay.sofa.dashboard.cache;
 
+import com.alipay.sofa.dashboard.cache.RegistryChangeEvent.Action;
+import com.alipay.sofa.dashboard.cache.RegistryChangeEvent.Category;
 import com.alipay.sofa.dashboard.domain.RpcConsumer;
 import com.alipay.sofa.dashboard.domain.RpcProvider;
 import com.alipay.sofa.dashboard.domain.RpcService;
+import com.alipay.sofa.dashboard.model.AppServiceSummaryModel;
+import com.alipay.sofa.dashboard.model.ServiceModel;
+import com.alipay.sofa.dashboard.utils.NameSearchIndex;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
+ * SOFARegistry 的数据缓存
+ * <p>
+ * 数据按代保存：全量同步时在 {@link #newGeneration()} 返回的新一代上写入，完成后
+ * {@link #publishGeneration} 替换引用一次性生效，读请求始终只看到某一代的完整数据，上游已删除的服务随旧一代一起丢弃。
+ * 增量同步直接写入当前代。
+ *
  * @author: guolei.sgl (guolei.sgl@antfin.com) 2019/5/23 10:52 AM
  * @since:
  **/
 public class SofaRegistryDataCacheImpl implements RegistryDataCache {
 
-    private Map<String, RpcService>        serviceMap  = new ConcurrentHashMap<>();
-    private Map<String, List<RpcConsumer>> consumerMap = new ConcurrentHashMap<>();
-    private Map<String, List<RpcProvider>> providerMap = new ConcurrentHashMap<>();
+    private final AtomicLong             generationSequence = new AtomicLong();
+
+    /**
+     * 服务名索引不随代切换重建，发布新一代时只同步差异
+     */
+    private final NameSearchIndex        serviceNameIndex   = new NameSearchIndex();
+
+    /**
+     * 变更通知和版本号同样跨代保存，发布新一代时通知一次整体替换
+     */
+    private final RegistryChangeNotifier changeNotifier     = new RegistryChangeNotifier();
+
+    private volatile Generation          current            = new Generation(
+                                                                generationSequence
+                                                                    .incrementAndGet());
 
     @Override
     public Map<String, RpcService> fetchService() {
-        return serviceMap;
+        return current.fetchService();
     }
 
     @Override
     public List<RpcProvider> fetchProvidersByService(String serviceName) {
-        List<RpcProvider> result = null;
-        if (StringUtils.isNotBlank(serviceName)) {
-            result = providerMap.get(serviceName);
-        }
-        if (result == null) {
-            result = new ArrayList<>();
-        }
-        return result;
+        return current.fetchProvidersByService(serviceName);
     }
 
     @Override
     public List<RpcConsumer> fetchConsumersByService(String serviceName) {
-        List<RpcConsumer> result = null;
-        if (StringUtils.isNotBlank(serviceName)) {
-            result = consumerMap.get(serviceName);
-        }
-        if (result == null) {
-            result = new ArrayList<>();
-        }
-        return result;
+        return current.fetchConsumersByService(serviceName);
     }
 
     @Override
     public void addProviders(String serviceName, List<RpcProvider> providerList) {
-        if (StringUtils.isNotBlank(serviceName) && providerList != null) {
-            providerMap.put(serviceName, providerList);
-        }
+        current.addProviders(serviceName, providerList);
+        changeNotifier.publish(Category.PROVIDER, Action.UPDATE, serviceName, providerList);
     }
 
     @Override
     public void addConsumers(String serviceName, List<RpcConsumer> consumerList) {
-        if (StringUtils.isNotBlank(serviceName) && consumerList != null) {
-            consumerMap.put(serviceName, consumerList);
-        }
+        current.addConsumers(serviceName, consumerList);
+        changeNotifier.publish(Category.CONSUMER, Action.UPDATE, serviceName, consumerList);
     }
 
     @Override
     public void addService(List<RpcService> rpcServices) {
+        current.addService(rpcServices);
         for (RpcService rpcService : rpcServices) {
-            serviceMap.put(rpcService.getServiceName(), rpcService);
+            serviceNameIndex.add(rpcService.getServiceName());
+        }
+        changeNotifier.publish(Category.SERVICE, Action.ADD, null, rpcServices);
+    }
+
+    @Override
+    public void removeService(List<RpcService> rpcServices) {
+        current.removeService(rpcServices);
+        for (RpcService rpcService : rpcServices) {
+            serviceNameIndex.remove(rpcService.getServiceName());
+        }
+        changeNotifier.publish(Category.SERVICE, Action.REMOVE, null, rpcServices);
+    }
+
+    @Override
+    public Set<String> fetchProvidedServicesByApp(String appName) {
+        return current.fetchProvidedServicesByApp(appName);
+    }
+
+    @Override
+    public Set<String> fetchConsumedServicesByApp(String appName) {
+        return current.fetchConsumedServicesByApp(appName);
+    }
+
+    @Override
+    public Set<String> fetchAppNames() {
+        return current.fetchAppNames();
+    }
+
+    @Override
+    public List<AppServiceSummaryModel> fetchAppSummaries() {
+        return current.fetchAppSummaries();
+    }
+
+    @Override
+    public ServiceModel fetchServiceModel(String serviceName) {
+        return current.fetchServiceModel(serviceName);
+    }
+
+    @Override
+    public List<ServiceModel> fetchServiceModels() {
+        return current.fetchServiceModels();
+    }
+
+    @Override
+    public List<String> searchServices(String keyword, int limit) {
+        Map<String, RpcService> services = current.fetchService();
+        // 索引与当前代之间可能有短暂差异，以当前代为准，被过滤掉的名称需要从完整结果里补足
+        List<String> matched = serviceNameIndex.search(keyword, limit);
+        List<String> result = matched.stream().filter(services::containsKey)
+            .collect(Collectors.toList());
+        if (result.size() < matched.size()) {
+            result = serviceNameIndex.search(keyword, Integer.MAX_VALUE).stream()
+                .filter(services::containsKey).limit(limit).collect(Collectors.toList());
+        }
+        return result;
+    }
+
+    @Override
+    public void addChangeListener(RegistryChangeListener listener) {
+        changeNotifier.addListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(RegistryChangeListener listener) {
+        changeNotifier.removeListener(listener);
+    }
+
+    @Override
+    public long fetchVersion() {
+        return changeNotifier.fetchVersion();
+    }
+
+    @Override
+    public RegistryDataCache newGeneration() {
+        return new Generation(generationSequence.incrementAndGet());
+    }
+
+    @Override
+    public void publishGeneration(RegistryDataCache generation) {
+        if (!(generation instanceof Generation)) {
+            throw new IllegalArgumentException("Generation is not created by this cache");
+        }
+        Generation next = (Generation) generation;
+        // 只允许更新的一代覆盖旧的
+        if (next.id > current.id) {
+            current = next;
+            serviceNameIndex.sync(next.fetchService().keySet());
+            changeNotifier.publishResync();
+        }
+    }
+
+    /**
+     * 当前代的编号，每次发布新一代递增
+     *
+     * @return 代编号
+     */
+    public long fetchGeneration() {
+        return current.id;
+    }
+
+    /**
+     * 一代完整的服务、provider、consumer 数据
+     */
+    private static class Generation implements RegistryDataCache {
+
+        private final long                     id;
+        private Map<String, RpcService>        serviceMap       = new ConcurrentHashMap<>();
+        private Map<String, List<RpcConsumer>> consumerMap      = new ConcurrentHashMap<>();
+        private Map<String, List<RpcProvider>> providerMap      = new ConcurrentHashMap<>();
+        private final AppServiceIndex          providerAppIndex = new AppServiceIndex();
+        private final AppServiceIndex          consumerAppIndex = new AppServiceIndex();
+        private final ServiceModelView         serviceModels    = new ServiceModelView();
+
+        Generation(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public Map<String, RpcService> fetchService() {
+            return serviceMap;
+        }
+
+        @Override
+        public List<RpcProvider> fetchProvidersByService(String serviceName) {
+            List<RpcProvider> result = null;
+            if (StringUtils.isNotBlank(serviceName)) {
+                result = providerMap.get(serviceName);
+            }
+            if (result == null) {
+                result = new ArrayList<>();
+            }
+            return result;
+        }
+
+        @Override
+        public List<RpcConsumer> fetchConsumersByService(String serviceName) {
+            List<RpcConsumer> result = null;
+            if (StringUtils.isNotBlank(serviceName)) {
+                result = consumerMap.get(serviceName);
+            }
+            if (result == null) {
+                result = new ArrayList<>();
+            }
+            return result;
+        }
+
+        @Override
+        public void addProviders(String serviceName, List<RpcProvider> providerList) {
+            if (StringUtils.isNotBlank(serviceName) && providerList != null) {
+                for (RpcProvider provider : providerList) {
+                    providerAppIndex.add(provider.getAppName(), serviceName);
+                }
+                List<RpcProvider> previous = providerMap.put(serviceName, providerList);
+                if (previous != null) {
+                    for (RpcProvider provider : previous) {
+                        providerAppIndex.remove(provider.getAppName(), serviceName);
+                    }
+                }
+                refreshServiceModel(serviceName);
+            }
+        }
+
+        @Override
+        public void addConsumers(String serviceName, List<RpcConsumer> consumerList) {
+            if (StringUtils.isNotBlank(serviceName) && consumerList != null) {
+                for (RpcConsumer consumer : consumerList) {
+                    consumerAppIndex.add(consumer.getAppName(), serviceName);
+                }
+                List<RpcConsumer> previous = consumerMap.put(serviceName, consumerList);
+                if (previous != null) {
+                    for (RpcConsumer consumer : previous) {
+                        consumerAppIndex.remove(consumer.getAppName(), serviceName);
+                    }
+                }
+                refreshServiceModel(serviceName);
+            }
+        }
+
+        @Override
+        public void addService(List<RpcService> rpcServices) {
+            for (RpcService rpcService : rpcServices) {
+                serviceMap.put(rpcService.getServiceName(), rpcService);
+            }
+        }
+
+        @Override
+        public void removeService(List<RpcService> rpcServices) {
+            for (RpcService rpcService : rpcServices) {
+                String serviceName = rpcService.getServiceName();
+                serviceMap.remove(serviceName);
+                List<RpcProvider> providers = providerMap.remove(serviceName);
+                if (providers != null) {
+                    for (RpcProvider provider : providers) {
+                        providerAppIndex.remove(provider.getAppName(), serviceName);
+                    }
+                }
+                List<RpcConsumer> consumers = consumerMap.remove(serviceName);
+                if (consumers != null) {
+                    for (RpcConsumer consumer : consumers) {
+                        consumerAppIndex.remove(consumer.getAppName(), serviceName);
+                    }
+                }
+                serviceModels.remove(serviceName);
+            }
+        }
+
+        @Override
+        public ServiceModel fetchServiceModel(String serviceName) {
+            if (StringUtils.isBlank(serviceName) || !serviceMap.containsKey(serviceName)) {
+                return null;
+            }
+            return serviceModels.get(serviceName);
+        }
+
+        @Override
+        public List<ServiceModel> fetchServiceModels() {
+            List<ServiceModel> models = serviceModels.values();
+            models.removeIf(model -> !serviceMap.containsKey(model.getServiceId()));
+            return models;
+        }
+
+        @Override
+        public Set<String> fetchProvidedServicesByApp(String appName) {
+            return filterExistServices(providerAppIndex.fetchServices(appName));
+        }
+
+        @Override
+        public Set<String> fetchConsumedServicesByApp(String appName) {
+            return filterExistServices(consumerAppIndex.fetchServices(appName));
+        }
+
+        @Override
+        public Set<String> fetchAppNames() {
+            Set<String> appNames = providerAppIndex.fetchApps();
+            appNames.addAll(consumerAppIndex.fetchApps());
+            return appNames;
+        }
+
+        @Override
+        public List<AppServiceSummaryModel> fetchAppSummaries() {
+            return AppServiceIndex.summarize(providerAppIndex, consumerAppIndex);
+        }
+
+        private void refreshServiceModel(String serviceName) {
+            serviceModels.refresh(serviceName, () -> providerMap.get(serviceName),
+                () -> consumerMap.get(serviceName));
+        }
+
+        private Set<String> filterExistServices(Set<String> serviceNames) {
+            return serviceNames.stream().filter(serviceMap::containsKey)
+                .collect(Collectors.toSet());
         }
     }
 }
@@ -16,33 +16,57 @@
  */
 package com.alipay.sofa.dashboard.cache;
 
+import com.alipay.sofa.dashboard.cache.RegistryChangeEvent.Action;
+import com.alipay.sofa.dashboard.cache.RegistryChangeEvent.Category;
+import com.alipay.sofa.dashboard.domain.InstanceKey;
 import com.alipay.sofa.dashboard.domain.RpcConsumer;
 import com.alipay.sofa.dashboard.domain.RpcProvider;
 import com.alipay.sofa.dashboard.domain.RpcService;
-import com.alipay.sofa.rpc.common.utils.CommonUtils;
+import com.alipay.sofa.dashboard.model.AppServiceSummaryModel;
+import com.alipay.sofa.dashboard.model.ServiceModel;
+import com.alipay.sofa.dashboard.utils.NameSearchIndex;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
+ * provider 和 consumer 按服务分组存储，组内以实例地址 (address:port) 为 key，
+ * 增删改都是 O(1)，读取时返回当前数据的快照拷贝，不会和 Curator 事件线程的写入互相影响。
+ * 删除时要求缓存中的实例与删除的实例完全相同，实例的 url 是原始节点名，同一地址上已被新节点替换的实例
+ * 不受旧节点删除的影响。
+ *
  * @author bystander
  * @version $Id: RegistryDataCache.java, v 0.1 2018年12月10日 23:57 bystander Exp $
  */
 public class ZookeeperRegistryDataCacheImpl implements RegistryDataCache {
 
-    private static final Logger                LOGGER    = LoggerFactory
-                                                             .getLogger(ZookeeperRegistryDataCacheImpl.class);
+    private static final Logger                            LOGGER           = LoggerFactory
+                                                                                  .getLogger(ZookeeperRegistryDataCacheImpl.class);
+
+    private Map<String, RpcService>                        services         = new ConcurrentHashMap<>();
+
+    private Map<RpcService, Map<InstanceKey, RpcProvider>> providers        = new ConcurrentHashMap<>();
+
+    private Map<RpcService, Map<InstanceKey, RpcConsumer>> consumers        = new ConcurrentHashMap<>();
+
+    private final AppServiceIndex                          providerAppIndex = new AppServiceIndex();
 
-    private Map<String, RpcService>            services  = new ConcurrentHashMap<>();
+    private final AppServiceIndex                          consumerAppIndex = new AppServiceIndex();
 
-    private Map<RpcService, List<RpcProvider>> providers = new ConcurrentHashMap<>();
+    private final ServiceModelView                         serviceModels    = new ServiceModelView();
 
-    private Map<RpcService, List<RpcConsumer>> consumers = new ConcurrentHashMap<>();
+    private final NameSearchIndex                          serviceNameIndex = new NameSearchIndex();
+
+    private final RegistryChangeNotifier                   changeNotifier   = new RegistryChangeNotifier();
 
     @Override
     public void addProviders(String serviceName, List<RpcProvider> providerList) {
@@ -55,19 +79,19 @@ public class ZookeeperRegistryDataCacheImpl implements RegistryDataCache {
             return;
         }
 
-        List<RpcProvider> currentProviderList = providers.get(rpcService);
-        if (currentProviderList == null) {
-            providers.put(rpcService, providerList);
-        } else {
-            for (RpcProvider provider : providerList) {
-                if (currentProviderList.contains(provider)) {
-                    continue;
-                }
-                currentProviderList.add(provider);
+        Map<InstanceKey, RpcProvider> currentProviders = providers.computeIfAbsent(rpcService,
+            key -> new ConcurrentHashMap<>());
+        for (RpcProvider provider : providerList) {
+            RpcProvider previous = currentProviders.put(provider.toInstanceKey(), provider);
+            if (previous != null) {
+                providerAppIndex.remove(previous.getAppName(), serviceName);
             }
+            providerAppIndex.add(provider.getAppName(), serviceName);
         }
 
-        LOGGER.info("receive provider registry data add, data is {}", providerList);
+        refreshServiceModel(rpcService);
+        changeNotifier.publish(Category.PROVIDER, Action.ADD, serviceName, providerList);
+        LOGGER.debug("receive provider registry data add, data is {}", providerList);
     }
 
     @Override
@@ -81,19 +105,19 @@ public class ZookeeperRegistryDataCacheImpl implements RegistryDataCache {
             return;
         }
 
-        List<RpcConsumer> currentConsumerList = consumers.get(rpcService);
-        if (currentConsumerList == null) {
-            consumers.put(rpcService, consumersList);
-        } else {
-            for (RpcConsumer consumer : consumersList) {
-                if (currentConsumerList.contains(consumer)) {
-                    continue;
-                }
-                currentConsumerList.add(consumer);
+        Map<InstanceKey, RpcConsumer> currentConsumers = consumers.computeIfAbsent(rpcService,
+            key -> new ConcurrentHashMap<>());
+        for (RpcConsumer consumer : consumersList) {
+            RpcConsumer previous = currentConsumers.put(consumer.toInstanceKey(), consumer);
+            if (previous != null) {
+                consumerAppIndex.remove(previous.getAppName(), serviceName);
             }
+            consumerAppIndex.add(consumer.getAppName(), serviceName);
         }
 
-        LOGGER.info("receive consumer registry data add, data is {}", consumers);
+        refreshServiceModel(rpcService);
+        changeNotifier.publish(Category.CONSUMER, Action.ADD, serviceName, consumersList);
+        LOGGER.debug("receive consumer registry data add, data is {}", consumersList);
 
     }
 
@@ -103,9 +127,19 @@ public class ZookeeperRegistryDataCacheImpl implements RegistryDataCache {
         if (rpcService == null || providerList == null) {
             return;
         }
-        List<RpcProvider> currentProviderList = providers.get(rpcService);
-        currentProviderList.removeAll(providerList);
-        LOGGER.info("receive provider registry data remove, data is {}", providerList);
+        Map<InstanceKey, RpcProvider> currentProviders = providers.get(rpcService);
+        if (currentProviders == null) {
+            return;
+        }
+        for (RpcProvider provider : providerList) {
+            // 只删除与事件完全相同的实例，同一地址上后注册的节点不会被旧节点的删除事件移除
+            if (currentProviders.remove(provider.toInstanceKey(), provider)) {
+                providerAppIndex.remove(provider.getAppName(), serviceName);
+            }
+        }
+        refreshServiceModel(rpcService);
+        changeNotifier.publish(Category.PROVIDER, Action.REMOVE, serviceName, providerList);
+        LOGGER.debug("receive provider registry data remove, data is {}", providerList);
     }
 
     @Override
@@ -114,43 +148,114 @@ public class ZookeeperRegistryDataCacheImpl implements RegistryDataCache {
         if (rpcService == null || consumersList == null) {
             return;
         }
-        List<RpcConsumer> currentConsumerList = consumers.get(rpcService);
-        currentConsumerList.removeAll(consumersList);
-        LOGGER.info("receive consumer registry data remove, data is {}", consumersList);
+        Map<InstanceKey, RpcConsumer> currentConsumers = consumers.get(rpcService);
+        if (currentConsumers == null) {
+            return;
+        }
+        for (RpcConsumer consumer : consumersList) {
+            // 只删除与事件完全相同的实例，同一地址上后注册的节点不会被旧节点的删除事件移除
+            if (currentConsumers.remove(consumer.toInstanceKey(), consumer)) {
+                consumerAppIndex.remove(consumer.getAppName(), serviceName);
+            }
+        }
+        refreshServiceModel(rpcService);
+        changeNotifier.publish(Category.CONSUMER, Action.REMOVE, serviceName, consumersList);
+        LOGGER.debug("receive consumer registry data remove, data is {}", consumersList);
     }
 
     @Override
     public void updateProviders(String serviceName, List<RpcProvider> providerList) {
-        LOGGER.warn("receive provider registry data update, but not support,data is {}",
-            providerList);
+        if (providerList == null) {
+            return;
+        }
+        RpcService rpcService = services.get(serviceName);
+        if (rpcService == null) {
+            LOGGER.warn(
+                "receive provider registry data update, but service name is not exist now,{}",
+                serviceName);
+            return;
+        }
+        Map<InstanceKey, RpcProvider> currentProviders = providers.computeIfAbsent(rpcService,
+            key -> new ConcurrentHashMap<>());
+        for (RpcProvider provider : providerList) {
+            // 对象不可变，更新即用新对象整体替换旧对象
+            RpcProvider previous = currentProviders.put(provider.toInstanceKey(), provider);
+            if (previous == null) {
+                // 更新了一个本地还没有的实例，等同于新增
+                providerAppIndex.add(provider.getAppName(), serviceName);
+                continue;
+            }
+            if (!Objects.equals(previous.getAppName(), provider.getAppName())) {
+                providerAppIndex.remove(previous.getAppName(), serviceName);
+                providerAppIndex.add(provider.getAppName(), serviceName);
+            }
+        }
+        refreshServiceModel(rpcService);
+        changeNotifier.publish(Category.PROVIDER, Action.UPDATE, serviceName, providerList);
+        LOGGER.debug("receive provider registry data update, data is {}", providerList);
     }
 
     @Override
     public void updateConsumers(String serviceName, List<RpcConsumer> consumersList) {
-        LOGGER.warn("receive consumer registry data update, but not support,data is {}",
-            consumersList);
-
+        if (consumersList == null) {
+            return;
+        }
+        RpcService rpcService = services.get(serviceName);
+        if (rpcService == null) {
+            LOGGER.warn(
+                "receive consumer registry data update, but service name is not exist now,{}",
+                serviceName);
+            return;
+        }
+        Map<InstanceKey, RpcConsumer> currentConsumers = consumers.computeIfAbsent(rpcService,
+            key -> new ConcurrentHashMap<>());
+        for (RpcConsumer consumer : consumersList) {
+            // 对象不可变，更新即用新对象整体替换旧对象
+            RpcConsumer previous = currentConsumers.put(consumer.toInstanceKey(), consumer);
+            if (previous == null) {
+                consumerAppIndex.add(consumer.getAppName(), serviceName);
+                continue;
+            }
+            if (!Objects.equals(previous.getAppName(), consumer.getAppName())) {
+                consumerAppIndex.remove(previous.getAppName(), serviceName);
+                consumerAppIndex.add(consumer.getAppName(), serviceName);
+            }
+        }
+        refreshServiceModel(rpcService);
+        changeNotifier.publish(Category.CONSUMER, Action.UPDATE, serviceName, consumersList);
+        LOGGER.debug("receive consumer registry data update, data is {}", consumersList);
     }
 
     @Override
     public void addService(List<RpcService> rpcServiceList) {
         for (RpcService rpcService : rpcServiceList) {
-            LOGGER.info("receive service registry data add, data is {}", rpcService);
+            LOGGER.debug("receive service registry data add, data is {}", rpcService);
             services.put(rpcService.getServiceName(), rpcService);
+            serviceNameIndex.add(rpcService.getServiceName());
         }
+        changeNotifier.publish(Category.SERVICE, Action.ADD, null, rpcServiceList);
     }
 
     @Override
     public void removeService(List<RpcService> rpcServices) {
         for (RpcService rpcService : rpcServices) {
-            LOGGER.info("receive service registry data remove, data is {}", rpcService);
-            services.remove(rpcService.getServiceName());
+            LOGGER.debug("receive service registry data remove, data is {}", rpcService);
+            RpcService removed = services.remove(rpcService.getServiceName());
+            if (removed != null) {
+                evictInstances(removed);
+            }
+            serviceModels.remove(rpcService.getServiceName());
+            serviceNameIndex.remove(rpcService.getServiceName());
         }
+        changeNotifier.publish(Category.SERVICE, Action.REMOVE, null, rpcServices);
     }
 
     @Override
     public void updateService(RpcService rpcService) {
         services.put(rpcService.getServiceName(), rpcService);
+        serviceNameIndex.add(rpcService.getServiceName());
+        changeNotifier.publish(Category.SERVICE, Action.UPDATE, rpcService.getServiceName(),
+            Collections.singletonList(rpcService));
     }
 
     @Override
@@ -167,10 +272,9 @@ public class ZookeeperRegistryDataCacheImpl implements RegistryDataCache {
         RpcService rpcService = services.get(serviceName);
 
         if (rpcService != null) {
-            result = providers.get(rpcService);
-            if (CommonUtils.isNotEmpty(result)) {
-                return result;
-            }
+            Map<InstanceKey, RpcProvider> currentProviders = providers.get(rpcService);
+            // 没有 providers 节点数据时保持原有语义，返回 null
+            return currentProviders == null ? null : new ArrayList<>(currentProviders.values());
         }
         return result;
     }
@@ -183,11 +287,105 @@ public class ZookeeperRegistryDataCacheImpl implements RegistryDataCache {
         }
         RpcService rpcService = services.get(serviceName);
         if (rpcService != null) {
-            result = consumers.get(rpcService);
-            if (CommonUtils.isNotEmpty(result)) {
-                return result;
-            }
+            Map<InstanceKey, RpcConsumer> currentConsumers = consumers.get(rpcService);
+            // 没有 consumers 节点数据时保持原有语义，返回 null
+            return currentConsumers == null ? null : new ArrayList<>(currentConsumers.values());
         }
         return result;
     }
-}
\ No newline at end of file
+
+    @Override
+    public ServiceModel fetchServiceModel(String serviceName) {
+        if (StringUtils.isEmpty(serviceName)) {
+            return null;
+        }
+        return serviceModels.get(serviceName);
+    }
+
+    @Override
+    public List<ServiceModel> fetchServiceModels() {
+        return serviceModels.values();
+    }
+
+    @Override
+    public List<String> searchServices(String keyword, int limit) {
+        return serviceNameIndex.search(keyword, limit);
+    }
+
+    @Override
+    public void addChangeListener(RegistryChangeListener listener) {
+        changeNotifier.addListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(RegistryChangeListener listener) {
+        changeNotifier.removeListener(listener);
+    }
+
+    @Override
+    public long fetchVersion() {
+        return changeNotifier.fetchVersion();
+    }
+
+    @Override
+    public Set<String> fetchProvidedServicesByApp(String appName) {
+        return filterExistServices(providerAppIndex.fetchServices(appName));
+    }
+
+    @Override
+    public Set<String> fetchConsumedServicesByApp(String appName) {
+        return filterExistServices(consumerAppIndex.fetchServices(appName));
+    }
+
+    @Override
+    public Set<String> fetchAppNames() {
+        Set<String> appNames = providerAppIndex.fetchApps();
+        appNames.addAll(consumerAppIndex.fetchApps());
+        return appNames;
+    }
+
+    @Override
+    public List<AppServiceSummaryModel> fetchAppSummaries() {
+        return AppServiceIndex.summarize(providerAppIndex, consumerAppIndex);
+    }
+
+    private Set<String> filterExistServices(Set<String> serviceNames) {
+        return serviceNames.stream().filter(services::containsKey).collect(Collectors.toSet());
+    }
+
+    /**
+     * provider 或 consumer 变化后刷新服务的汇总模型
+     *
+     * @param rpcService 服务
+     */
+    private void refreshServiceModel(RpcService rpcService) {
+        serviceModels.refresh(rpcService.getServiceName(), () -> {
+            Map<InstanceKey, RpcProvider> currentProviders = providers.get(rpcService);
+            return currentProviders == null ? null : currentProviders.values();
+        }, () -> {
+            Map<InstanceKey, RpcConsumer> currentConsumers = consumers.get(rpcService);
+            return currentConsumers == null ? null : currentConsumers.values();
+        });
+    }
+
+    /**
+     * 服务节点被删除时，清理该服务下的 provider 和 consumer 以及对应的应用索引
+     *
+     * @param rpcService 被删除的服务
+     */
+    private void evictInstances(RpcService rpcService) {
+        String serviceName = rpcService.getServiceName();
+        Map<InstanceKey, RpcProvider> removedProviders = providers.remove(rpcService);
+        if (removedProviders != null) {
+            for (RpcProvider provider : removedProviders.values()) {
+                providerAppIndex.remove(provider.getAppName(), serviceName);
+            }
+        }
+        Map<InstanceKey, RpcConsumer> removedConsumers = consumers.remove(rpcService);
+        if (removedConsumers != null) {
+            for (RpcConsumer consumer : removedConsumers.values()) {
+                consumerAppIndex.remove(consumer.getAppName(), serviceName);
+            }
+        }
+    }
+}
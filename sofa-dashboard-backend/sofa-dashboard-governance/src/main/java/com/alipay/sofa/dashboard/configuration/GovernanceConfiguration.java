@@ -32,6 +32,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
@@ -44,8 +45,12 @@ import java.util.Map;
 @Configuration
 public class GovernanceConfiguration {
 
+    private static final String REQUEST_TIMEOUT_KEY     = "com.alipay.sofa.dashboard.registry.sofa.requestTimeout";
+
+    private static final int    DEFAULT_REQUEST_TIMEOUT = 5000;
+
     @Autowired
-    private Environment environment;
+    private Environment         environment;
 
     @Bean(name = "registrySyncMap")
     public Map<String, RegistryDataSync> configureRegistrySyncMap() {
@@ -83,7 +88,13 @@ public class GovernanceConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        // 同步 session 数据时并发请求，单个请求需要有超时，避免占住拉取线程
+        int timeout = environment.getProperty(REQUEST_TIMEOUT_KEY, Integer.class,
+            DEFAULT_REQUEST_TIMEOUT);
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        return new RestTemplate(requestFactory);
     }
 
     @Bean
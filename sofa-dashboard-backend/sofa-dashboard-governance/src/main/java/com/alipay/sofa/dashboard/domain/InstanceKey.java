@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.domain;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * 实例的标识，同一服务下 address:port 相同即认为是同一个实例
+ * <p>
+ * IPv4 地址和端口打包成一个 long，比较和哈希都不需要再访问字符串；其他形式的地址保留原始字符串。
+ */
+public final class InstanceKey implements Serializable {
+
+    private final long   packed;
+    private final String host;
+
+    private InstanceKey(long packed, String host) {
+        this.packed = packed;
+        this.host = host;
+    }
+
+    /**
+     * 生成实例标识
+     *
+     * @param address 实例地址
+     * @param port    端口
+     * @return 实例标识
+     */
+    public static InstanceKey of(String address, int port) {
+        long ip = parseIpv4(address);
+        if (ip >= 0) {
+            return new InstanceKey(ip << 32 | (port & 0xFFFFFFFFL), null);
+        }
+        return new InstanceKey(port, RpcInterners.intern(address));
+    }
+
+    /**
+     * 解析点分十进制的 IPv4 地址
+     *
+     * @param address 地址
+     * @return 无符号的 32 位地址，不是 IPv4 地址时返回 -1
+     */
+    static long parseIpv4(String address) {
+        if (address == null) {
+            return -1;
+        }
+        long result = 0;
+        int segments = 0;
+        int value = -1;
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (value == 0) {
+                    // 带前导 0 的写法不视为同一个地址
+                    return -1;
+                }
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && value >= 0 && segments < 3) {
+                result = result << 8 | value;
+                segments++;
+                value = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (value < 0 || segments != 3) {
+            return -1;
+        }
+        return result << 8 | value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InstanceKey)) {
+            return false;
+        }
+        InstanceKey that = (InstanceKey) o;
+        return packed == that.packed && Objects.equals(host, that.host);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(packed);
+        return host == null ? result : 31 * result + host.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        if (host != null) {
+            return host + ":" + packed;
+        }
+        long ip = packed >>> 32;
+        return (ip >>> 24) + "." + (ip >>> 16 & 0xFF) + "." + (ip >>> 8 & 0xFF) + "." + (ip & 0xFF)
+               + ":" + (int) packed;
+    }
+}
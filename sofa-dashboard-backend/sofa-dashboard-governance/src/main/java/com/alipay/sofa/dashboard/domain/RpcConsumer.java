@@ -17,6 +17,8 @@
 package com.alipay.sofa.dashboard.domain;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -25,112 +27,123 @@ import java.util.Objects;
  * @author bystander
  * @version $Id: Consumer.java, v 0.1 2018年12月10日 23:43 bystander Exp $
  */
-public class RpcConsumer implements Serializable {
-
-    private String              serviceName;
-    private Map<String, String> parameters;
-    private String              address;
-    private Map<String, String> overrides;
-    private String              appName;
-    private boolean             enabled;
-    private boolean             dynamic;
-    private List<RpcProvider>   providers;
-    private String              router;
-    private boolean             cell;
-    private int                 port;
+public final class RpcConsumer implements Serializable {
+
+    private final String              serviceName;
+    private final String              url;
+    private final Map<String, String> parameters;
+    private final String              address;
+    private final Map<String, String> overrides;
+    private final String              appName;
+    private final boolean             enabled;
+    private final boolean             dynamic;
+    private final List<RpcProvider>   providers;
+    private final String              router;
+    private final boolean             cell;
+    private final int                 port;
+
+    /**
+     * 实例标识和哈希值在构造时算好，缓存查找和列表比较时不再重复计算
+     */
+    private final InstanceKey         instanceKey;
+    private final int                 hash;
+
+    private RpcConsumer(Builder builder) {
+        this.serviceName = builder.serviceName;
+        this.url = builder.url;
+        this.parameters = builder.parameters;
+        this.address = builder.address;
+        this.overrides = builder.overrides;
+        this.appName = builder.appName;
+        this.enabled = builder.enabled;
+        this.dynamic = builder.dynamic;
+        this.providers = builder.providers;
+        this.router = builder.router;
+        this.cell = builder.cell;
+        this.port = builder.port;
+        this.instanceKey = InstanceKey.of(address, port);
+        this.hash = computeHash();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 以当前对象为初始值创建 builder，修改字段时得到一个新的对象
+     *
+     * @return builder
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.serviceName = serviceName;
+        builder.url = url;
+        builder.parameters = parameters;
+        builder.address = address;
+        builder.overrides = overrides;
+        builder.appName = appName;
+        builder.enabled = enabled;
+        builder.dynamic = dynamic;
+        builder.providers = providers;
+        builder.router = router;
+        builder.cell = cell;
+        builder.port = port;
+        return builder;
+    }
 
     public String getServiceName() {
         return serviceName;
     }
 
-    public void setServiceName(String serviceName) {
-        this.serviceName = serviceName;
+    public String getUrl() {
+        return url;
     }
 
     public Map<String, String> getParameters() {
         return parameters;
     }
 
-    public void setParameters(Map<String, String> parameters) {
-        this.parameters = parameters;
-    }
-
     public String getAddress() {
         return address;
     }
 
-    public void setAddress(String address) {
-        this.address = address;
-    }
-
     public Map<String, String> getOverrides() {
         return overrides;
     }
 
-    public void setOverrides(Map<String, String> overrides) {
-        this.overrides = overrides;
-    }
-
     public String getAppName() {
         return appName;
     }
 
-    public void setAppName(String appName) {
-        this.appName = appName;
-    }
-
     public boolean isEnabled() {
         return enabled;
     }
 
-    public void setEnabled(boolean enabled) {
-        this.enabled = enabled;
-    }
-
     public boolean isDynamic() {
         return dynamic;
     }
 
-    public void setDynamic(boolean dynamic) {
-        this.dynamic = dynamic;
-    }
-
     public List<RpcProvider> getProviders() {
         return providers;
     }
 
-    public void setProviders(List<RpcProvider> providers) {
-        this.providers = providers;
-    }
-
     public String getRouter() {
         return router;
     }
 
-    public void setRouter(String router) {
-        this.router = router;
-    }
-
     public boolean isCell() {
         return cell;
     }
 
-    public void setCell(boolean cell) {
-        this.cell = cell;
-    }
-
     public int getPort() {
         return port;
     }
 
-    public void setPort(int port) {
-        this.port = port;
-    }
-
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("RpcConsumer{");
         sb.append("serviceName='").append(serviceName).append('\'');
+        sb.append(", url='").append(url).append('\'');
         sb.append(", parameters=").append(parameters);
         sb.append(", address='").append(address).append('\'');
         sb.append(", overrides=").append(overrides);
@@ -152,18 +165,133 @@ public class RpcConsumer implements Serializable {
         if (o == null || getClass() != o.getClass())
             return false;
         RpcConsumer that = (RpcConsumer) o;
-        return enabled == that.enabled && dynamic == that.dynamic && cell == that.cell
-               && port == that.port && Objects.equals(serviceName, that.serviceName)
-               && Objects.equals(parameters, that.parameters)
+        // 先比较预先算好的哈希值和实例标识，参数表和 provider 列表放在最后比较
+        return hash == that.hash && instanceKey.equals(that.instanceKey)
+               && enabled == that.enabled && dynamic == that.dynamic && cell == that.cell
+               && Objects.equals(serviceName, that.serviceName)
                && Objects.equals(address, that.address)
+               && Objects.equals(appName, that.appName) && Objects.equals(router, that.router)
+               && Objects.equals(url, that.url) && Objects.equals(parameters, that.parameters)
                && Objects.equals(overrides, that.overrides)
-               && Objects.equals(appName, that.appName)
-               && Objects.equals(providers, that.providers) && Objects.equals(router, that.router);
+               && Objects.equals(providers, that.providers);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(serviceName, parameters, address, overrides, appName, enabled, dynamic,
-            providers, router, cell, port);
+        return hash;
+    }
+
+    /**
+     * 只用服务名、地址和端口计算，不遍历参数表和 provider 列表，相等的对象这几个字段一定相等
+     */
+    private int computeHash() {
+        int result = serviceName != null ? serviceName.hashCode() : 0;
+        result = 31 * result + (address != null ? address.hashCode() : 0);
+        result = 31 * result + port;
+        return result;
+    }
+
+    /**
+     * 实例标识
+     *
+     * @return 由地址和端口组成的标识
+     */
+    public InstanceKey toInstanceKey() {
+        return instanceKey;
+    }
+
+    /**
+     * 是否是同一个实例，即服务名、地址和端口都相同，不比较其他属性
+     *
+     * @param other 另一个 consumer
+     * @return 是否是同一个实例
+     */
+    public boolean isSameInstance(RpcConsumer other) {
+        return other != null && hash == other.hash && instanceKey.equals(other.instanceKey)
+               && Objects.equals(serviceName, other.serviceName);
+    }
+
+    public static final class Builder {
+
+        private String              serviceName;
+        private String              url;
+        private Map<String, String> parameters;
+        private String              address;
+        private Map<String, String> overrides;
+        private String              appName;
+        private boolean             enabled;
+        private boolean             dynamic;
+        private List<RpcProvider>   providers;
+        private String              router;
+        private boolean             cell;
+        private int                 port;
+
+        private Builder() {
+        }
+
+        public Builder serviceName(String serviceName) {
+            this.serviceName = RpcInterners.intern(serviceName);
+            return this;
+        }
+
+        public Builder url(String url) {
+            this.url = url;
+            return this;
+        }
+
+        public Builder parameters(Map<String, String> parameters) {
+            this.parameters = RpcInterners.internParameters(parameters);
+            return this;
+        }
+
+        public Builder address(String address) {
+            this.address = RpcInterners.intern(address);
+            return this;
+        }
+
+        public Builder overrides(Map<String, String> overrides) {
+            this.overrides = RpcInterners.internParameters(overrides);
+            return this;
+        }
+
+        public Builder appName(String appName) {
+            this.appName = RpcInterners.intern(appName);
+            return this;
+        }
+
+        public Builder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Builder dynamic(boolean dynamic) {
+            this.dynamic = dynamic;
+            return this;
+        }
+
+        public Builder providers(List<RpcProvider> providers) {
+            this.providers = providers == null ? null : Collections
+                .unmodifiableList(new ArrayList<>(providers));
+            return this;
+        }
+
+        public Builder router(String router) {
+            this.router = RpcInterners.intern(router);
+            return this;
+        }
+
+        public Builder cell(boolean cell) {
+            this.cell = cell;
+            return this;
+        }
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public RpcConsumer build() {
+            return new RpcConsumer(this);
+        }
     }
-}
\ No newline at end of file
+}
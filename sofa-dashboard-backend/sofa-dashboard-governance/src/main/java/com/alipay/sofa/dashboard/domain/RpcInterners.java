@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.domain;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 注册数据的字符串和参数表驻留池
+ * <p>
+ * 同一主机上的实例共用地址，同一服务的实例共用服务名、应用名，参数表里的键和大部分值也都高度重复。
+ * 写入 domain 对象时统一经过这里，相同的内容只保留一份；使用弱引用，不再被引用的内容可以正常回收。
+ */
+public final class RpcInterners {
+
+    private static final Interner<String>              STRINGS    = Interners.newWeakInterner();
+
+    private static final Interner<Map<String, String>> PARAMETERS = Interners.newWeakInterner();
+
+    private RpcInterners() {
+    }
+
+    /**
+     * 驻留字符串
+     *
+     * @param value 字符串
+     * @return 池中相等的字符串，参数为 null 时返回 null
+     */
+    public static String intern(String value) {
+        return value == null ? null : STRINGS.intern(value);
+    }
+
+    /**
+     * 生成不可变的参数表，键和值都经过驻留，内容相同的参数表共用同一个实例
+     *
+     * @param parameters 参数表
+     * @return 不可变的参数表，参数为 null 时返回 null
+     */
+    public static Map<String, String> internParameters(Map<String, String> parameters) {
+        if (parameters == null) {
+            return null;
+        }
+        if (parameters.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (parameters instanceof ImmutableMap) {
+            return PARAMETERS.intern(parameters);
+        }
+        boolean hasNull = false;
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                hasNull = true;
+                break;
+            }
+        }
+        Map<String, String> compact;
+        if (hasNull) {
+            // ImmutableMap 不接受 null，保留原有内容
+            Map<String, String> copy = new LinkedHashMap<>();
+            parameters.forEach((key, value) -> copy.put(intern(key), intern(value)));
+            compact = Collections.unmodifiableMap(copy);
+        } else {
+            ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+            parameters.forEach((key, value) -> builder.put(intern(key), intern(value)));
+            compact = builder.build();
+        }
+        return PARAMETERS.intern(compact);
+    }
+}
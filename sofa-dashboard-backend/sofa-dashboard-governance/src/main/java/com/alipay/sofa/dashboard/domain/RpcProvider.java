@@ -18,113 +18,117 @@ package com.alipay.sofa.dashboard.domain;
 
 import java.io.Serializable;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * @author bystander
  * @version $Id: Provider.java, v 0.1 2018年12月10日 23:43 bystander Exp $
  */
-public class RpcProvider implements Serializable {
-
-    private String              serviceName;
-    private String              url;
-    private Map<String, String> parameters;
-    private String              address;
-    private int                 port;
-    private Map<String, String> overrides;
-    private String              appName;
-    private int                 weight;
-    private boolean             enabled;
-    private boolean             dynamic;
-    private boolean             cell;
+public final class RpcProvider implements Serializable {
 
-    public String getServiceName() {
-        return serviceName;
+    private final String              serviceName;
+    private final String              url;
+    private final Map<String, String> parameters;
+    private final String              address;
+    private final int                 port;
+    private final Map<String, String> overrides;
+    private final String              appName;
+    private final int                 weight;
+    private final boolean             enabled;
+    private final boolean             dynamic;
+    private final boolean             cell;
+
+    /**
+     * 实例标识和哈希值在构造时算好，缓存查找和列表比较时不再重复计算
+     */
+    private final InstanceKey         instanceKey;
+    private final int                 hash;
+
+    private RpcProvider(Builder builder) {
+        this.serviceName = builder.serviceName;
+        this.url = builder.url;
+        this.parameters = builder.parameters;
+        this.address = builder.address;
+        this.port = builder.port;
+        this.overrides = builder.overrides;
+        this.appName = builder.appName;
+        this.weight = builder.weight;
+        this.enabled = builder.enabled;
+        this.dynamic = builder.dynamic;
+        this.cell = builder.cell;
+        this.instanceKey = InstanceKey.of(address, port);
+        this.hash = computeHash();
     }
 
-    public void setServiceName(String serviceName) {
-        this.serviceName = serviceName;
+    public static Builder newBuilder() {
+        return new Builder();
     }
 
-    public String getUrl() {
-        return url;
+    /**
+     * 以当前对象为初始值创建 builder，修改字段时得到一个新的对象
+     *
+     * @return builder
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.serviceName = serviceName;
+        builder.url = url;
+        builder.parameters = parameters;
+        builder.address = address;
+        builder.port = port;
+        builder.overrides = overrides;
+        builder.appName = appName;
+        builder.weight = weight;
+        builder.enabled = enabled;
+        builder.dynamic = dynamic;
+        builder.cell = cell;
+        return builder;
     }
 
-    public void setUrl(String url) {
-        this.url = url;
+    public String getServiceName() {
+        return serviceName;
     }
 
-    public Map<String, String> getParameters() {
-        return parameters;
+    public String getUrl() {
+        return url;
     }
 
-    public void setParameters(Map<String, String> parameters) {
-        this.parameters = parameters;
+    public Map<String, String> getParameters() {
+        return parameters;
     }
 
     public String getAddress() {
         return address;
     }
 
-    public void setAddress(String address) {
-        this.address = address;
-    }
-
     public int getPort() {
         return port;
     }
 
-    public void setPort(int port) {
-        this.port = port;
-    }
-
     public Map<String, String> getOverrides() {
         return overrides;
     }
 
-    public void setOverrides(Map<String, String> overrides) {
-        this.overrides = overrides;
-    }
-
     public String getAppName() {
         return appName;
     }
 
-    public void setAppName(String appName) {
-        this.appName = appName;
-    }
-
     public int getWeight() {
         return weight;
     }
 
-    public void setWeight(int weight) {
-        this.weight = weight;
-    }
-
     public boolean isEnabled() {
         return enabled;
     }
 
-    public void setEnabled(boolean enabled) {
-        this.enabled = enabled;
-    }
-
     public boolean isDynamic() {
         return dynamic;
     }
 
-    public void setDynamic(boolean dynamic) {
-        this.dynamic = dynamic;
-    }
-
     public boolean isCell() {
         return cell;
     }
 
-    public void setCell(boolean cell) {
-        this.cell = cell;
-    }
-
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("Provider{");
@@ -153,7 +157,7 @@ public class RpcProvider implements Serializable {
         }
 
         RpcProvider provider = (RpcProvider) o;
-        if (port != provider.port) {
+        if (hash != provider.hash || !instanceKey.equals(provider.instanceKey)) {
             return false;
         }
         if (weight != provider.weight) {
@@ -172,35 +176,132 @@ public class RpcProvider implements Serializable {
             : provider.serviceName != null) {
             return false;
         }
-        if (url != null ? !url.equals(provider.url) : provider.url != null) {
+        if (address != null ? !address.equals(provider.address) : provider.address != null) {
             return false;
         }
-        if (parameters != null ? !parameters.equals(provider.parameters)
-            : provider.parameters != null) {
+        if (appName != null ? !appName.equals(provider.appName) : provider.appName != null) {
             return false;
         }
-        if (address != null ? !address.equals(provider.address) : provider.address != null) {
+        if (url != null ? !url.equals(provider.url) : provider.url != null) {
             return false;
         }
-        if (overrides != null ? !overrides.equals(provider.overrides) : provider.overrides != null) {
+        // 参数表放在最后比较，驻留后的参数表通常直接按引用判等
+        if (parameters != null ? !parameters.equals(provider.parameters)
+            : provider.parameters != null) {
             return false;
         }
-        return appName != null ? appName.equals(provider.appName) : provider.appName == null;
+        return overrides != null ? overrides.equals(provider.overrides) : provider.overrides == null;
     }
 
     @Override
     public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * 只用服务名、地址和端口计算，不遍历参数表，相等的对象这几个字段一定相等
+     */
+    private int computeHash() {
         int result = serviceName != null ? serviceName.hashCode() : 0;
-        result = 31 * result + (url != null ? url.hashCode() : 0);
-        result = 31 * result + (parameters != null ? parameters.hashCode() : 0);
         result = 31 * result + (address != null ? address.hashCode() : 0);
         result = 31 * result + port;
-        result = 31 * result + (overrides != null ? overrides.hashCode() : 0);
-        result = 31 * result + (appName != null ? appName.hashCode() : 0);
-        result = 31 * result + weight;
-        result = 31 * result + (enabled ? 1 : 0);
-        result = 31 * result + (dynamic ? 1 : 0);
-        result = 31 * result + (cell ? 1 : 0);
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 实例标识
+     *
+     * @return 由地址和端口组成的标识
+     */
+    public InstanceKey toInstanceKey() {
+        return instanceKey;
+    }
+
+    /**
+     * 是否是同一个实例，即服务名、地址和端口都相同，不比较其他属性
+     *
+     * @param other 另一个 provider
+     * @return 是否是同一个实例
+     */
+    public boolean isSameInstance(RpcProvider other) {
+        return other != null && hash == other.hash && instanceKey.equals(other.instanceKey)
+               && Objects.equals(serviceName, other.serviceName);
+    }
+
+    public static final class Builder {
+
+        private String              serviceName;
+        private String              url;
+        private Map<String, String> parameters;
+        private String              address;
+        private int                 port;
+        private Map<String, String> overrides;
+        private String              appName;
+        private int                 weight;
+        private boolean             enabled;
+        private boolean             dynamic;
+        private boolean             cell;
+
+        private Builder() {
+        }
+
+        public Builder serviceName(String serviceName) {
+            this.serviceName = RpcInterners.intern(serviceName);
+            return this;
+        }
+
+        public Builder url(String url) {
+            this.url = url;
+            return this;
+        }
+
+        public Builder parameters(Map<String, String> parameters) {
+            this.parameters = RpcInterners.internParameters(parameters);
+            return this;
+        }
+
+        public Builder address(String address) {
+            this.address = RpcInterners.intern(address);
+            return this;
+        }
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder overrides(Map<String, String> overrides) {
+            this.overrides = RpcInterners.internParameters(overrides);
+            return this;
+        }
+
+        public Builder appName(String appName) {
+            this.appName = RpcInterners.intern(appName);
+            return this;
+        }
+
+        public Builder weight(int weight) {
+            this.weight = weight;
+            return this;
+        }
+
+        public Builder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Builder dynamic(boolean dynamic) {
+            this.dynamic = dynamic;
+            return this;
+        }
+
+        public Builder cell(boolean cell) {
+            this.cell = cell;
+            return this;
+        }
+
+        public RpcProvider build() {
+            return new RpcProvider(this);
+        }
+    }
+}
@@ -22,48 +22,59 @@ import java.io.Serializable;
  * @author bystander
  * @version $Id: Service.java, v 0.1 2018年12月10日 23:43 bystander Exp $
  */
-public class RpcService implements Serializable {
+public final class RpcService implements Serializable {
 
-    private String serviceName;
+    private final String serviceName;
 
-    private String appName;
+    private final String appName;
 
-    private String group;
+    private final String group;
 
-    private String version;
+    private final String version;
 
-    public String getServiceName() {
-        return serviceName;
+    /**
+     * 字段都不可变，哈希值在构造时算好，作为缓存的 key 时不再重复计算
+     */
+    private final int    hash;
+
+    private RpcService(Builder builder) {
+        this.serviceName = builder.serviceName;
+        this.appName = builder.appName;
+        this.group = builder.group;
+        this.version = builder.version;
+        this.hash = computeHash();
     }
 
-    public void setServiceName(String serviceName) {
-        this.serviceName = serviceName;
+    public static Builder newBuilder() {
+        return new Builder();
     }
 
-    public String getAppName() {
-        return appName;
+    /**
+     * 以当前对象为初始值创建 builder，修改字段时得到一个新的对象
+     *
+     * @return builder
+     */
+    public Builder toBuilder() {
+        return new Builder().serviceName(serviceName).appName(appName).group(group)
+            .version(version);
     }
 
-    public void setAppName(String appName) {
-        this.appName = appName;
+    public String getServiceName() {
+        return serviceName;
     }
 
-    public String getGroup() {
-        return group;
+    public String getAppName() {
+        return appName;
     }
 
-    public void setGroup(String group) {
-        this.group = group;
+    public String getGroup() {
+        return group;
     }
 
     public String getVersion() {
         return version;
     }
 
-    public void setVersion(String version) {
-        this.version = version;
-    }
-
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("Service{");
@@ -85,7 +96,9 @@ public class RpcService implements Serializable {
         }
 
         RpcService that = (RpcService) o;
-
+        if (hash != that.hash) {
+            return false;
+        }
         if (serviceName != null ? !serviceName.equals(that.serviceName) : that.serviceName != null) {
             return false;
         }
@@ -100,10 +113,52 @@ public class RpcService implements Serializable {
 
     @Override
     public int hashCode() {
+        return hash;
+    }
+
+    private int computeHash() {
         int result = serviceName != null ? serviceName.hashCode() : 0;
         result = 31 * result + (appName != null ? appName.hashCode() : 0);
         result = 31 * result + (group != null ? group.hashCode() : 0);
         result = 31 * result + (version != null ? version.hashCode() : 0);
         return result;
     }
-}
\ No newline at end of file
+
+    public static final class Builder {
+
+        private String serviceName;
+
+        private String appName;
+
+        private String group;
+
+        private String version;
+
+        private Builder() {
+        }
+
+        public Builder serviceName(String serviceName) {
+            this.serviceName = RpcInterners.intern(serviceName);
+            return this;
+        }
+
+        public Builder appName(String appName) {
+            this.appName = RpcInterners.intern(appName);
+            return this;
+        }
+
+        public Builder group(String group) {
+            this.group = RpcInterners.intern(group);
+            return this;
+        }
+
+        public Builder version(String version) {
+            this.version = RpcInterners.intern(version);
+            return this;
+        }
+
+        public RpcService build() {
+            return new RpcService(this);
+        }
+    }
+}
@@ -26,14 +26,31 @@ import com.alipay.sofa.rpc.config.RegistryConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
 
 /**
  * @author: guolei.sgl (guolei.sgl@antfin.com) 2019/5/5 8:02 PM
@@ -63,6 +80,26 @@ public class SofaRegistryRestClient {
 
     private static int          port;
 
+    /**
+     * 已同步到缓存的 dataInfoId，增量同步据此判断 dataInfoId 的增减
+     */
+    private final Set<String>   syncedIds                       = ConcurrentHashMap
+                                                                    .newKeySet();
+
+    /**
+     * 并发拉取 pub/sub 数据的线程数
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.sofa.fetchParallelism:8}")
+    private int                 fetchParallelism                = 8;
+
+    /**
+     * 一次同步等待全部拉取完成的最长时间，单位毫秒；单个请求的超时见 RestTemplate 配置
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.sofa.syncTimeout:60000}")
+    private long                syncTimeout                     = 60000;
+
+    private ExecutorService     fetchExecutor;
+
     public void syncAllSessionData() {
         List<String> dataIds;
         String httpUrl = buildRequestUrl(REGISTRY_QUERY_DATA_INFO_IDS);
@@ -72,23 +109,198 @@ public class SofaRegistryRestClient {
             if (dataIds == null) {
                 dataIds = new ArrayList<>();
             }
-            List<RpcService> service = new ArrayList<>();
-            for (String dataInfoId : dataIds) {
-                RpcService rpcService = new RpcService();
-                rpcService.setServiceName(dataInfoId);
-                service.add(rpcService);
-                List<RpcProvider> providers = syncProviders(dataInfoId);
-                registryDataCache.addProviders(dataInfoId, providers);
-                List<RpcConsumer> consumers = syncConsumers(dataInfoId);
-                registryDataCache.addConsumers(dataInfoId, consumers);
+            // 在新一代缓存上写入，每个 dataInfoId 拉取完成后立即写入，全部完成后一次性发布
+            RegistryDataCache generation = registryDataCache.newGeneration();
+            Set<String> synced = ConcurrentHashMap.newKeySet();
+            fetchConcurrently(dataIds, (dataInfoId, data) -> {
+                generation.addProviders(dataInfoId, data.providers);
+                generation.addConsumers(dataInfoId, data.consumers);
+                generation.addService(Collections.singletonList(newService(dataInfoId)));
+                synced.add(dataInfoId);
+            });
+            if (synced.size() < dataIds.size()) {
+                LOGGER.warn("Sync all dataInfoIds from session, {} of {} failed, keep last data",
+                    dataIds.size() - synced.size(), dataIds.size());
+                // 拉取失败的 dataInfoId 沿用上一代的数据
+                for (String dataInfoId : dataIds) {
+                    if (!synced.contains(dataInfoId)
+                        && registryDataCache.fetchService().containsKey(dataInfoId)) {
+                        generation.addProviders(dataInfoId,
+                            registryDataCache.fetchProvidersByService(dataInfoId));
+                        generation.addConsumers(dataInfoId,
+                            registryDataCache.fetchConsumersByService(dataInfoId));
+                        generation.addService(Collections
+                            .singletonList(newService(dataInfoId)));
+                    }
+                }
             }
-            registryDataCache.addService(service);
+            registryDataCache.publishGeneration(generation);
+            syncedIds.clear();
+            syncedIds.addAll(generation.fetchService().keySet());
         } catch (Throwable t) {
             LOGGER.error(
                 "Failed to sync all dataInfoIds from session. query url [" + httpUrl + "]", t);
         }
     }
 
+    /**
+     * 增量同步，由调用方在全局 checksum 变化时触发，只处理 dataInfoId 的增减：
+     * <ul>
+     * <li>消失的 dataInfoId 从缓存中删除</li>
+     * <li>新出现的 dataInfoId 拉取 pub/sub 数据</li>
+     * </ul>
+     * session 的 digest 接口只提供全局的 checksum，没有单个 dataInfoId 的版本号或摘要，不拉取数据就无法判断
+     * 已有 dataInfoId 的 pub/sub 是否变化，这部分变化由调用方定期执行的全量同步兜底。
+     *
+     * @return 写入缓存的 dataInfoId 个数
+     */
+    public int syncIncrementalSessionData() {
+        String httpUrl = buildRequestUrl(REGISTRY_QUERY_DATA_INFO_IDS);
+        int changes = 0;
+        try {
+            ResponseEntity<List> forEntity = restTemplate.getForEntity(httpUrl, List.class);
+            List<String> dataIds = forEntity.getBody();
+            Set<String> current = dataIds == null ? new HashSet<>() : new HashSet<>(dataIds);
+
+            List<RpcService> removed = new ArrayList<>();
+            for (String dataInfoId : syncedIds) {
+                if (!current.contains(dataInfoId)) {
+                    removed.add(newService(dataInfoId));
+                    syncedIds.remove(dataInfoId);
+                }
+            }
+            if (!removed.isEmpty()) {
+                registryDataCache.removeService(removed);
+                changes += removed.size();
+            }
+
+            List<String> added = new ArrayList<>();
+            for (String dataInfoId : current) {
+                if (!syncedIds.contains(dataInfoId)) {
+                    added.add(dataInfoId);
+                }
+            }
+            Set<String> synced = ConcurrentHashMap.newKeySet();
+            fetchConcurrently(added, (dataInfoId, data) -> {
+                registryDataCache.addProviders(dataInfoId, data.providers);
+                registryDataCache.addConsumers(dataInfoId, data.consumers);
+                synced.add(dataInfoId);
+            });
+            if (!synced.isEmpty()) {
+                List<RpcService> addedServices = new ArrayList<>();
+                for (String dataInfoId : synced) {
+                    addedServices.add(newService(dataInfoId));
+                }
+                registryDataCache.addService(addedServices);
+                // 拉取失败的 dataInfoId 不记录，下次增量同步重新拉取
+                syncedIds.addAll(synced);
+                changes += synced.size();
+            }
+        } catch (Throwable t) {
+            LOGGER.error("Failed to sync changed dataInfoIds from session. query url [" + httpUrl
+                         + "]", t);
+        }
+        return changes;
+    }
+
+    /**
+     * 在有界线程池中并发拉取 dataInfoId 的 pub/sub 数据并交给 writer 写入，单个失败只记录日志；
+     * 超过 syncTimeout 仍未完成的任务会被取消。
+     * <p>
+     * 已经发出的 HTTP 请求无法被中断，返回前先关闭本次同步：关闭之后完成的拉取直接丢弃，不会再写入已发布的
+     * 缓存或下一次同步的状态；关闭时正在写入的任务会先写完。
+     *
+     * @param dataIds dataInfoId
+     * @param writer  写入单个 dataInfoId 的数据
+     * @return 成功写入的个数
+     * @throws InterruptedException 等待时被中断
+     */
+    private int fetchConcurrently(Collection<String> dataIds,
+                                  BiConsumer<String, SessionData> writer)
+        throws InterruptedException {
+        if (dataIds.isEmpty()) {
+            return 0;
+        }
+        ExecutorService executor = fetchExecutor();
+        ReadWriteLock guard = new ReentrantReadWriteLock();
+        AtomicBoolean closed = new AtomicBoolean();
+        List<Future<Boolean>> futures = new ArrayList<>(dataIds.size());
+        for (String dataInfoId : dataIds) {
+            futures.add(executor.submit(() -> {
+                try {
+                    SessionData data = new SessionData(syncProviders(dataInfoId),
+                        syncConsumers(dataInfoId));
+                    guard.readLock().lock();
+                    try {
+                        if (closed.get()) {
+                            LOGGER.warn("Discard dataInfoId [{}] fetched after sync finished.",
+                                dataInfoId);
+                            return false;
+                        }
+                        writer.accept(dataInfoId, data);
+                        return true;
+                    } finally {
+                        guard.readLock().unlock();
+                    }
+                } catch (Throwable t) {
+                    LOGGER.error("Failed to sync dataInfoId [" + dataInfoId + "] from session.", t);
+                    return false;
+                }
+            }));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(syncTimeout);
+        int succeed = 0;
+        try {
+            for (Future<Boolean> future : futures) {
+                try {
+                    long remaining = Math.max(0, deadline - System.nanoTime());
+                    if (Boolean.TRUE.equals(future.get(remaining, TimeUnit.NANOSECONDS))) {
+                        succeed++;
+                    }
+                } catch (ExecutionException | TimeoutException e) {
+                    future.cancel(true);
+                }
+            }
+        } finally {
+            // 等待正在写入的任务完成，之后的任务不再写入
+            guard.writeLock().lock();
+            try {
+                closed.set(true);
+            } finally {
+                guard.writeLock().unlock();
+            }
+        }
+        return succeed;
+    }
+
+    private synchronized ExecutorService fetchExecutor() {
+        if (fetchExecutor == null) {
+            int parallelism = Math.max(1, fetchParallelism);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60L,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), SofaRegistryRestClient::newThread);
+            executor.allowCoreThreadTimeOut(true);
+            fetchExecutor = executor;
+        }
+        return fetchExecutor;
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "session-data-fetcher");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdownNow();
+        }
+    }
+
+    private RpcService newService(String dataInfoId) {
+        return RpcService.newBuilder().serviceName(dataInfoId).build();
+    }
+
     public Integer checkSum() {
         String pubUrl = buildRequestUrl(REGISTRY_QUERY_CHECK_SUM);
         ResponseEntity<Integer> checkSumResp = restTemplate.getForEntity(pubUrl, Integer.class);
@@ -96,41 +308,57 @@ public class SofaRegistryRestClient {
     }
 
     private List<RpcProvider> syncProviders(String dataInfoId) {
+        return convertProviders(queryPublishers(dataInfoId));
+    }
+
+    private Map<String, List<Map>> queryPublishers(String dataInfoId) {
         String pubUrl = buildRequestUrl(REGISTRY_QUERY_PUB_SESSION_DATA);
         pubUrl += "?dataInfoId={1}";
         ResponseEntity<Map> pubResponse = restTemplate.getForEntity(pubUrl, Map.class, dataInfoId);
-        List<RpcProvider> providers = new ArrayList<>();
         if (pubResponse != null && pubResponse.getBody() != null) {
-            Map<String, List<Map>> subMap = pubResponse.getBody();
-            Set<String> subKeys = subMap.keySet();
-            subKeys.forEach((key) -> {
-                List<Map> publisherList = subMap.get(key);
-                for (Map publisherMap : publisherList) {
-                    RpcProvider provider = convertRpcProviderFromMap(publisherMap);
-                    providers.add(provider);
-                }
-
-            });
+            return pubResponse.getBody();
         }
+        return Collections.emptyMap();
+    }
+
+    private List<RpcProvider> convertProviders(Map<String, List<Map>> pubMap) {
+        List<RpcProvider> providers = new ArrayList<>();
+        Set<String> pubKeys = pubMap.keySet();
+        pubKeys.forEach((key) -> {
+            List<Map> publisherList = pubMap.get(key);
+            for (Map publisherMap : publisherList) {
+                RpcProvider provider = convertRpcProviderFromMap(publisherMap);
+                providers.add(provider);
+            }
+
+        });
         return providers;
     }
 
     private List<RpcConsumer> syncConsumers(String dataInfoId) {
+        return convertConsumers(querySubscribers(dataInfoId));
+    }
+
+    private Map<String, List<Map>> querySubscribers(String dataInfoId) {
         String subUrl = buildRequestUrl(REGISTRY_QUERY_SUB_SESSION_DATA);
-        List<RpcConsumer> consumers = new ArrayList<>();
         subUrl += "?dataInfoId={1}";
         ResponseEntity<Map> subResponse = restTemplate.getForEntity(subUrl, Map.class, dataInfoId);
         if (subResponse != null && subResponse.getBody() != null) {
-            Map<String, List<Map>> subMap = subResponse.getBody();
-            Set<String> subKeys = subMap.keySet();
-            subKeys.forEach((key) -> {
-                List<Map> subscriberList = subMap.get(key);
-                for (Map subscriberMap : subscriberList) {
-                    RpcConsumer consumer = convertRpcConsumerFromMap(subscriberMap);
-                    consumers.add(consumer);
-                }
-            });
+            return subResponse.getBody();
         }
+        return Collections.emptyMap();
+    }
+
+    private List<RpcConsumer> convertConsumers(Map<String, List<Map>> subMap) {
+        List<RpcConsumer> consumers = new ArrayList<>();
+        Set<String> subKeys = subMap.keySet();
+        subKeys.forEach((key) -> {
+            List<Map> subscriberList = subMap.get(key);
+            for (Map subscriberMap : subscriberList) {
+                RpcConsumer consumer = convertRpcConsumerFromMap(subscriberMap);
+                consumers.add(consumer);
+            }
+        });
         return consumers;
     }
 
@@ -156,15 +384,15 @@ public class SofaRegistryRestClient {
     }
 
     private RpcConsumer convertRpcConsumerFromMap(Map subscriberMap) {
-        RpcConsumer consumer = new RpcConsumer();
-        consumer.setAppName(getEmptyStringIfNull(subscriberMap, SofaDashboardConstants.APP_NAME));
-        consumer.setServiceName(getEmptyStringIfNull(subscriberMap,
+        RpcConsumer.Builder consumer = RpcConsumer.newBuilder();
+        consumer.appName(getEmptyStringIfNull(subscriberMap, SofaDashboardConstants.APP_NAME));
+        consumer.serviceName(getEmptyStringIfNull(subscriberMap,
             SofaDashboardConstants.REGISTRY_DATA_ID_KEY));
         String processId = getEmptyStringIfNull(subscriberMap,
             SofaDashboardConstants.REGISTRY_PROCESS_ID_KEY);
         if (processId.contains(SofaDashboardConstants.COLON)) {
-            consumer.setAddress(processId.split(SofaDashboardConstants.COLON)[0]);
-            consumer.setPort(Integer.valueOf(processId.split(SofaDashboardConstants.COLON)[1]));
+            consumer.address(processId.split(SofaDashboardConstants.COLON)[0]);
+            consumer.port(Integer.valueOf(processId.split(SofaDashboardConstants.COLON)[1]));
         } else {
             Object sourceAddress = subscriberMap
                 .get(SofaDashboardConstants.REGISTRY_SOURCE_ADDRESS_KEY);
@@ -172,26 +400,26 @@ public class SofaRegistryRestClient {
                 String ipAddress = getEmptyStringIfNull((Map) sourceAddress,
                     SofaDashboardConstants.REGISTRY_IP_KEY);
                 String port = getEmptyStringIfNull((Map) sourceAddress, SofaDashboardConstants.PORT);
-                consumer.setAddress(ipAddress);
-                consumer.setPort(Integer.valueOf(StringUtils.isBlank(port) ? "0" : port));
+                consumer.address(ipAddress);
+                consumer.port(Integer.valueOf(StringUtils.isBlank(port) ? "0" : port));
             }
         }
         Map<String, String> attributes = (Map<String, String>) subscriberMap
             .get(SofaDashboardConstants.REGISTRY_ATTRIBUTES);
-        consumer.setParameters(attributes);
-        return consumer;
+        consumer.parameters(attributes);
+        return consumer.build();
     }
 
     private RpcProvider convertRpcProviderFromMap(Map publisherMap) {
-        RpcProvider provider = new RpcProvider();
-        provider.setAppName(getEmptyStringIfNull(publisherMap, SofaDashboardConstants.APP_NAME));
-        provider.setServiceName(getEmptyStringIfNull(publisherMap,
+        RpcProvider.Builder provider = RpcProvider.newBuilder();
+        provider.appName(getEmptyStringIfNull(publisherMap, SofaDashboardConstants.APP_NAME));
+        provider.serviceName(getEmptyStringIfNull(publisherMap,
             SofaDashboardConstants.REGISTRY_DATA_ID_KEY));
         String processId = getEmptyStringIfNull(publisherMap,
             SofaDashboardConstants.REGISTRY_PROCESS_ID_KEY);
         if (processId.contains(SofaDashboardConstants.COLON)) {
-            provider.setAddress(processId.split(SofaDashboardConstants.COLON)[0]);
-            provider.setPort(Integer.valueOf(processId.split(SofaDashboardConstants.COLON)[1]));
+            provider.address(processId.split(SofaDashboardConstants.COLON)[0]);
+            provider.port(Integer.valueOf(processId.split(SofaDashboardConstants.COLON)[1]));
         } else {
             Object sourceAddress = publisherMap
                 .get(SofaDashboardConstants.REGISTRY_SOURCE_ADDRESS_KEY);
@@ -199,14 +427,14 @@ public class SofaRegistryRestClient {
                 String ipAddress = getEmptyStringIfNull((Map) sourceAddress,
                     SofaDashboardConstants.REGISTRY_IP_KEY);
                 String port = getEmptyStringIfNull((Map) sourceAddress, SofaDashboardConstants.PORT);
-                provider.setAddress(ipAddress);
-                provider.setPort(Integer.valueOf(StringUtils.isBlank(port) ? "0" : port));
+                provider.address(ipAddress);
+                provider.port(Integer.valueOf(StringUtils.isBlank(port) ? "0" : port));
             }
         }
         Map<String, String> attributes = (Map<String, String>) publisherMap
             .get(SofaDashboardConstants.REGISTRY_ATTRIBUTES);
-        provider.setParameters(attributes);
-        return provider;
+        provider.parameters(attributes);
+        return provider.build();
     }
 
     /**
@@ -233,4 +461,19 @@ public class SofaRegistryRestClient {
         sessionAddress = endPointAddress.split(SofaDashboardConstants.COLON)[0];
         port = Integer.valueOf(endPointAddress.split(SofaDashboardConstants.COLON)[1]);
     }
+
+    /**
+     * 单个 dataInfoId 的 pub/sub 数据
+     */
+    private static class SessionData {
+
+        private final List<RpcProvider> providers;
+
+        private final List<RpcConsumer> consumers;
+
+        SessionData(List<RpcProvider> providers, List<RpcConsumer> consumers) {
+            this.providers = providers;
+            this.consumers = consumers;
+        }
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.framework.recipes.cache.PathChildrenCacheListener;
+import org.apache.curator.utils.CloseableUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 管理服务节点及其 providers/consumers 节点上的 PathChildrenCache。
+ * <p>
+ * 缓存按服务路径分组，服务被删除时整组关闭，释放 zookeeper watch 以及 cache 的事件线程。
+ * cache 先登记再启动，未启动的 cache 关闭时什么也不做，所以启动后要确认它仍在登记中，否则由这里关闭。
+ */
+@Component
+public class ChildCacheManager {
+
+    private static final Logger                               LOGGER = LoggerFactory
+                                                                           .getLogger(ChildCacheManager.class);
+
+    /**
+     * servicePath -> (cachePath -> cache)
+     */
+    private final Map<String, Map<String, PathChildrenCache>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 为服务节点打开 cache，同时登记该服务，后续的子节点 cache 都挂在它下面
+     *
+     * @param client      zookeeper client
+     * @param servicePath 服务节点路径
+     * @param listener    监听器
+     * @throws Exception 启动 cache 失败
+     */
+    public void openServiceCache(CuratorFramework client, String servicePath,
+                                 PathChildrenCacheListener listener) throws Exception {
+        PathChildrenCache cache = new PathChildrenCache(client, servicePath, true);
+        cache.getListenable().addListener(listener);
+        Map<String, PathChildrenCache> group = new ConcurrentHashMap<>();
+        group.put(servicePath, cache);
+        Map<String, PathChildrenCache> previous = caches.put(servicePath, group);
+        if (previous != null) {
+            // 同一个服务重复创建，关掉旧的避免泄漏
+            closeAll(previous);
+        }
+        startOrClose(servicePath, servicePath, cache);
+    }
+
+    /**
+     * 为服务下的 providers/consumers 节点打开 cache；服务已被删除时不再打开
+     *
+     * @param client      zookeeper client
+     * @param servicePath 服务节点路径
+     * @param path        providers/consumers 节点路径
+     * @param listener    监听器
+     * @return 是否打开
+     * @throws Exception 启动 cache 失败
+     */
+    public boolean openChildCache(CuratorFramework client, String servicePath, String path,
+                                  PathChildrenCacheListener listener) throws Exception {
+        PathChildrenCache cache = new PathChildrenCache(client, path, true);
+        cache.getListenable().addListener(listener);
+        AtomicReference<PathChildrenCache> displaced = new AtomicReference<>();
+        Map<String, PathChildrenCache> group = caches.computeIfPresent(servicePath, (k, v) -> {
+            displaced.set(v.put(path, cache));
+            return v;
+        });
+        // 关闭旧 cache 会访问 zookeeper，不能在 compute 持有锁的时候进行
+        if (displaced.get() != null) {
+            CloseableUtils.closeQuietly(displaced.get());
+        }
+        if (group == null) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("service {} already removed, skip cache of {}", servicePath, path);
+            }
+            return false;
+        }
+        return startOrClose(servicePath, path, cache);
+    }
+
+    /**
+     * 启动已登记的 cache。启动前服务或节点可能已被并发删除，此时关闭没有生效，启动后检查登记并补上关闭
+     *
+     * @return cache 启动后是否仍在登记中
+     */
+    private boolean startOrClose(String servicePath, String path, PathChildrenCache cache)
+        throws Exception {
+        cache.start();
+        Map<String, PathChildrenCache> group = caches.get(servicePath);
+        if (group == null || group.get(path) != cache) {
+            CloseableUtils.closeQuietly(cache);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("cache of {} removed while starting, closed", path);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 关闭单个 providers/consumers 节点的 cache
+     *
+     * @param servicePath 服务节点路径
+     * @param path        providers/consumers 节点路径
+     */
+    public void closeChildCache(String servicePath, String path) {
+        Map<String, PathChildrenCache> group = caches.get(servicePath);
+        if (group == null) {
+            return;
+        }
+        PathChildrenCache cache = group.remove(path);
+        if (cache != null) {
+            CloseableUtils.closeQuietly(cache);
+        }
+    }
+
+    /**
+     * 服务被删除时关闭该服务下的所有 cache
+     *
+     * @param servicePath 服务节点路径
+     */
+    public void closeServiceCache(String servicePath) {
+        Map<String, PathChildrenCache> group = caches.remove(servicePath);
+        if (group == null) {
+            return;
+        }
+        closeAll(group);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("close caches of {}, open caches {}, watches {}", servicePath,
+                getOpenCacheCount(), getWatchCount());
+        }
+    }
+
+    /**
+     * 当前打开的 PathChildrenCache 数量
+     *
+     * @return cache 数量
+     */
+    public int getOpenCacheCount() {
+        int count = 0;
+        for (Map<String, PathChildrenCache> group : caches.values()) {
+            count += group.size();
+        }
+        return count;
+    }
+
+    /**
+     * 当前 cache 持有的 watch 数量：每个 cache 在自身节点上有一个子节点 watch，
+     * 缓存数据时每个子节点还有一个数据 watch
+     *
+     * @return watch 数量
+     */
+    public int getWatchCount() {
+        int count = 0;
+        for (Map<String, PathChildrenCache> group : caches.values()) {
+            for (PathChildrenCache cache : group.values()) {
+                count += 1 + cache.getCurrentData().size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * cache 的统计信息
+     *
+     * @return 统计项名称到数值的映射
+     */
+    public Map<String, Number> fetchStats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("childCache.openCaches", getOpenCacheCount());
+        stats.put("childCache.watches", getWatchCount());
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        for (String servicePath : caches.keySet()) {
+            closeServiceCache(servicePath);
+        }
+    }
+
+    private void closeAll(Map<String, PathChildrenCache> group) {
+        for (PathChildrenCache cache : group.values()) {
+            CloseableUtils.closeQuietly(cache);
+        }
+        group.clear();
+    }
+}
@@ -16,12 +16,9 @@
  */
 package com.alipay.sofa.dashboard.listener.zookeeper;
 
-import com.alipay.sofa.dashboard.cache.RegistryDataCache;
-import com.alipay.sofa.dashboard.domain.RpcConsumer;
 import com.alipay.sofa.common.utils.StringUtil;
-import com.alipay.sofa.rpc.client.ProviderHelper;
-import com.alipay.sofa.rpc.client.ProviderInfo;
-import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.EventType;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.NodeType;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.recipes.cache.ChildData;
 import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
@@ -31,11 +28,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * @author bystander
  * @version $Id: ServiceNodeChangeListener.java, v 0.1 2018年12月12日 11:25 bystander Exp $
@@ -44,10 +36,11 @@ import java.util.List;
 @Component
 public class ConsumerNodeChangeListener implements PathChildrenCacheListener {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(ConsumerNodeChangeListener.class);
+    private static final Logger  LOGGER = LoggerFactory
+                                            .getLogger(ConsumerNodeChangeListener.class);
 
     @Autowired
-    private RegistryDataCache   registryDataCache;
+    private RegistryEventBatcher registryEventBatcher;
 
     @Override
     public void childEvent(CuratorFramework client, PathChildrenCacheEvent event) {
@@ -67,61 +60,24 @@ public class ConsumerNodeChangeListener implements PathChildrenCacheListener {
             LOGGER.debug("consumer : {}", path);
         }
 
+        String consumerData = StringUtil.substringAfterLast(path, "/");
+        String serviceName = StringUtil.substringBetween(path, "/sofa-rpc/", "/consumers/");
         switch (event.getType()) {
-
             case CHILD_ADDED:
-
-                String addConsumerData = StringUtil.substringAfterLast(path, "/");
-                String addServiceName = StringUtil.substringBetween(path, "/sofa-rpc/",
-                    "/consumers/");
-
-                List<RpcConsumer> addConsumers = new ArrayList<>();
-                addConsumers.add(convert2Consumer(addServiceName, addConsumerData));
-                registryDataCache.addConsumers(addServiceName, addConsumers);
+                registryEventBatcher.submit(NodeType.CONSUMER, EventType.ADD, serviceName,
+                    consumerData);
                 break;
             case CHILD_REMOVED:
-
-                String removeConsumerData = StringUtil.substringAfterLast(path, "/");
-                String removeServiceName = StringUtil.substringBetween(path, "/sofa-rpc/",
-                    "/consumers/");
-
-                List<RpcConsumer> removeConsumers = new ArrayList<>();
-                removeConsumers.add(convert2Consumer(removeServiceName, removeConsumerData));
-                registryDataCache.removeConsumers(removeServiceName, removeConsumers);
-
+                registryEventBatcher.submit(NodeType.CONSUMER, EventType.REMOVE, serviceName,
+                    consumerData);
                 break;
             case CHILD_UPDATED:
-
-                String updateConsumerData = StringUtil.substringAfterLast(path, "/");
-                String updateServiceName = StringUtil.substringBetween(path, "/sofa-rpc/",
-                    "/consumers/");
-
-                List<RpcConsumer> updateConsumers = new ArrayList<>();
-                updateConsumers.add(convert2Consumer(updateServiceName, updateConsumerData));
-                registryDataCache.updateConsumers(updateServiceName, updateConsumers);
+                registryEventBatcher.submit(NodeType.CONSUMER, EventType.UPDATE, serviceName,
+                    consumerData);
                 break;
-
             default:
                 break;
         }
 
     }
-
-    private RpcConsumer convert2Consumer(String serviceName, String providerData) {
-
-        try {
-            providerData = URLDecoder.decode(providerData, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        }
-
-        RpcConsumer rpcConsumer = new RpcConsumer();
-        ProviderInfo consumerInfo = ProviderHelper.toProviderInfo(providerData);
-        String appName = consumerInfo.getStaticAttr(ProviderInfoAttrs.ATTR_APP_NAME);
-        rpcConsumer.setAppName(appName);
-        rpcConsumer.setServiceName(serviceName);
-        rpcConsumer.setAddress(consumerInfo.getHost());
-        rpcConsumer.setPort(consumerInfo.getPort());
-        return rpcConsumer;
-    }
 }
\ No newline at end of file
@@ -17,11 +17,8 @@
 package com.alipay.sofa.dashboard.listener.zookeeper;
 
 import com.alipay.sofa.common.utils.StringUtil;
-import com.alipay.sofa.dashboard.cache.RegistryDataCache;
-import com.alipay.sofa.dashboard.domain.RpcProvider;
-import com.alipay.sofa.rpc.client.ProviderHelper;
-import com.alipay.sofa.rpc.client.ProviderInfo;
-import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.EventType;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.NodeType;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.recipes.cache.ChildData;
 import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
@@ -31,11 +28,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * @author bystander
  * @version $Id: ServiceNodeChangeListener.java, v 0.1 2018年12月12日 11:25 bystander Exp $
@@ -43,10 +35,11 @@ import java.util.List;
 @Component
 public class ProviderNodeChangeListener implements PathChildrenCacheListener {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(ProviderNodeChangeListener.class);
+    private static final Logger  LOGGER = LoggerFactory
+                                            .getLogger(ProviderNodeChangeListener.class);
 
     @Autowired
-    private RegistryDataCache   registryDataCache;
+    private RegistryEventBatcher registryEventBatcher;
 
     @Override
     public void childEvent(CuratorFramework client, PathChildrenCacheEvent event) throws Exception {
@@ -65,57 +58,24 @@ public class ProviderNodeChangeListener implements PathChildrenCacheListener {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("provider : {}", path);
         }
+        String providerData = StringUtil.substringAfterLast(path, "/");
+        String serviceName = StringUtil.substringBetween(path, "/sofa-rpc/", "/providers/");
         switch (event.getType()) {
-
             case CHILD_ADDED:
-                String providerData = StringUtil.substringAfterLast(path, "/");
-                String serviceName = StringUtil.substringBetween(path, "/sofa-rpc/", "/providers/");
-                List<RpcProvider> providerDataList = new ArrayList<>();
-                providerDataList.add(convert2Provider(serviceName, providerData));
-                registryDataCache.addProviders(serviceName, providerDataList);
+                registryEventBatcher.submit(NodeType.PROVIDER, EventType.ADD, serviceName,
+                    providerData);
                 break;
             case CHILD_REMOVED:
-
-                List<RpcProvider> removeProviders = new ArrayList<>();
-                String removeProviderData = StringUtil.substringAfterLast(path, "/");
-                String removeServiceName = StringUtil.substringBetween(path, "/sofa-rpc/",
-                    "/providers/");
-                removeProviders.add(convert2Provider(removeServiceName, removeProviderData));
-                registryDataCache.removeProviders(removeServiceName, removeProviders);
+                registryEventBatcher.submit(NodeType.PROVIDER, EventType.REMOVE, serviceName,
+                    providerData);
                 break;
             case CHILD_UPDATED:
-
-                List<RpcProvider> updateProviders = new ArrayList<>();
-                String updateProviderData = StringUtil.substringAfterLast(path, "/");
-                String updateServiceName = StringUtil.substringBetween(path, "/sofa-rpc/",
-                    "/providers/");
-                updateProviders.add(convert2Provider(updateServiceName, updateProviderData));
-                registryDataCache.updateProviders(updateServiceName, updateProviders);
+                registryEventBatcher.submit(NodeType.PROVIDER, EventType.UPDATE, serviceName,
+                    providerData);
                 break;
-
             default:
                 break;
         }
 
     }
-
-    private RpcProvider convert2Provider(String serviceName, String providerData) {
-
-        try {
-            providerData = URLDecoder.decode(providerData, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        }
-
-        RpcProvider rpcProvider = new RpcProvider();
-        ProviderInfo providerInfo = ProviderHelper.toProviderInfo(providerData);
-
-        rpcProvider.setServiceName(serviceName);
-        rpcProvider.setAddress(providerInfo.getHost());
-        rpcProvider.setPort(providerInfo.getPort());
-        String appName = providerInfo.getStaticAttr(ProviderInfoAttrs.ATTR_APP_NAME);
-        rpcProvider.setAppName(appName);
-        rpcProvider.setWeight(providerInfo.getWeight());
-        return rpcProvider;
-    }
 }
\ No newline at end of file
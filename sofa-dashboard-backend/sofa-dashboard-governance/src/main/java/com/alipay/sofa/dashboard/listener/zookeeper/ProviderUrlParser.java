@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+/**
+ * 直接在 URL 编码的节点名上解析 provider/consumer 的地址、端口、应用名和权重
+ * <p>
+ * 边扫描边解码，一次遍历完成，不生成解码后的完整 URL、参数表和中间字符串。解析规则与
+ * URLDecoder.decode + ProviderHelper.toProviderInfo 保持一致；遇到多字节字符、非法转义、
+ * 非法参数等少见的写法时返回 null，由调用方退回原有的解析流程。
+ */
+final class ProviderUrlParser {
+
+    private static final int    END            = -1;
+    private static final int    UNSUPPORTED    = -2;
+    /**
+     * 与 ProviderInfo 的默认端口和默认权重保持一致
+     */
+    private static final int    DEFAULT_PORT   = 80;
+    private static final int    DEFAULT_WEIGHT = 100;
+    private static final int    MAX_DIGITS     = 9;
+    private static final String KEY_APP_NAME   = "appName";
+    private static final String KEY_WEIGHT     = "weight";
+
+    private final String        input;
+    private int                 pos;
+    private boolean             hasParameters;
+
+    private String              host;
+    private int                 port           = DEFAULT_PORT;
+    private String              appName;
+    private int                 weight         = DEFAULT_WEIGHT;
+
+    private ProviderUrlParser(String input) {
+        this.input = input;
+    }
+
+    /**
+     * 解析节点名
+     *
+     * @param nodeData 经过 URL 编码的节点名
+     * @return 解析结果，无法快速解析时返回 null
+     */
+    static ProviderUrlParser parse(String nodeData) {
+        ProviderUrlParser parser = new ProviderUrlParser(nodeData);
+        return parser.parseScheme() && parser.parseAddress() && parser.parseParameters() ? parser
+            : null;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    String getAppName() {
+        return appName;
+    }
+
+    int getWeight() {
+        return weight;
+    }
+
+    /**
+     * 协议部分，只需要跳过，要求是 scheme:// 的形式
+     */
+    private boolean parseScheme() {
+        int c;
+        while ((c = next()) != ':') {
+            if (!(Character.isLetterOrDigit(c) || c == '+' || c == '-' || c == '.')) {
+                return false;
+            }
+        }
+        return next() == '/' && next() == '/';
+    }
+
+    /**
+     * host[:port]，之后跳过 path，停在参数开始的位置
+     */
+    private boolean parseAddress() {
+        int start = pos;
+        int end;
+        int c;
+        do {
+            end = pos;
+            c = next();
+            if (c == UNSUPPORTED) {
+                return false;
+            }
+        } while (c != ':' && c != '/' && c != '?' && c != END);
+        host = text(start, end);
+
+        if (c == ':') {
+            int digits = 0;
+            int value = 0;
+            while ((c = next()) >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    return false;
+                }
+                value = value * 10 + (c - '0');
+            }
+            if (digits == 0 || c == ':' || c == UNSUPPORTED) {
+                return false;
+            }
+            if (c != '/' && c != '?' && c != END) {
+                // 非数字的端口交给原有流程处理
+                return false;
+            }
+            port = value;
+        }
+
+        if (c == '?') {
+            // 原有流程按第一个 '/' 切分地址，后面还有 '/' 时切分结果不同
+            hasParameters = true;
+            return !containsSlash();
+        }
+        if (c == '/') {
+            // 跳过 path
+            while ((c = next()) != '?' && c != END) {
+                if (c == UNSUPPORTED) {
+                    return false;
+                }
+            }
+            hasParameters = c == '?';
+        }
+        return true;
+    }
+
+    /**
+     * 按 & 和 = 切分参数，只保留应用名和权重；与 split("=") 一致，值在第二个 '=' 处截断
+     */
+    private boolean parseParameters() {
+        if (!hasParameters) {
+            return true;
+        }
+        int c;
+        do {
+            // key
+            boolean isAppName = true;
+            boolean isWeight = true;
+            int length = 0;
+            while ((c = next()) != '=') {
+                if (c < 0 || c == '&') {
+                    // 没有 '=' 的参数在原有流程中会抛出异常
+                    return false;
+                }
+                isAppName = isAppName && length < KEY_APP_NAME.length()
+                            && KEY_APP_NAME.charAt(length) == c;
+                isWeight = isWeight && length < KEY_WEIGHT.length()
+                           && KEY_WEIGHT.charAt(length) == c;
+                length++;
+            }
+            isAppName = isAppName && length == KEY_APP_NAME.length();
+            isWeight = isWeight && length == KEY_WEIGHT.length();
+
+            // value
+            int start = pos;
+            int end;
+            do {
+                end = pos;
+                c = next();
+            } while (c >= 0 && c != '&' && c != '=');
+            while (c == '=' || c >= 0 && c != '&') {
+                c = next();
+            }
+            if (c == UNSUPPORTED) {
+                return false;
+            }
+            if (isAppName) {
+                appName = text(start, end);
+            } else if (isWeight && end > start && !parseWeight(start, end)) {
+                return false;
+            }
+        } while (c == '&');
+        return true;
+    }
+
+    private boolean parseWeight(int start, int end) {
+        if (end - start > MAX_DIGITS) {
+            return false;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * 10 + (c - '0');
+        }
+        weight = value;
+        return true;
+    }
+
+    /**
+     * 读取下一个解码后的字符
+     *
+     * @return 字符，结束时返回 END，遇到多字节字符或非法转义时返回 UNSUPPORTED
+     */
+    private int next() {
+        if (pos >= input.length()) {
+            return END;
+        }
+        char c = input.charAt(pos++);
+        if (c == '+') {
+            return ' ';
+        }
+        if (c != '%') {
+            return c;
+        }
+        if (pos + 2 > input.length()) {
+            return UNSUPPORTED;
+        }
+        int high = Character.digit(input.charAt(pos), 16);
+        int low = Character.digit(input.charAt(pos + 1), 16);
+        if (high < 0 || low < 0) {
+            return UNSUPPORTED;
+        }
+        pos += 2;
+        int b = high << 4 | low;
+        return b < 0x80 ? b : UNSUPPORTED;
+    }
+
+    /**
+     * 取出编码串中 [start, end) 解码后的文本，没有转义字符时直接截取
+     */
+    private String text(int start, int end) {
+        if (!isEscaped(start, end)) {
+            return input.substring(start, end);
+        }
+        int saved = pos;
+        StringBuilder sb = new StringBuilder(end - start);
+        pos = start;
+        while (pos < end) {
+            sb.append((char) next());
+        }
+        pos = saved;
+        return sb.toString();
+    }
+
+    private boolean isEscaped(int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '%' || c == '+') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsSlash() {
+        for (int i = pos; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '/') {
+                return true;
+            }
+            if (c == '%' && i + 2 < input.length() && input.charAt(i + 1) == '2'
+                && (input.charAt(i + 2) == 'F' || input.charAt(i + 2) == 'f')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.constants.SofaDashboardConstants;
+import com.alipay.sofa.dashboard.domain.InstanceKey;
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.dashboard.domain.RpcService;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 与 zookeeper 重连后，重新读取整棵分组树并与 {@link RegistryDataCache} 对账，只写入差异部分。
+ * <p>
+ * 各服务 providers/consumers 节点的读取全部使用异步请求流水线发出，同时在途的请求数受
+ * recoverConcurrency 限制；读取失败或超时的服务不做实例级的对账，避免误删缓存中的数据。
+ * <p>
+ * 差异在 {@link RegistryEventBatcher} 的批处理线程上写入，与节点事件互斥。读取开始之后又收到事件的服务
+ * 以事件为准，不参与本次对账，避免用较旧的读取结果覆盖较新的变更。
+ */
+@Component
+public class RegistryDataReconciler {
+
+    private static final Logger   LOGGER        = LoggerFactory
+                                                    .getLogger(RegistryDataReconciler.class);
+
+    private static final String   PROVIDERS_KEY = "providers";
+
+    private static final String   CONSUMERS_KEY = "consumers";
+
+    /**
+     * 同时在途的异步读请求数
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.zookeeper.recoverConcurrency:64}")
+    private int                   concurrency;
+
+    /**
+     * 一次对账等待读取完成的最长时间，单位毫秒
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.zookeeper.recoverTimeout:30000}")
+    private long                  timeout;
+
+    @Autowired
+    private RegistryDataCache     registryDataCache;
+
+    @Autowired
+    private RegistryEventBatcher  registryEventBatcher;
+
+    /**
+     * 对账在单独的线程中执行，等待中的任务最多一个，重连风暴时不会堆积
+     */
+    private final ExecutorService executor      = new ThreadPoolExecutor(1, 1, 0L,
+                                                    TimeUnit.MILLISECONDS,
+                                                    new LinkedBlockingQueue<>(1),
+                                                    RegistryDataReconciler::newThread,
+                                                    new ThreadPoolExecutor.DiscardPolicy());
+
+    private final AtomicBoolean   pending       = new AtomicBoolean(false);
+
+    /**
+     * 异步触发一次对账，已有对账在排队时直接忽略
+     *
+     * @param client zookeeper client
+     * @param group  分组
+     */
+    public void reconcileAsync(CuratorFramework client, String group) {
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            pending.set(false);
+            try {
+                reconcile(client, group);
+            } catch (Throwable t) {
+                LOGGER.error("Failed to recover registry data of group " + group, t);
+            }
+        });
+    }
+
+    /**
+     * 读取分组下的全部服务和实例，与缓存对账
+     *
+     * @param client zookeeper client
+     * @param group  分组
+     * @return 写入缓存的变更条数
+     * @throws Exception 读取服务列表失败
+     */
+    public int reconcile(CuratorFramework client, String group) throws Exception {
+        long start = System.currentTimeMillis();
+        String root = SofaDashboardConstants.SEPARATOR + group;
+        // 读取之前的事件序号，之后有事件的服务不参与对账
+        long readSequence = registryEventBatcher.currentSequence();
+        List<String> services = client.getChildren().forPath(root);
+
+        Map<String, List<String>> providerNodes = new ConcurrentHashMap<>();
+        Map<String, List<String>> consumerNodes = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(services.size() * 2);
+        Semaphore inFlight = new Semaphore(Math.max(1, concurrency));
+        AtomicInteger failures = new AtomicInteger();
+        for (String service : services) {
+            String servicePath = root + SofaDashboardConstants.SEPARATOR + service
+                                 + SofaDashboardConstants.SEPARATOR;
+            readChildren(client, servicePath + PROVIDERS_KEY, service, providerNodes, inFlight,
+                latch, failures);
+            readChildren(client, servicePath + CONSUMERS_KEY, service, consumerNodes, inFlight,
+                latch, failures);
+        }
+        if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("Recover registry data timeout, {} of {} reads unfinished",
+                latch.getCount(), services.size() * 2);
+        }
+
+        // 先把窗口内的事件写入缓存，再以 zookeeper 上的数据为准对账
+        Map<String, List<String>> providers = snapshot(providerNodes);
+        Map<String, List<String>> consumers = snapshot(consumerNodes);
+        int changes = registryEventBatcher.flushThen(() -> apply(services, providers, consumers,
+            readSequence));
+        registryEventBatcher.clearChangesBefore(readSequence);
+        LOGGER.info("Recover registry data of {} services, {} changes, {} failed reads, cost {} ms",
+            services.size(), changes, failures.get(), System.currentTimeMillis() - start);
+        return changes;
+    }
+
+    /**
+     * 以 zookeeper 上的数据为准，把差异写入缓存
+     *
+     * @param services      zookeeper 上的服务
+     * @param providerNodes 服务 -> providers 节点名，没有读取成功的服务不在其中
+     * @param consumerNodes 服务 -> consumers 节点名，没有读取成功的服务不在其中
+     * @param readSequence  读取之前的事件序号，之后有事件的服务跳过
+     * @return 写入缓存的变更条数
+     */
+    int apply(Collection<String> services, Map<String, List<String>> providerNodes,
+              Map<String, List<String>> consumerNodes, long readSequence) {
+        int changes = 0;
+        Set<String> expected = new HashSet<>(services);
+        Set<String> cached = new HashSet<>(registryDataCache.fetchService().keySet());
+        Set<String> skipped = new HashSet<>();
+        for (String service : cached) {
+            if (registryEventBatcher.changedSince(service, readSequence)) {
+                skipped.add(service);
+            }
+        }
+        for (String service : expected) {
+            if (registryEventBatcher.changedSince(service, readSequence)) {
+                skipped.add(service);
+            }
+        }
+
+        List<RpcService> staleServices = new ArrayList<>();
+        for (String service : cached) {
+            if (!expected.contains(service) && !skipped.contains(service)) {
+                staleServices.add(newService(service));
+            }
+        }
+        if (!staleServices.isEmpty()) {
+            registryDataCache.removeService(staleServices);
+            changes += staleServices.size();
+        }
+        List<RpcService> newServices = new ArrayList<>();
+        for (String service : expected) {
+            if (!cached.contains(service) && !skipped.contains(service)) {
+                newServices.add(newService(service));
+            }
+        }
+        if (!newServices.isEmpty()) {
+            registryDataCache.addService(newServices);
+            changes += newServices.size();
+        }
+
+        for (Map.Entry<String, List<String>> entry : providerNodes.entrySet()) {
+            if (!skipped.contains(entry.getKey())) {
+                changes += reconcileProviders(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : consumerNodes.entrySet()) {
+            if (!skipped.contains(entry.getKey())) {
+                changes += reconcileConsumers(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!skipped.isEmpty()) {
+            LOGGER.info("Skip {} services changed during recovering registry data",
+                skipped.size());
+        }
+        return changes;
+    }
+
+    private int reconcileProviders(String serviceName, List<String> nodes) {
+        Map<InstanceKey, RpcProvider> expected = new HashMap<>();
+        for (String node : nodes) {
+            try {
+                RpcProvider provider = ZookeeperNodeConverter.convert2Provider(serviceName, node);
+                expected.put(provider.toInstanceKey(), provider);
+            } catch (Exception e) {
+                LOGGER.warn("Ignore illegal provider node {} of {}", node, serviceName);
+            }
+        }
+        List<RpcProvider> removed = new ArrayList<>();
+        List<RpcProvider> updated = new ArrayList<>();
+        List<RpcProvider> current = registryDataCache.fetchProvidersByService(serviceName);
+        if (current != null) {
+            for (RpcProvider provider : current) {
+                RpcProvider latest = expected.remove(provider.toInstanceKey());
+                if (latest == null) {
+                    removed.add(provider);
+                } else if (provider.getWeight() != latest.getWeight()
+                           || !Objects.equals(provider.getAppName(), latest.getAppName())
+                           || !Objects.equals(provider.getUrl(), latest.getUrl())) {
+                    updated.add(latest);
+                }
+            }
+        }
+        List<RpcProvider> added = new ArrayList<>(expected.values());
+        if (!removed.isEmpty()) {
+            registryDataCache.removeProviders(serviceName, removed);
+        }
+        if (!added.isEmpty()) {
+            registryDataCache.addProviders(serviceName, added);
+        }
+        if (!updated.isEmpty()) {
+            registryDataCache.updateProviders(serviceName, updated);
+        }
+        return removed.size() + added.size() + updated.size();
+    }
+
+    private int reconcileConsumers(String serviceName, List<String> nodes) {
+        Map<InstanceKey, RpcConsumer> expected = new HashMap<>();
+        for (String node : nodes) {
+            try {
+                RpcConsumer consumer = ZookeeperNodeConverter.convert2Consumer(serviceName, node);
+                expected.put(consumer.toInstanceKey(), consumer);
+            } catch (Exception e) {
+                LOGGER.warn("Ignore illegal consumer node {} of {}", node, serviceName);
+            }
+        }
+        List<RpcConsumer> removed = new ArrayList<>();
+        List<RpcConsumer> updated = new ArrayList<>();
+        List<RpcConsumer> current = registryDataCache.fetchConsumersByService(serviceName);
+        if (current != null) {
+            for (RpcConsumer consumer : current) {
+                RpcConsumer latest = expected.remove(consumer.toInstanceKey());
+                if (latest == null) {
+                    removed.add(consumer);
+                } else if (!Objects.equals(consumer.getAppName(), latest.getAppName())
+                           || !Objects.equals(consumer.getUrl(), latest.getUrl())) {
+                    updated.add(latest);
+                }
+            }
+        }
+        List<RpcConsumer> added = new ArrayList<>(expected.values());
+        if (!removed.isEmpty()) {
+            registryDataCache.removeConsumers(serviceName, removed);
+        }
+        if (!added.isEmpty()) {
+            registryDataCache.addConsumers(serviceName, added);
+        }
+        if (!updated.isEmpty()) {
+            registryDataCache.updateConsumers(serviceName, updated);
+        }
+        return removed.size() + added.size() + updated.size();
+    }
+
+    /**
+     * 发出一个异步 getChildren 请求，节点不存在视为没有子节点
+     */
+    private void readChildren(CuratorFramework client, String path, String service,
+                              Map<String, List<String>> target, Semaphore inFlight,
+                              CountDownLatch latch, AtomicInteger failures)
+        throws InterruptedException {
+        inFlight.acquire();
+        try {
+            client.getChildren().inBackground((c, event) -> {
+                try {
+                    if (event.getResultCode() == KeeperException.Code.OK.intValue()) {
+                        target.put(service, event.getChildren());
+                    } else if (event.getResultCode() == KeeperException.Code.NONODE.intValue()) {
+                        target.put(service, Collections.emptyList());
+                    } else {
+                        failures.incrementAndGet();
+                    }
+                } finally {
+                    inFlight.release();
+                    latch.countDown();
+                }
+            }).forPath(path);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to read children of " + path, e);
+            failures.incrementAndGet();
+            inFlight.release();
+            latch.countDown();
+        }
+    }
+
+    /**
+     * 超时后仍可能有回调写入，这里拷贝一份再对账
+     */
+    private Map<String, List<String>> snapshot(Map<String, List<String>> nodes) {
+        return new HashMap<>(nodes);
+    }
+
+    private RpcService newService(String serviceName) {
+        return RpcService.newBuilder().serviceName(serviceName).build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void setRegistryDataCache(RegistryDataCache registryDataCache) {
+        this.registryDataCache = registryDataCache;
+    }
+
+    void setRegistryEventBatcher(RegistryEventBatcher registryEventBatcher) {
+        this.registryEventBatcher = registryEventBatcher;
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "registry-data-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,515 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 合并 providers/consumers 节点事件后批量写入 {@link RegistryDataCache}
+ * <p>
+ * 应用滚动发布时短时间内会产生大量节点事件，这里在一个时间窗口内先缓存事件，同一节点的多次事件只保留
+ * 净效果（先加后删直接抵消，先删后加视为更新），窗口结束后按服务分组，每组只调用一次缓存写入。
+ * 节点名的解码也推迟到窗口结束时进行，被抵消的事件不再解析。窗口配置为 0 时退化为逐条写入。
+ * <p>
+ * 所有写入都持有同一把锁，窗口到期和外部触发的 flush 都在批处理线程上执行，不会有两个批次并发写入缓存。
+ * 每个事件到达时为所属服务记录一个递增的序号，对账时据此跳过读取之后又有变化的服务。
+ */
+@Component
+public class RegistryEventBatcher {
+
+    private static final Logger               LOGGER          = LoggerFactory
+                                                                    .getLogger(RegistryEventBatcher.class);
+
+    /**
+     * 事件合并窗口，单位毫秒
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.zookeeper.batchWindow:100}")
+    private long                              batchWindow;
+
+    @Autowired
+    private RegistryDataCache                 registryDataCache;
+
+    private final ScheduledThreadPoolExecutor executor        = new ScheduledThreadPoolExecutor(1,
+                                                                    RegistryEventBatcher::newThread);
+
+    /**
+     * 写入缓存的锁，保证批次按顺序逐个写入
+     */
+    private final Object                      applyLock       = new Object();
+
+    /**
+     * 窗口内待处理的事件，key 由节点类型、服务名和节点名组成，按到达顺序保存
+     */
+    private Map<String, PendingEvent>         pending         = new LinkedHashMap<>();
+
+    /**
+     * 事件序号，每个事件递增
+     */
+    private final AtomicLong                  eventSequence   = new AtomicLong();
+
+    /**
+     * 服务名 -> 该服务最近一次事件的序号
+     */
+    private final Map<String, Long>           serviceChanges  = new ConcurrentHashMap<>();
+
+    private final AtomicLong                  receivedEvents  = new AtomicLong();
+
+    private final AtomicLong                  appliedEvents   = new AtomicLong();
+
+    private final AtomicLong                  skippedEvents   = new AtomicLong();
+
+    private final AtomicLong                  batchCount      = new AtomicLong();
+
+    private final AtomicLong                  maxBatchSize    = new AtomicLong();
+
+    private final AtomicLong                  lastBatchSize   = new AtomicLong();
+
+    private final AtomicLong                  totalApplyNanos = new AtomicLong();
+
+    private final AtomicLong                  lastApplyNanos  = new AtomicLong();
+
+    /**
+     * 节点类型
+     */
+    public enum NodeType {
+        PROVIDER, CONSUMER
+    }
+
+    /**
+     * 节点事件
+     */
+    public enum EventType {
+        ADD, REMOVE, UPDATE
+    }
+
+    /**
+     * 提交一个节点事件
+     *
+     * @param nodeType    providers 或 consumers 下的节点
+     * @param eventType   事件类型
+     * @param serviceName 服务名
+     * @param nodeData    节点名，即编码后的 url
+     */
+    public void submit(NodeType nodeType, EventType eventType, String serviceName,
+                       String nodeData) {
+        receivedEvents.incrementAndGet();
+        markServiceChanged(serviceName);
+        PendingEvent event = new PendingEvent(nodeType, eventType, serviceName, nodeData);
+        if (batchWindow <= 0) {
+            List<PendingEvent> single = new ArrayList<>(1);
+            single.add(event);
+            synchronized (applyLock) {
+                apply(single);
+            }
+            return;
+        }
+        boolean schedule;
+        synchronized (this) {
+            schedule = pending.isEmpty();
+            merge(event);
+        }
+        if (schedule) {
+            executor.schedule(this::flushPending, batchWindow, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 立即把窗口内的事件写入缓存，在批处理线程上执行，返回时已写入完成
+     */
+    public void flush() {
+        Future<?> future;
+        try {
+            future = executor.submit(this::flushPending);
+        } catch (RejectedExecutionException e) {
+            // 已关闭，由调用线程写入
+            flushPending();
+            return;
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.error("Failed to flush registry events.", e.getCause());
+        }
+    }
+
+    /**
+     * 在批处理线程上先把窗口内的事件写入缓存，再执行 action，期间不会有其他事件写入缓存
+     *
+     * @param action 需要与事件写入互斥的操作
+     * @param <T>    返回值类型
+     * @return action 的返回值
+     */
+    public <T> T flushThen(Supplier<T> action) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                synchronized (applyLock) {
+                    flushPending();
+                    return action.get();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 已关闭，由调用线程执行
+            synchronized (applyLock) {
+                flushPending();
+                return action.get();
+            }
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for registry events", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 记录服务发生了变化。服务节点本身的增删不经过窗口，由监听器在写入缓存之前调用
+     *
+     * @param serviceName 服务名
+     */
+    public void markServiceChanged(String serviceName) {
+        serviceChanges.put(serviceName, eventSequence.incrementAndGet());
+    }
+
+    /**
+     * 当前的事件序号，对账读取 zookeeper 之前获取
+     *
+     * @return 序号
+     */
+    public long currentSequence() {
+        return eventSequence.get();
+    }
+
+    /**
+     * 服务在指定序号之后是否有新的事件
+     *
+     * @param serviceName 服务名
+     * @param sequence    序号
+     * @return 有新的事件时返回 true
+     */
+    public boolean changedSince(String serviceName, long sequence) {
+        Long last = serviceChanges.get(serviceName);
+        return last != null && last > sequence;
+    }
+
+    /**
+     * 清理不晚于指定序号的记录，之后的对账只关心更新的事件
+     *
+     * @param sequence 序号
+     */
+    public void clearChangesBefore(long sequence) {
+        for (Map.Entry<String, Long> entry : serviceChanges.entrySet()) {
+            if (entry.getValue() <= sequence) {
+                // 只有序号未被新事件更新时才删除
+                serviceChanges.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void flushPending() {
+        synchronized (applyLock) {
+            Map<String, PendingEvent> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+            try {
+                apply(new ArrayList<>(batch.values()));
+            } catch (Throwable t) {
+                // 避免异常导致后续窗口无法调度
+                LOGGER.error("Failed to apply registry events.", t);
+            }
+        }
+    }
+
+    /**
+     * 同一节点的事件合并，只保留净效果
+     */
+    private void merge(PendingEvent event) {
+        String key = event.nodeType.name() + event.serviceName + event.nodeData;
+        PendingEvent previous = pending.get(key);
+        if (previous == null) {
+            pending.put(key, event);
+            return;
+        }
+        if (event.eventType == EventType.REMOVE) {
+            if (previous.eventType == EventType.ADD) {
+                // 窗口内加了又删，缓存里本来就没有
+                pending.remove(key);
+            } else {
+                previous.eventType = EventType.REMOVE;
+            }
+        } else if (event.eventType == EventType.ADD) {
+            // 删了又加，缓存里已有，按更新处理
+            previous.eventType = previous.eventType == EventType.REMOVE ? EventType.UPDATE
+                : EventType.ADD;
+        } else if (previous.eventType == EventType.REMOVE) {
+            previous.eventType = EventType.UPDATE;
+        }
+    }
+
+    /**
+     * 按服务分组写入缓存：同一服务先删除，再新增，最后更新，避免同一实例新节点被旧节点的删除覆盖。
+     * 调用方需持有 applyLock；无法解析的节点只跳过该事件，不影响同一批次的其他事件
+     */
+    private void apply(List<PendingEvent> events) {
+        long start = System.nanoTime();
+        Map<String, List<PendingEvent>> byService = new LinkedHashMap<>();
+        for (PendingEvent event : events) {
+            byService.computeIfAbsent(event.serviceName, k -> new ArrayList<>()).add(event);
+        }
+        for (Map.Entry<String, List<PendingEvent>> entry : byService.entrySet()) {
+            String serviceName = entry.getKey();
+            for (EventType eventType : EventType.values()) {
+                List<RpcProvider> providers = new ArrayList<>();
+                List<RpcConsumer> consumers = new ArrayList<>();
+                for (PendingEvent event : entry.getValue()) {
+                    if (event.eventType != eventType) {
+                        continue;
+                    }
+                    try {
+                        if (event.nodeType == NodeType.PROVIDER) {
+                            providers.add(ZookeeperNodeConverter.convert2Provider(serviceName,
+                                event.nodeData));
+                        } else {
+                            consumers.add(ZookeeperNodeConverter.convert2Consumer(serviceName,
+                                event.nodeData));
+                        }
+                    } catch (Exception e) {
+                        skippedEvents.incrementAndGet();
+                        LOGGER.warn("Ignore illegal {} node {} of {}", event.nodeType,
+                            event.nodeData, serviceName, e);
+                    }
+                }
+                applyProviders(eventType, serviceName, providers);
+                applyConsumers(eventType, serviceName, consumers);
+            }
+        }
+        long cost = System.nanoTime() - start;
+        batchCount.incrementAndGet();
+        appliedEvents.addAndGet(events.size());
+        lastBatchSize.set(events.size());
+        maxBatchSize.accumulateAndGet(events.size(), Math::max);
+        lastApplyNanos.set(cost);
+        totalApplyNanos.addAndGet(cost);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("apply {} registry events of {} services in {} us", events.size(),
+                byService.size(), TimeUnit.NANOSECONDS.toMicros(cost));
+        }
+    }
+
+    private void applyProviders(EventType eventType, String serviceName,
+                                List<RpcProvider> providers) {
+        if (providers.isEmpty()) {
+            return;
+        }
+        switch (eventType) {
+            case REMOVE:
+                registryDataCache.removeProviders(serviceName, providers);
+                break;
+            case ADD:
+                registryDataCache.addProviders(serviceName, providers);
+                break;
+            case UPDATE:
+                registryDataCache.updateProviders(serviceName, providers);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void applyConsumers(EventType eventType, String serviceName,
+                                List<RpcConsumer> consumers) {
+        if (consumers.isEmpty()) {
+            return;
+        }
+        switch (eventType) {
+            case REMOVE:
+                registryDataCache.removeConsumers(serviceName, consumers);
+                break;
+            case ADD:
+                registryDataCache.addConsumers(serviceName, consumers);
+                break;
+            case UPDATE:
+                registryDataCache.updateConsumers(serviceName, consumers);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 事件合并和写入的统计信息
+     *
+     * @return 统计项名称到数值的映射
+     */
+    public Map<String, Number> fetchStats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("eventBatcher.receivedEvents", getReceivedEvents());
+        stats.put("eventBatcher.appliedEvents", getAppliedEvents());
+        stats.put("eventBatcher.skippedEvents", getSkippedEvents());
+        stats.put("eventBatcher.batchCount", getBatchCount());
+        stats.put("eventBatcher.lastBatchSize", getLastBatchSize());
+        stats.put("eventBatcher.maxBatchSize", getMaxBatchSize());
+        stats.put("eventBatcher.lastApplyMicros", getLastApplyMicros());
+        stats.put("eventBatcher.avgApplyMicros", getAvgApplyMicros());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        flush();
+    }
+
+    /**
+     * 收到的事件总数
+     *
+     * @return 事件数
+     */
+    public long getReceivedEvents() {
+        return receivedEvents.get();
+    }
+
+    /**
+     * 合并后实际写入缓存的事件总数
+     *
+     * @return 事件数
+     */
+    public long getAppliedEvents() {
+        return appliedEvents.get();
+    }
+
+    /**
+     * 节点名无法解析而跳过的事件数
+     *
+     * @return 事件数
+     */
+    public long getSkippedEvents() {
+        return skippedEvents.get();
+    }
+
+    /**
+     * 已写入的批次数
+     *
+     * @return 批次数
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * 最近一个批次的大小
+     *
+     * @return 事件数
+     */
+    public long getLastBatchSize() {
+        return lastBatchSize.get();
+    }
+
+    /**
+     * 最大批次的大小
+     *
+     * @return 事件数
+     */
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    /**
+     * 最近一个批次写入缓存的耗时
+     *
+     * @return 耗时，单位微秒
+     */
+    public long getLastApplyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastApplyNanos.get());
+    }
+
+    /**
+     * 平均每个批次写入缓存的耗时
+     *
+     * @return 耗时，单位微秒
+     */
+    public long getAvgApplyMicros() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalApplyNanos.get() / batches);
+    }
+
+    void setBatchWindow(long batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    void setRegistryDataCache(RegistryDataCache registryDataCache) {
+        this.registryDataCache = registryDataCache;
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "registry-event-batcher");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static class PendingEvent {
+
+        private final NodeType nodeType;
+
+        private final String   serviceName;
+
+        private final String   nodeData;
+
+        private EventType      eventType;
+
+        PendingEvent(NodeType nodeType, EventType eventType, String serviceName, String nodeData) {
+            this.nodeType = nodeType;
+            this.eventType = eventType;
+            this.serviceName = serviceName;
+            this.nodeData = nodeData;
+        }
+    }
+}
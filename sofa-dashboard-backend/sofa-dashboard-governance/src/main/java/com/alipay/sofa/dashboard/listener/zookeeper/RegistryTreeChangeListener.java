@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.constants.SofaDashboardConstants;
+import com.alipay.sofa.dashboard.domain.RpcService;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.EventType;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.NodeType;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * 单个 TreeCache 订阅整棵 /sofa-rpc 树时使用的监听器，按节点相对于分组节点的深度分发事件：
+ * <pre>
+ * /{group}/{service}                      服务
+ * /{group}/{service}/providers/{url}      服务提供者
+ * /{group}/{service}/consumers/{url}      服务消费者
+ * </pre>
+ * 其余节点（根节点、providers/consumers 目录本身、configs/overrides 等）直接忽略。
+ */
+@Component
+public class RegistryTreeChangeListener implements TreeCacheListener {
+
+    private static final Logger  LOGGER         = LoggerFactory
+                                                      .getLogger(RegistryTreeChangeListener.class);
+
+    private static final String  PROVIDERS_KEY  = "providers";
+
+    private static final String  CONSUMERS_KEY  = "consumers";
+
+    private static final int     SERVICE_DEPTH  = 1;
+
+    private static final int     INSTANCE_DEPTH = 3;
+
+    @Autowired
+    private RegistryDataCache    registryDataCache;
+
+    @Autowired
+    private RegistryEventBatcher registryEventBatcher;
+
+    @Override
+    public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+        ChildData data = event.getData();
+        if (data == null) {
+            // INITIALIZED 和连接状态相关的事件没有节点数据
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("tree event type : {}", event.getType());
+            }
+            return;
+        }
+        String path = data.getPath();
+        // 去掉开头的 "/{group}/"，剩余部分即为服务及其子节点
+        int groupEnd = path.indexOf(SofaDashboardConstants.SEPARATOR, 1);
+        if (groupEnd < 0 || groupEnd == path.length() - 1) {
+            return;
+        }
+        String[] segments = path.substring(groupEnd + 1).split(SofaDashboardConstants.SEPARATOR);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("tree event type ={},path={}", event.getType(), path);
+        }
+
+        if (segments.length == SERVICE_DEPTH) {
+            onServiceEvent(event.getType(), segments[0]);
+        } else if (segments.length == INSTANCE_DEPTH) {
+            if (PROVIDERS_KEY.equals(segments[1])) {
+                onInstanceEvent(event.getType(), NodeType.PROVIDER, segments[0], segments[2]);
+            } else if (CONSUMERS_KEY.equals(segments[1])) {
+                onInstanceEvent(event.getType(), NodeType.CONSUMER, segments[0], segments[2]);
+            }
+        }
+    }
+
+    private void onServiceEvent(TreeCacheEvent.Type type, String serviceName) {
+        RpcService rpcService = RpcService.newBuilder().serviceName(serviceName).build();
+        if (type == TreeCacheEvent.Type.NODE_ADDED || type == TreeCacheEvent.Type.NODE_REMOVED) {
+            registryEventBatcher.markServiceChanged(serviceName);
+        }
+        switch (type) {
+            case NODE_ADDED:
+                registryDataCache.addService(Collections.singletonList(rpcService));
+                break;
+            case NODE_REMOVED:
+                registryDataCache.removeService(Collections.singletonList(rpcService));
+                break;
+            case NODE_UPDATED:
+                registryDataCache.updateService(rpcService);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onInstanceEvent(TreeCacheEvent.Type type, NodeType nodeType, String serviceName,
+                                 String nodeName) {
+        switch (type) {
+            case NODE_ADDED:
+                registryEventBatcher.submit(nodeType, EventType.ADD, serviceName, nodeName);
+                break;
+            case NODE_REMOVED:
+                registryEventBatcher.submit(nodeType, EventType.REMOVE, serviceName, nodeName);
+                break;
+            case NODE_UPDATED:
+                registryEventBatcher.submit(nodeType, EventType.UPDATE, serviceName, nodeName);
+                break;
+            default:
+                break;
+        }
+    }
+}
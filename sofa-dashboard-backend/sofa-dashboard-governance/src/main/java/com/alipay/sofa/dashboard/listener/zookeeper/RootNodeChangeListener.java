@@ -21,7 +21,6 @@ import com.alipay.sofa.dashboard.constants.SofaDashboardConstants;
 import com.alipay.sofa.dashboard.domain.RpcService;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.curator.framework.recipes.cache.PathChildrenCache;
 import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
 import org.apache.curator.framework.recipes.cache.PathChildrenCacheListener;
 import org.slf4j.Logger;
@@ -48,6 +47,12 @@ public class RootNodeChangeListener implements PathChildrenCacheListener {
     @Autowired
     private ServiceNodeChangeListener serviceNodeChangeListener;
 
+    @Autowired
+    private ChildCacheManager         childCacheManager;
+
+    @Autowired
+    private RegistryEventBatcher      registryEventBatcher;
+
     @Override
     public void childEvent(CuratorFramework client, PathChildrenCacheEvent event) throws Exception {
         String serviceName;
@@ -60,18 +65,14 @@ public class RootNodeChangeListener implements PathChildrenCacheListener {
                 String addPath = event.getData().getPath();
 
                 List<RpcService> services = new ArrayList<>();
-                RpcService service = new RpcService();
-
                 serviceName = StringUtils.substringAfter(addPath,
                     SofaDashboardConstants.SEPARATOR + SofaDashboardConstants.DEFAULT_GROUP
                             + SofaDashboardConstants.SEPARATOR);
-                service.setServiceName(serviceName);
-                services.add(service);
+                services.add(RpcService.newBuilder().serviceName(serviceName).build());
+                registryEventBatcher.markServiceChanged(serviceName);
                 registryDataCache.addService(services);
 
-                PathChildrenCache pathChildrenCache = new PathChildrenCache(client, addPath, true);
-                pathChildrenCache.getListenable().addListener(serviceNodeChangeListener);
-                pathChildrenCache.start();
+                childCacheManager.openServiceCache(client, addPath, serviceNodeChangeListener);
                 break;
             //删了一个provider
             case CHILD_REMOVED:
@@ -81,15 +82,15 @@ public class RootNodeChangeListener implements PathChildrenCacheListener {
 
                 String removePath = event.getData().getPath();
                 List<RpcService> rpcServices = new ArrayList<>();
-                RpcService removeServices = new RpcService();
                 serviceName = StringUtils.substringAfter(removePath,
                     SofaDashboardConstants.SEPARATOR + SofaDashboardConstants.DEFAULT_GROUP
                             + SofaDashboardConstants.SEPARATOR);
 
-                removeServices.setServiceName(serviceName);
-                rpcServices.add(removeServices);
+                rpcServices.add(RpcService.newBuilder().serviceName(serviceName).build());
+                registryEventBatcher.markServiceChanged(serviceName);
                 registryDataCache.removeService(rpcServices);
-
+                // 服务已删除，关闭它和 providers/consumers 上的 cache
+                childCacheManager.closeServiceCache(removePath);
                 break;
             // 更新一个Provider
             case CHILD_UPDATED:
@@ -97,11 +98,11 @@ public class RootNodeChangeListener implements PathChildrenCacheListener {
                     LOGGER.debug("event type ={},event={}", event.getType(), event.getData());
                 }
                 String updatePath = event.getData().getPath();
-                RpcService updateServices = new RpcService();
                 serviceName = StringUtils.substringAfter(updatePath,
                     SofaDashboardConstants.SEPARATOR + SofaDashboardConstants.DEFAULT_GROUP
                             + SofaDashboardConstants.SEPARATOR);
-                updateServices.setServiceName(serviceName);
+                RpcService updateServices = RpcService.newBuilder().serviceName(serviceName)
+                    .build();
                 registryDataCache.updateService(updateServices);
 
                 break;
@@ -16,8 +16,8 @@
  */
 package com.alipay.sofa.dashboard.listener.zookeeper;
 
+import com.alipay.sofa.dashboard.constants.SofaDashboardConstants;
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.curator.framework.recipes.cache.PathChildrenCache;
 import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
 import org.apache.curator.framework.recipes.cache.PathChildrenCacheListener;
 import org.slf4j.Logger;
@@ -43,6 +43,9 @@ public class ServiceNodeChangeListener implements PathChildrenCacheListener {
     @Autowired
     private ConsumerNodeChangeListener consumerNodeChangeListener;
 
+    @Autowired
+    private ChildCacheManager          childCacheManager;
+
     @Override
     public void childEvent(CuratorFramework client, PathChildrenCacheEvent event) throws Exception {
 
@@ -56,13 +59,11 @@ public class ServiceNodeChangeListener implements PathChildrenCacheListener {
                 String path = event.getData().getPath();
 
                 if (path.endsWith(PROVIDERS_KEY)) {
-                    PathChildrenCache cache2 = new PathChildrenCache(client, path, true);
-                    cache2.getListenable().addListener(providerNodeChangeListener);
-                    cache2.start();
+                    childCacheManager.openChildCache(client, servicePath(path), path,
+                        providerNodeChangeListener);
                 } else if (path.endsWith(CONSUMERS_KEY)) {
-                    PathChildrenCache cache2 = new PathChildrenCache(client, path, true);
-                    cache2.getListenable().addListener(consumerNodeChangeListener);
-                    cache2.start();
+                    childCacheManager.openChildCache(client, servicePath(path), path,
+                        consumerNodeChangeListener);
                 }
                 break;
             //删了一个provider
@@ -70,6 +71,8 @@ public class ServiceNodeChangeListener implements PathChildrenCacheListener {
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("event type ={},event={}", event.getType(), event.getData());
                 }
+                String removePath = event.getData().getPath();
+                childCacheManager.closeChildCache(servicePath(removePath), removePath);
                 break;
             // 更新一个Provider
             case CHILD_UPDATED:
@@ -81,4 +84,8 @@ public class ServiceNodeChangeListener implements PathChildrenCacheListener {
                 break;
         }
     }
-}
\ No newline at end of file
+
+    private String servicePath(String path) {
+        return path.substring(0, path.lastIndexOf(SofaDashboardConstants.SEPARATOR));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.rpc.client.ProviderHelper;
+import com.alipay.sofa.rpc.client.ProviderInfo;
+import com.alipay.sofa.rpc.client.ProviderInfoAttrs;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+/**
+ * 把 /sofa-rpc/{service}/providers|consumers 下的节点名转换为 RpcProvider/RpcConsumer
+ * <p>
+ * 原始节点名保存在 url 中作为节点标识：同一地址重启后注册的新节点 startTime/pid 不同，节点名也不同，
+ * 旧节点的删除事件不会误删新节点。
+ */
+public final class ZookeeperNodeConverter {
+
+    private ZookeeperNodeConverter() {
+    }
+
+    /**
+     * 转换 provider 节点
+     *
+     * @param serviceName  服务名
+     * @param providerData 经过 URL 编码的节点名
+     * @return provider
+     */
+    public static RpcProvider convert2Provider(String serviceName, String providerData) {
+        ProviderUrlParser parser = ProviderUrlParser.parse(providerData);
+        if (parser == null) {
+            return convert2ProviderByProviderInfo(serviceName, providerData);
+        }
+        return RpcProvider.newBuilder().serviceName(serviceName).url(providerData)
+            .address(parser.getHost()).port(parser.getPort()).appName(parser.getAppName())
+            .weight(parser.getWeight()).build();
+    }
+
+    /**
+     * 转换 consumer 节点
+     *
+     * @param serviceName  服务名
+     * @param consumerData 经过 URL 编码的节点名
+     * @return consumer
+     */
+    public static RpcConsumer convert2Consumer(String serviceName, String consumerData) {
+        ProviderUrlParser parser = ProviderUrlParser.parse(consumerData);
+        if (parser == null) {
+            return convert2ConsumerByProviderInfo(serviceName, consumerData);
+        }
+        return RpcConsumer.newBuilder().appName(parser.getAppName()).serviceName(serviceName)
+            .url(consumerData).address(parser.getHost()).port(parser.getPort()).build();
+    }
+
+    /**
+     * 先完整解码再由 ProviderHelper 解析，用于快速解析不支持的节点名
+     */
+    static RpcProvider convert2ProviderByProviderInfo(String serviceName, String providerData) {
+        ProviderInfo providerInfo = ProviderHelper.toProviderInfo(decode(providerData));
+
+        String appName = providerInfo.getStaticAttr(ProviderInfoAttrs.ATTR_APP_NAME);
+        return RpcProvider.newBuilder().serviceName(serviceName).url(providerData)
+            .address(providerInfo.getHost()).port(providerInfo.getPort()).appName(appName)
+            .weight(providerInfo.getWeight()).build();
+    }
+
+    static RpcConsumer convert2ConsumerByProviderInfo(String serviceName, String consumerData) {
+        ProviderInfo consumerInfo = ProviderHelper.toProviderInfo(decode(consumerData));
+
+        String appName = consumerInfo.getStaticAttr(ProviderInfoAttrs.ATTR_APP_NAME);
+        return RpcConsumer.newBuilder().appName(appName).serviceName(serviceName)
+            .url(consumerData).address(consumerInfo.getHost()).port(consumerInfo.getPort())
+            .build();
+    }
+
+    private static String decode(String nodeData) {
+        try {
+            return URLDecoder.decode(nodeData, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.alipay.sofa.rpc.config.RegistryConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -40,9 +41,28 @@ public class SofaAdminRegistry implements AdminRegistry {
 
     private static AtomicInteger               checkSumCode = new AtomicInteger(0);
 
+    /**
+     * 按 dataInfoId 增量同步
+     */
+    private static final String                INCREMENTAL  = "incremental";
+
     @Autowired
     private SofaRegistryRestClient             restTemplateClient;
 
+    /**
+     * 同步模式：全局 checksum 变化时，full 全量同步并整体替换缓存，incremental 只同步增减的 dataInfoId
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.sofa.syncMode:full}")
+    private String                             syncMode;
+
+    /**
+     * incremental 模式下全量同步的间隔，单位毫秒；已有 dataInfoId 的 pub/sub 变化最多延迟这么久
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.sofa.fullSyncInterval:600000}")
+    private long                               fullSyncInterval;
+
+    private volatile long                      lastFullSync;
+
     @Override
     public boolean start(RegistryConfig registryConfig) {
         try {
@@ -66,10 +86,19 @@ public class SofaAdminRegistry implements AdminRegistry {
         public void run() {
             try {
                 Integer newCheckVal = restTemplateClient.checkSum();
-                if (checkSumCode.get() == newCheckVal) {
+                boolean incremental = INCREMENTAL.equalsIgnoreCase(syncMode);
+                long now = System.currentTimeMillis();
+                // session 没有单个 dataInfoId 的版本号，增量模式定期全量同步一次，兜底已有服务的数据变化
+                boolean fullSyncDue = incremental && now - lastFullSync >= fullSyncInterval;
+                if (checkSumCode.get() == newCheckVal && !fullSyncDue) {
                     return;
                 }
-                restTemplateClient.syncAllSessionData();
+                if (incremental && !fullSyncDue) {
+                    restTemplateClient.syncIncrementalSessionData();
+                } else {
+                    restTemplateClient.syncAllSessionData();
+                    lastFullSync = now;
+                }
                 // update checkSumCode
                 checkSumCode.compareAndSet(checkSumCode.get(), newCheckVal);
             } catch (Throwable t) {
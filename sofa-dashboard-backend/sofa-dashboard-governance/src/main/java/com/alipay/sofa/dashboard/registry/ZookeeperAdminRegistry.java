@@ -18,6 +18,8 @@ package com.alipay.sofa.dashboard.registry;
 
 import com.alipay.sofa.dashboard.constants.SofaDashboardConstants;
 import com.alipay.sofa.dashboard.listener.RegistryDataChangeListener;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryDataReconciler;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryTreeChangeListener;
 import com.alipay.sofa.dashboard.listener.zookeeper.RootNodeChangeListener;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import com.alipay.sofa.rpc.config.RegistryConfig;
@@ -27,11 +29,13 @@ import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.imps.CuratorFrameworkState;
 import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.framework.recipes.cache.TreeCache;
 import org.apache.curator.framework.state.ConnectionState;
 import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import static com.alipay.sofa.rpc.common.utils.StringUtils.CONTEXT_SEP;
@@ -42,25 +46,63 @@ import static com.alipay.sofa.rpc.common.utils.StringUtils.CONTEXT_SEP;
  */
 public class ZookeeperAdminRegistry implements AdminRegistry {
 
-    private static final Logger    LOGGER = LoggerFactory.getLogger(ZookeeperAdminRegistry.class);
+    private static final Logger        LOGGER                  = LoggerFactory
+                                                                     .getLogger(ZookeeperAdminRegistry.class);
+
+    /**
+     * 订阅模式：每个节点一个 PathChildrenCache
+     */
+    public static final String         SUBSCRIBE_MODE_CHILDREN = "children";
+
+    /**
+     * 订阅模式：整棵分组树一个 TreeCache
+     */
+    public static final String         SUBSCRIBE_MODE_TREE     = "tree";
+
+    /**
+     * TreeCache 只需要到 /{group}/{service}/providers/{url} 这一层
+     */
+    private static final int           TREE_MAX_DEPTH          = 3;
 
     /**
      * 注册中心服务配置
      */
-    protected RegistryConfig       registryConfig;
+    protected RegistryConfig           registryConfig;
 
     /**
      * Zookeeper zkClient
      */
-    private CuratorFramework       zkClient;
+    private CuratorFramework           zkClient;
 
     /**
      * Root path of registry data
      */
-    private String                 rootPath;
+    private String                     rootPath;
+
+    /**
+     * 订阅模式，children 为逐层注册 PathChildrenCache，tree 为单个 TreeCache 监听整棵树
+     */
+    @Value("${com.alipay.sofa.dashboard.registry.zookeeper.subscribeMode:children}")
+    private String                     subscribeMode;
+
+    /**
+     * tree 模式下的全量订阅
+     */
+    private TreeCache                  treeCache;
+
+    /**
+     * 已订阅的分组，重连后按分组对账
+     */
+    private volatile String            subscribedGroup;
+
+    @Autowired
+    private RootNodeChangeListener     rootNodeChangeListener;
+
+    @Autowired
+    private RegistryTreeChangeListener registryTreeChangeListener;
 
     @Autowired
-    private RootNodeChangeListener rootNodeChangeListener;
+    private RegistryDataReconciler     registryDataReconciler;
 
     @Override
     public boolean start(RegistryConfig registryConfig) {
@@ -119,12 +161,24 @@ public class ZookeeperAdminRegistry implements AdminRegistry {
         return zkClient.getState() == CuratorFrameworkState.STARTED;
     }
 
+    /**
+     * 重连期间可能丢失节点事件，重新读取注册中心数据并与缓存对账
+     */
     private void recoverRegistryData() {
-        //TODO 碧远
+        String group = subscribedGroup;
+        if (group == null) {
+            return;
+        }
+        registryDataReconciler.reconcileAsync(zkClient, group);
     }
 
     @Override
     public void subscribe(String group, RegistryDataChangeListener listener) {
+        subscribedGroup = group;
+        if (SUBSCRIBE_MODE_TREE.equalsIgnoreCase(subscribeMode)) {
+            subscribeTree(group);
+            return;
+        }
         // 注册Consumer节点
         try {
             PathChildrenCache pathChildrenCache = new PathChildrenCache(zkClient,
@@ -139,4 +193,23 @@ public class ZookeeperAdminRegistry implements AdminRegistry {
         }
 
     }
-}
\ No newline at end of file
+
+    /**
+     * 用一个递归 TreeCache 监听整个分组，事件按路径深度交给 {@link RegistryTreeChangeListener} 处理，
+     * 避免每个服务、每个 providers/consumers 目录各自注册一个 PathChildrenCache。
+     *
+     * @param group 分组
+     */
+    private void subscribeTree(String group) {
+        try {
+            // 节点数据不参与解析（信息都在节点名里），不缓存以节省内存
+            treeCache = TreeCache.newBuilder(zkClient, SofaDashboardConstants.SEPARATOR + group)
+                .setCacheData(false).setMaxDepth(TREE_MAX_DEPTH).build();
+            treeCache.getListenable().addListener(registryTreeChangeListener);
+            treeCache.start();
+        } catch (Exception e) {
+            throw new SofaRpcRuntimeException("Failed to subscribe tree of group " + group
+                                              + " from zookeeperRegistry!", e);
+        }
+    }
+}
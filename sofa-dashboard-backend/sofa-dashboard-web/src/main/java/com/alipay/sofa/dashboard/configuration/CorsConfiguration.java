@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.dashboard.configuration;
 
+import com.alipay.sofa.dashboard.utils.PaginationUtils;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -31,6 +32,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class CorsConfiguration implements WebMvcConfigurer {
     @Override
     public void addCorsMappings(CorsRegistry registry) {
-        registry.addMapping("/**").allowedMethods("*").allowedOrigins("*").allowedHeaders("*");
+        registry.addMapping("/**").allowedMethods("*").allowedOrigins("*").allowedHeaders("*")
+            .exposedHeaders(PaginationUtils.TOTAL_COUNT_HEADER);
     }
 }
@@ -18,12 +18,14 @@ package com.alipay.sofa.dashboard.controller;
 
 import com.alipay.sofa.dashboard.model.ApplicationInfo;
 import com.alipay.sofa.dashboard.spi.AppService;
+import com.alipay.sofa.dashboard.utils.ETagUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -34,11 +36,22 @@ import java.util.List;
 @RequestMapping("/api/application")
 public class ApplicationController {
 
+    private static final String ETAG_SCOPE = "application";
+
     @Autowired
-    private AppService appService;
+    private AppService          appService;
 
     @GetMapping
-    public List<ApplicationInfo> getApplication(@RequestParam(value = "keyword", required = false) String keyword) {
+    public List<ApplicationInfo> getApplication(@RequestParam(value = "keyword", required = false) String keyword,
+                                                @RequestParam(value = "limit", required = false) Integer limit,
+                                                WebRequest request) {
+        // 数据未变化时直接返回 304
+        if (request.checkNotModified(ETagUtils.of(ETAG_SCOPE, appService.fetchVersion()))) {
+            return null;
+        }
+        if (limit != null) {
+            return appService.getStatisticsByKeyword(keyword, limit);
+        }
         return StringUtils.isEmpty(keyword) ? appService.getAllStatistics() : appService
             .getStatisticsByKeyword(keyword);
     }
@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.dashboard.controller;
 
+import com.alipay.sofa.dashboard.client.model.common.Application;
 import com.alipay.sofa.dashboard.client.model.common.HostAndPort;
 import com.alipay.sofa.dashboard.client.model.env.EnvironmentDescriptor;
 import com.alipay.sofa.dashboard.client.model.env.PropertySourceDescriptor;
@@ -25,11 +26,14 @@ import com.alipay.sofa.dashboard.client.model.logger.LoggersDescriptor;
 import com.alipay.sofa.dashboard.client.model.mappings.MappingsDescriptor;
 import com.alipay.sofa.dashboard.client.model.memory.MemoryDescriptor;
 import com.alipay.sofa.dashboard.client.model.thread.ThreadSummaryDescriptor;
+import com.alipay.sofa.dashboard.model.InstanceHealthRecord;
 import com.alipay.sofa.dashboard.model.InstanceRecord;
+import com.alipay.sofa.dashboard.model.MetricSeries;
 import com.alipay.sofa.dashboard.model.RecordResponse;
 import com.alipay.sofa.dashboard.model.StampedValueEntity;
 import com.alipay.sofa.dashboard.spi.AppService;
 import com.alipay.sofa.dashboard.spi.MonitorService;
+import com.alipay.sofa.dashboard.utils.ETagUtils;
 import com.alipay.sofa.dashboard.utils.HostPortUtils;
 import com.alipay.sofa.dashboard.utils.MapUtils;
 import com.alipay.sofa.dashboard.utils.TreeNodeConverter;
@@ -40,6 +44,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -58,24 +63,83 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/instance")
 public class InstanceController {
 
+    private static final String ETAG_SCOPE         = "application";
+
+    private static final String UNKNOWN_STATUS     = "UNKNOWN";
+
+    /**
+     * 时间序列接口只返回毫秒时间戳，由前端格式化
+     */
+    private static final String TIME_FORMAT_EPOCH  = "epoch";
+
+    /**
+     * 降采样序列默认查询最近 5 分钟，每 10 秒一个桶
+     */
+    private static final String DEFAULT_RANGE      = "300000";
+
+    private static final String DEFAULT_RESOLUTION = "10000";
+
     @Autowired
-    private AppService     applicationService;
+    private AppService          applicationService;
 
     @Autowired
-    private MonitorService service;
+    private MonitorService      service;
 
     @GetMapping
     public List<InstanceRecord> instances(
-        @RequestParam(value = "applicationName", required = false) String applicationName) {
+        @RequestParam(value = "applicationName", required = false) String applicationName,
+        WebRequest request) {
         // 这里默认情况如果没有传入 applicationName，前端应不展示任何数据
         if (StringUtils.isEmpty(applicationName)){
             return new ArrayList<>();
         }
+        // 实例数据未变化时直接返回 304
+        if (request.checkNotModified(ETagUtils.of(ETAG_SCOPE,
+            applicationService.fetchVersion()))) {
+            return null;
+        }
         return applicationService.getInstancesByName(applicationName).stream()
             .map(InstanceRecord::new)
             .collect(Collectors.toList());
     }
 
+    /**
+     * 应用下全部实例的健康状态，所有实例的健康数据通过一次批量查询获取
+     *
+     * @param applicationName 应用名
+     * @return 实例及其健康状态，没有健康数据的实例状态为 UNKNOWN
+     */
+    @GetMapping("/health")
+    public List<InstanceHealthRecord> instancesHealth(
+        @RequestParam(value = "applicationName", required = false) String applicationName) {
+        if (StringUtils.isEmpty(applicationName)) {
+            return new ArrayList<>();
+        }
+        List<Application> instances = applicationService.getInstancesByName(applicationName);
+        List<HostAndPort> addresses = instances.stream()
+            .map(it -> new HostAndPort(it.getHostName(), it.getPort()))
+            .collect(Collectors.toList());
+        Map<HostAndPort, HealthDescriptor> healthMap = service.fetchHealth(addresses);
+
+        List<InstanceHealthRecord> result = new ArrayList<>(instances.size());
+        for (int i = 0; i < instances.size(); i++) {
+            HealthDescriptor descriptor = healthMap.get(addresses.get(i));
+            String status = descriptor == null ? UNKNOWN_STATUS : descriptor.getStatus();
+            result.add(new InstanceHealthRecord(instances.get(i), status));
+        }
+        return result;
+    }
+
+    /**
+     * 实例数据本地缓存的统计信息，用于观察反序列化缓存的命中率和本地指标缓冲区的内存占用
+     *
+     * @return 统计项名称到数值的映射
+     */
+    @GetMapping("/cache-stats")
+    public Map<String, Number> cacheStats() {
+        return service.fetchCacheStats();
+    }
+
     @GetMapping("/{instanceId}/env")
     public RecordResponse getEnv(
         @PathVariable("instanceId") String instanceId) {
@@ -138,7 +202,7 @@ public class InstanceController {
         //
         if (descriptor == null) {
             descriptor = new HealthDescriptor();
-            descriptor.setStatus("UNKNOWN");
+            descriptor.setStatus(UNKNOWN_STATUS);
         }
 
         return RecordResponse
@@ -187,15 +251,55 @@ public class InstanceController {
             .build();
     }
 
+    /**
+     * 内存时间序列，timeFormat=epoch 时不返回格式化的时间，只返回 epochMillis
+     */
     @GetMapping("/{instanceId}/memory")
-    public List<StampedValueEntity<MemoryDescriptor>> getMemoryRecords(@PathVariable("instanceId") String instanceId) {
+    public List<StampedValueEntity<MemoryDescriptor>> getMemoryRecords(@PathVariable("instanceId") String instanceId,
+                                                                       @RequestParam(value = "timeFormat", required = false) String timeFormat) {
         HostAndPort hostAndPort = HostPortUtils.getById(instanceId);
-        return service.fetchMemoryInfo(hostAndPort);
+        return service.fetchMemoryInfo(hostAndPort, !TIME_FORMAT_EPOCH.equals(timeFormat));
     }
 
+    /**
+     * 线程时间序列，timeFormat=epoch 时不返回格式化的时间，只返回 epochMillis
+     */
     @GetMapping("/{instanceId}/thread")
-    public List<StampedValueEntity<ThreadSummaryDescriptor>> getThreadRecords(@PathVariable("instanceId") String instanceId) {
+    public List<StampedValueEntity<ThreadSummaryDescriptor>> getThreadRecords(@PathVariable("instanceId") String instanceId,
+                                                                              @RequestParam(value = "timeFormat", required = false) String timeFormat) {
+        HostAndPort hostAndPort = HostPortUtils.getById(instanceId);
+        return service.fetchThreadInfo(hostAndPort, !TIME_FORMAT_EPOCH.equals(timeFormat));
+    }
+
+    /**
+     * 内存降采样序列，每个数值字段按 resolution 分桶返回 min/max/avg
+     *
+     * @param instanceId 实例 id
+     * @param range      截止到当前的时间范围(ms)
+     * @param resolution 每个桶的时间跨度(ms)
+     * @return 降采样后的序列
+     */
+    @GetMapping("/{instanceId}/memory/series")
+    public MetricSeries getMemorySeries(@PathVariable("instanceId") String instanceId,
+                                        @RequestParam(value = "range", defaultValue = DEFAULT_RANGE) long range,
+                                        @RequestParam(value = "resolution", defaultValue = DEFAULT_RESOLUTION) long resolution) {
+        HostAndPort hostAndPort = HostPortUtils.getById(instanceId);
+        return service.fetchMemorySeries(hostAndPort, range, resolution);
+    }
+
+    /**
+     * 线程降采样序列，每个数值字段按 resolution 分桶返回 min/max/avg
+     *
+     * @param instanceId 实例 id
+     * @param range      截止到当前的时间范围(ms)
+     * @param resolution 每个桶的时间跨度(ms)
+     * @return 降采样后的序列
+     */
+    @GetMapping("/{instanceId}/thread/series")
+    public MetricSeries getThreadSeries(@PathVariable("instanceId") String instanceId,
+                                       @RequestParam(value = "range", defaultValue = DEFAULT_RANGE) long range,
+                                       @RequestParam(value = "resolution", defaultValue = DEFAULT_RESOLUTION) long resolution) {
         HostAndPort hostAndPort = HostPortUtils.getById(instanceId);
-        return service.fetchThreadInfo(hostAndPort);
+        return service.fetchThreadSeries(hostAndPort, range, resolution);
     }
 }
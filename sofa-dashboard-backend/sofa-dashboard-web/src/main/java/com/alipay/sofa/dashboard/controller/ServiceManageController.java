@@ -16,27 +16,35 @@
  */
 package com.alipay.sofa.dashboard.controller;
 
-import com.alipay.sofa.common.utils.StringUtil;
 import com.alipay.sofa.dashboard.cache.RegistryDataCache;
 import com.alipay.sofa.dashboard.domain.RpcConsumer;
 import com.alipay.sofa.dashboard.domain.RpcProvider;
-import com.alipay.sofa.dashboard.domain.RpcService;
+import com.alipay.sofa.dashboard.listener.zookeeper.ChildCacheManager;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher;
+import com.alipay.sofa.dashboard.model.AppServiceSummaryModel;
 import com.alipay.sofa.dashboard.model.ServiceAppModel;
 import com.alipay.sofa.dashboard.model.ServiceModel;
+import com.alipay.sofa.dashboard.stream.RegistryChangeStreamer;
+import com.alipay.sofa.dashboard.utils.ETagUtils;
+import com.alipay.sofa.dashboard.utils.PaginationUtils;
 import com.alipay.sofa.rpc.common.utils.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
 import java.net.URLDecoder;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * 服务治理
@@ -48,60 +56,94 @@ import java.util.Set;
 @RequestMapping("/api/service")
 public class ServiceManageController {
 
+    private static final String    SORT_SERVICE_ID   = "serviceId";
+
+    private static final String    SORT_PROVIDER_NUM = "providerNum";
+
+    private static final String    SORT_CONSUMER_NUM = "consumerNum";
+
+    private static final String    ORDER_DESC        = "desc";
+
+    private static final String    ETAG_SCOPE        = "registry";
+
+    @Autowired
+    private RegistryDataCache      registryDataCache;
+
     @Autowired
-    private RegistryDataCache registryDataCache;
+    private RegistryChangeStreamer registryChangeStreamer;
 
+    @Autowired
+    private RegistryEventBatcher   registryEventBatcher;
+
+    @Autowired
+    private ChildCacheManager      childCacheManager;
+
+    /**
+     * 获取服务列表-服务维度
+     * <p>
+     * 直接读取缓存中按服务维护的模型。传入 page 和 size 时在服务端分页，总条数通过响应头
+     * {@link PaginationUtils#TOTAL_COUNT_HEADER} 返回；sort 支持 serviceId、providerNum、consumerNum
+     *
+     * @return
+     */
     @GetMapping("/all-service")
-    public List<ServiceModel> queryServiceListByService(@RequestParam("query") String query) {
-        List<ServiceModel> data = new ArrayList<>();
-        Map<String, RpcService> rpcServices = registryDataCache.fetchService();
-        for (Map.Entry<String, RpcService> rpcServiceEntry : rpcServices.entrySet()) {
-            final String serviceName = rpcServiceEntry.getKey();
-            ServiceModel model = fetchServiceModel(serviceName);
-            if (model != null && (serviceName.contains(query) || StringUtils.isBlank(query))) {
-                data.add(model);
+    public List<ServiceModel> queryServiceListByService(@RequestParam("query") String query,
+                                                        @RequestParam(value = "page", required = false) Integer page,
+                                                        @RequestParam(value = "size", required = false) Integer size,
+                                                        @RequestParam(value = "sort", required = false) String sort,
+                                                        @RequestParam(value = "order", required = false) String order,
+                                                        WebRequest request,
+                                                        HttpServletResponse response) {
+        if (notModified(request)) {
+            return null;
+        }
+        List<ServiceModel> data;
+        if (StringUtils.isBlank(query)) {
+            data = registryDataCache.fetchServiceModels();
+        } else {
+            // 检索结果已按匹配程度排序，未指定 sort 时保持该顺序
+            data = new ArrayList<>();
+            for (String serviceName : registryDataCache.searchServices(query, Integer.MAX_VALUE)) {
+                ServiceModel model = registryDataCache.fetchServiceModel(serviceName);
+                if (model != null) {
+                    data.add(model);
+                }
             }
         }
-        return data;
+        Comparator<ServiceModel> comparator = serviceModelComparator(sort);
+        if (comparator != null) {
+            data.sort(ORDER_DESC.equalsIgnoreCase(order) ? comparator.reversed() : comparator);
+        }
+        response.setHeader(PaginationUtils.TOTAL_COUNT_HEADER, String.valueOf(data.size()));
+        return PaginationUtils.page(data, page, size);
     }
 
     /**
      * 获取服务列表-应用维度
+     * <p>
+     * 每个应用只返回一次，附带提供和消费的服务数，按应用名排序。传入 page 和 size 时在服务端分页，
+     * 总条数通过响应头 {@link PaginationUtils#TOTAL_COUNT_HEADER} 返回
      *
      * @return
      */
     @GetMapping("/all-app")
-    public List<Map<String, String>> queryServiceListByApp(@RequestParam("query") String query) {
-        List<Map<String, String>> data = new ArrayList<>();
-        Map<String, RpcService> rpcServices = registryDataCache.fetchService();
-        for (Map.Entry<String, RpcService> rpcServiceEntry : rpcServices.entrySet()) {
-            final String serviceName = rpcServiceEntry.getKey();
-            List<RpcProvider> providers = registryDataCache.fetchProvidersByService(serviceName);
-            List<RpcConsumer> consumers = registryDataCache.fetchConsumersByService(serviceName);
-            if (providers != null && providers.size() > 0) {
-                providers.forEach((provider) -> {
-                    if (provider.getAppName() != null && !data.contains(provider.getAppName())) {
-                        Map<String, String> item = new HashMap<>();
-                        item.put("appName", provider.getAppName());
-                        if (provider.getAppName().contains(query) || StringUtils.isBlank(query)) {
-                            data.add(item);
-                        }
-                    }
-                });
-            }
-            if (consumers != null && consumers.size() > 0) {
-                consumers.forEach((consumer) -> {
-                    if (consumer.getAppName() != null && !data.contains(consumer.getAppName())) {
-                        Map<String, String> item = new HashMap<>();
-                        item.put("appName", consumer.getAppName());
-                        if (consumer.getAppName().contains(query) || StringUtils.isBlank(query)) {
-                            data.add(item);
-                        }
-                    }
-                });
+    public List<AppServiceSummaryModel> queryServiceListByApp(@RequestParam("query") String query,
+                                                              @RequestParam(value = "page", required = false) Integer page,
+                                                              @RequestParam(value = "size", required = false) Integer size,
+                                                              WebRequest request,
+                                                              HttpServletResponse response) {
+        if (notModified(request)) {
+            return null;
+        }
+        List<AppServiceSummaryModel> data = new ArrayList<>();
+        for (AppServiceSummaryModel summary : registryDataCache.fetchAppSummaries()) {
+            if (StringUtils.isBlank(query) || summary.getAppName().contains(query)) {
+                data.add(summary);
             }
         }
-        return data;
+        data.sort(Comparator.comparing(AppServiceSummaryModel::getAppName));
+        response.setHeader(PaginationUtils.TOTAL_COUNT_HEADER, String.valueOf(data.size()));
+        return PaginationUtils.page(data, page, size);
     }
 
     /**
@@ -111,36 +153,14 @@ public class ServiceManageController {
      * @return
      */
     @GetMapping("service-app")
-    public ServiceAppModel queryServiceByAppName(@RequestParam("appName") String appName) {
-        List<String> providersData = new ArrayList<>();
-        List<String> consumersData = new ArrayList<>();
-        ServiceAppModel result = new ServiceAppModel();
-        Map<String, RpcService> rpcServices = registryDataCache.fetchService();
-        for (Map.Entry<String, RpcService> rpcServiceEntry : rpcServices.entrySet()) {
-            final String serviceName = rpcServiceEntry.getKey();
-            List<RpcProvider> providers = registryDataCache.fetchProvidersByService(serviceName);
-            List<RpcConsumer> consumers = registryDataCache.fetchConsumersByService(serviceName);
-            if (providers != null && providers.size() > 0) {
-                providers.forEach((provider) -> {
-                    if (provider.getAppName() != null && appName.equals(provider.getAppName())
-                        && !providersData.contains(serviceName)) {
-                        providersData.add(serviceName);
-                    }
-                });
-            }
-            if (consumers != null && consumers.size() > 0) {
-                consumers.forEach((consumer) -> {
-                    if (consumer.getAppName() != null && appName.contains(consumer.getAppName())) {
-                        if (consumer.getAppName() != null && appName.equals(consumer.getAppName())
-                            && !consumersData.contains(serviceName)) {
-                            consumersData.add(serviceName);
-                        }
-                    }
-                });
-            }
+    public ServiceAppModel queryServiceByAppName(@RequestParam("appName") String appName,
+                                                 WebRequest request) {
+        if (notModified(request)) {
+            return null;
         }
-        result.setConsumers(consumersData);
-        result.setProviders(providersData);
+        ServiceAppModel result = new ServiceAppModel();
+        result.setConsumers(new ArrayList<>(registryDataCache.fetchConsumedServicesByApp(appName)));
+        result.setProviders(new ArrayList<>(registryDataCache.fetchProvidedServicesByApp(appName)));
         return result;
     }
 
@@ -158,7 +178,11 @@ public class ServiceManageController {
      * @return
      */
     @GetMapping("query/providers")
-    public List<RpcProvider> queryServiceProviders(@RequestParam("dataid") String serviceName) {
+    public List<RpcProvider> queryServiceProviders(@RequestParam("dataid") String serviceName,
+                                                   WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         String dataId = URLDecoder.decode(serviceName);
         return fetchProviderData(dataId);
     }
@@ -169,7 +193,11 @@ public class ServiceManageController {
      * @return
      */
     @GetMapping("query/consumers")
-    public List<RpcConsumer> queryServiceConsumers(@RequestParam("dataid") String serviceName) {
+    public List<RpcConsumer> queryServiceConsumers(@RequestParam("dataid") String serviceName,
+                                                   WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         String dataId = URLDecoder.decode(serviceName);
         return fetchConsumerData(dataId);
     }
@@ -180,54 +208,94 @@ public class ServiceManageController {
      * @return
      */
     @GetMapping("query/services")
-    public List<ServiceModel> queryService(@RequestParam("serviceName") String serviceName) {
+    public List<ServiceModel> queryService(@RequestParam("serviceName") String serviceName,
+                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                           WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         List<ServiceModel> data = new ArrayList<>();
-
-        Map<String, RpcService> rpcServices = registryDataCache.fetchService();
-        for (Map.Entry<String, RpcService> rpcServiceEntry : rpcServices.entrySet()) {
-            final String currentServiceName = rpcServiceEntry.getKey();
-            if (StringUtil.contains(currentServiceName, serviceName)) {
-                ServiceModel model = fetchServiceModel(currentServiceName);
-                data.add(model);
+        int maxCount = limit == null ? Integer.MAX_VALUE : limit;
+        // 检索和读取模型之间服务可能已被删除，跳过这些服务，缺少的名额扩大检索范围补足
+        int searchCount = maxCount;
+        while (true) {
+            List<String> serviceNames = registryDataCache.searchServices(serviceName, searchCount);
+            data.clear();
+            for (String currentServiceName : serviceNames) {
+                if (data.size() >= maxCount) {
+                    break;
+                }
+                ServiceModel model = registryDataCache.fetchServiceModel(currentServiceName);
+                if (model != null) {
+                    data.add(model);
+                }
+            }
+            if (data.size() >= maxCount || serviceNames.size() < searchCount) {
+                break;
             }
+            searchCount = (int) Math.min(Integer.MAX_VALUE,
+                (long) searchCount + maxCount - data.size());
         }
 
         return data;
     }
 
     /**
-     * 模型转换
+     * 注册数据同步的统计信息，用于观察 zookeeper 节点事件的合并批次大小、写入缓存的耗时，
+     * 以及当前打开的 PathChildrenCache 和 watch 数量
+     *
+     * @return 统计项名称到数值的映射
+     */
+    @GetMapping("registry-stats")
+    public Map<String, Number> registryStats() {
+        Map<String, Number> stats = new LinkedHashMap<>(registryEventBatcher.fetchStats());
+        stats.putAll(childCacheManager.fetchStats());
+        return stats;
+    }
+
+    /**
+     * 以 Server-Sent Events 推送服务、provider、consumer 的增量变更
+     * <p>
+     * 事件 id 是数据版本号，断线重连时浏览器会通过 Last-Event-ID 带回，期间有遗漏则先收到一次 resync
      *
-     * @param serviceName
      * @return
      */
-    private ServiceModel fetchServiceModel(String serviceName) {
-        ServiceModel model = new ServiceModel();
-        model.setServiceId(serviceName);
-        String consumerNum = "0";
-        String providerNum = "0";
-        List<RpcConsumer> consumerSize = registryDataCache.fetchConsumersByService(serviceName);
-        if (consumerSize != null) {
-            consumerNum = String.valueOf(consumerSize.size());
-        }
-        model.setServiceConsumerAppNum(consumerNum);
-        List<RpcProvider> providerSize = registryDataCache.fetchProvidersByService(serviceName);
-        if (providerSize != null) {
-            providerNum = String.valueOf(providerSize.size());
-            Set<String> appSet = new HashSet<>();
-            for (RpcProvider provider : providerSize) {
-                appSet.add(provider.getAppName());
-            }
-            //接口本身没有app信息，所以从服务端取
-            model
-                .setServiceProviderAppName(StringUtils.joinWithComma(appSet.toArray(new String[0])));
-        }
-        model.setServiceProviderAppNum(providerNum);
-        // 服务提供方和服务消费方都没有，则不展示
-        if (model.getServiceConsumerAppNum().equals("0")
-            && model.getServiceProviderAppNum().equals("0")) {
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return registryChangeStreamer.subscribe(lastEventId);
+    }
+
+    /**
+     * 按注册数据的版本号设置 ETag，客户端的 If-None-Match 与之相同时直接返回 304，不再计算和序列化结果
+     *
+     * @param request 请求
+     * @return 数据未变化时返回 true
+     */
+    private boolean notModified(WebRequest request) {
+        return request.checkNotModified(ETagUtils.of(ETAG_SCOPE, registryDataCache.fetchVersion()));
+    }
+
+    /**
+     * 服务列表的排序方式
+     *
+     * @param sort 排序字段
+     * @return 未指定或不支持的字段返回 null，保持缓存中的顺序
+     */
+    private static Comparator<ServiceModel> serviceModelComparator(String sort) {
+        if (StringUtils.isBlank(sort)) {
             return null;
         }
-        return model;
+        switch (sort) {
+            case SORT_SERVICE_ID:
+                return Comparator.comparing(ServiceModel::getServiceId);
+            case SORT_PROVIDER_NUM:
+                return Comparator.comparingInt(model -> Integer.parseInt(model
+                    .getServiceProviderAppNum()));
+            case SORT_CONSUMER_NUM:
+                return Comparator.comparingInt(model -> Integer.parseInt(model
+                    .getServiceConsumerAppNum()));
+            default:
+                return null;
+        }
     }
 }
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.stream;
+
+import com.alipay.sofa.dashboard.cache.RegistryChangeEvent;
+import com.alipay.sofa.dashboard.cache.RegistryChangeListener;
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 把注册中心数据的变更以 Server-Sent Events 推送给前端
+ * <p>
+ * 每个客户端有一个有界的缓冲区，由少量发送线程轮流写出。客户端消费过慢导致缓冲区写满时丢弃积压的变更，
+ * 改为发送一次 resync 事件，客户端收到后重新拉取全量数据。注册中心没有变更时不产生任何开销。
+ */
+@Component
+public class RegistryChangeStreamer implements RegistryChangeListener {
+
+    private static final Logger      LOGGER       = LoggerFactory
+                                                        .getLogger(RegistryChangeStreamer.class);
+
+    /**
+     * 增量变更事件
+     */
+    public static final String       EVENT_DELTA  = "delta";
+
+    /**
+     * 客户端需要重新拉取全量数据
+     */
+    public static final String       EVENT_RESYNC = "resync";
+
+    @Value("${com.alipay.sofa.dashboard.stream.bufferSize:256}")
+    private int                      bufferSize   = 256;
+
+    @Value("${com.alipay.sofa.dashboard.stream.timeout:1800000}")
+    private long                     timeout      = 1800000;
+
+    @Value("${com.alipay.sofa.dashboard.stream.sendThreads:4}")
+    private int                      sendThreads  = 4;
+
+    @Autowired
+    private RegistryDataCache        registryDataCache;
+
+    private final Set<Subscriber>    subscribers  = ConcurrentHashMap.newKeySet();
+
+    private volatile ExecutorService sendExecutor;
+
+    @PostConstruct
+    public void start() {
+        int threads = Math.max(1, sendThreads);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(), RegistryChangeStreamer::newThread);
+        executor.allowCoreThreadTimeOut(true);
+        sendExecutor = executor;
+        registryDataCache.addChangeListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        registryDataCache.removeChangeListener(this);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        if (sendExecutor != null) {
+            sendExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 订阅变更
+     *
+     * @param lastVersion 客户端最后收到的版本号，与当前版本不一致时先推送一次 resync
+     * @return 事件流
+     */
+    public SseEmitter subscribe(Long lastVersion) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(emitter, Math.max(1, bufferSize));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        if (lastVersion != null && lastVersion != registryDataCache.fetchVersion()) {
+            subscriber.requestResync();
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onChange(RegistryChangeEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    /**
+     * 当前订阅的客户端数
+     *
+     * @return 客户端数
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "registry-change-sender");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private class Subscriber implements Runnable {
+
+        private final SseEmitter                         emitter;
+
+        private final BlockingQueue<RegistryChangeEvent> queue;
+
+        private final AtomicBoolean                      scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean                      resync    = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(RegistryChangeEvent event) {
+            if (event.getCategory() == RegistryChangeEvent.Category.RESYNC || !queue.offer(event)) {
+                requestResync();
+                return;
+            }
+            schedule();
+        }
+
+        void requestResync() {
+            // 积压的增量已经没有意义，直接丢弃
+            resync.set(true);
+            queue.clear();
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    sendExecutor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (resync.getAndSet(false)) {
+                    emitter.send(SseEmitter.event()
+                        .id(String.valueOf(registryDataCache.fetchVersion())).name(EVENT_RESYNC)
+                        .data(EVENT_RESYNC));
+                }
+                RegistryChangeEvent event;
+                while (!resync.get() && (event = queue.poll()) != null) {
+                    emitter.send(SseEmitter.event().id(String.valueOf(event.getVersion()))
+                        .name(EVENT_DELTA).data(event));
+                }
+            } catch (Exception e) {
+                // 客户端已断开
+                LOGGER.debug("Failed to send registry change, close the stream.", e);
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (resync.get() || !queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
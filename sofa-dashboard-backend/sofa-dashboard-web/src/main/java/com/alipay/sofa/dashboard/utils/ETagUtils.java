@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.utils;
+
+/**
+ * 基于数据版本号的 ETag
+ * <p>
+ * 版本号只在进程内递增，ETag 中带上进程启动时间，重启后旧的 ETag 不会误判为未修改
+ */
+public final class ETagUtils {
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETagUtils() {
+    }
+
+    /**
+     * 生成 ETag
+     *
+     * @param scope   数据来源，不同来源的版本号互不相关
+     * @param version 数据版本号
+     * @return ETag 的值，不含引号
+     */
+    public static String of(String scope, long version) {
+        return scope + "-" + EPOCH + "-" + version;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列表接口的服务端分页
+ * <p>
+ * 页码从 1 开始，总条数通过 {@link #TOTAL_COUNT_HEADER} 响应头返回，响应体仍然是数组，未传分页参数时返回全部数据
+ */
+public final class PaginationUtils {
+
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private PaginationUtils() {
+    }
+
+    /**
+     * 截取指定页的数据
+     *
+     * @param data 全部数据
+     * @param page 页码，从 1 开始，小于 1 时按第 1 页处理
+     * @param size 每页条数，小于 1 时按 1 处理
+     * @return 指定页的数据，page 或 size 为空时返回全部数据
+     */
+    public static <T> List<T> page(List<T> data, Integer page, Integer size) {
+        if (page == null || size == null) {
+            return data;
+        }
+        int pageSize = Math.max(size, 1);
+        long from = (long) (Math.max(page, 1) - 1) * pageSize;
+        if (from >= data.size()) {
+            return new ArrayList<>();
+        }
+        int to = (int) Math.min(data.size(), from + pageSize);
+        return new ArrayList<>(data.subList((int) from, to));
+    }
+}
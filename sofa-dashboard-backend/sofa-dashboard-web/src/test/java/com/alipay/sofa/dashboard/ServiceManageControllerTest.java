@@ -18,8 +18,11 @@ package com.alipay.sofa.dashboard;
 
 import com.alipay.sofa.dashboard.base.AbstractTestBase;
 import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
 import com.alipay.sofa.dashboard.domain.RpcProvider;
 import com.alipay.sofa.dashboard.domain.RpcService;
+import com.alipay.sofa.dashboard.model.ServiceAppModel;
+import com.alipay.sofa.dashboard.utils.PaginationUtils;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.apache.zookeeper.CreateMode;
@@ -28,6 +31,11 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
@@ -58,8 +66,7 @@ public class ServiceManageControllerTest extends AbstractTestBase {
 
         if (registryDataCache.fetchService().size() == 0) {
             List<RpcService> providerList = new ArrayList<>();
-            RpcService rpcService = new RpcService();
-            rpcService.setServiceName("serviceId1");
+            RpcService rpcService = RpcService.newBuilder().serviceName("serviceId1").build();
             providerList.add(rpcService);
             registryDataCache.addService(providerList);
         }
@@ -101,8 +108,7 @@ public class ServiceManageControllerTest extends AbstractTestBase {
         Thread.sleep(1000);
         // mock providers
         List<RpcProvider> providerList = new ArrayList<>();
-        RpcProvider provider = new RpcProvider();
-        provider.setServiceName("serviceId1");
+        RpcProvider provider = RpcProvider.newBuilder().serviceName("serviceId1").build();
         providerList.add(provider);
         registryDataCache.addProviders("serviceId1", providerList);
         String request = "http://localhost:" + definedPort
@@ -111,6 +117,80 @@ public class ServiceManageControllerTest extends AbstractTestBase {
         Assert.assertTrue(list != null && list.size() == 1);
     }
 
+    @Test
+    public void testQueryServiceListPaged() {
+        List<RpcProvider> providerList = new ArrayList<>();
+        RpcProvider provider = RpcProvider.newBuilder().serviceName("serviceId1")
+            .appName("service-page-test").address("127.0.0.2").port(12200).build();
+        providerList.add(provider);
+        registryDataCache.addProviders("serviceId1", providerList);
+        try {
+            String request = "http://localhost:" + definedPort
+                             + "/api/service/all-service?query={1}&page=1&size=1&sort=serviceId";
+            ResponseEntity<ArrayList> response = restTemplate.getForEntity(request,
+                ArrayList.class, "serviceId");
+            int total = Integer.parseInt(response.getHeaders().getFirst(
+                PaginationUtils.TOTAL_COUNT_HEADER));
+            Assert.assertTrue(total >= 1);
+            Assert.assertEquals(1, response.getBody().size());
+
+            request = "http://localhost:" + definedPort
+                      + "/api/service/all-service?query={1}&page={2}&size=1";
+            ArrayList list = restTemplate.getForObject(request, ArrayList.class, "serviceId",
+                total + 1);
+            Assert.assertTrue(list != null && list.isEmpty());
+        } finally {
+            registryDataCache.removeProviders("serviceId1", providerList);
+        }
+    }
+
+    @Test
+    public void testQueryServiceNotModified() {
+        String request = "http://localhost:" + definedPort + "/api/service/all-service?query=";
+        HttpStatus status = null;
+        // 注册中心的事件可能仍在异步写入缓存，版本变化时重试
+        for (int i = 0; i < tryTimes && status != HttpStatus.NOT_MODIFIED; i++) {
+            ResponseEntity<ArrayList> first = restTemplate.getForEntity(request, ArrayList.class);
+            Assert.assertNotNull(first.getHeaders().getETag());
+            HttpHeaders headers = new HttpHeaders();
+            headers.setIfNoneMatch(first.getHeaders().getETag());
+            status = restTemplate.exchange(request, HttpMethod.GET, new HttpEntity<>(headers),
+                ArrayList.class).getStatusCode();
+        }
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED, status);
+    }
+
+    @Test
+    public void testQueryServiceByAppName() {
+        List<RpcProvider> providerList = new ArrayList<>();
+        RpcProvider provider = RpcProvider.newBuilder().serviceName("serviceId1")
+            .appName("service-app-test").address("127.0.0.1").port(12200).build();
+        providerList.add(provider);
+        List<RpcConsumer> consumerList = new ArrayList<>();
+        RpcConsumer consumer = RpcConsumer.newBuilder().serviceName("serviceId1")
+            .appName("service-app-test").address("127.0.0.1").build();
+        consumerList.add(consumer);
+        registryDataCache.addProviders("serviceId1", providerList);
+        registryDataCache.addConsumers("serviceId1", consumerList);
+        try {
+            String request = "http://localhost:" + definedPort
+                             + "/api/service/service-app?appName={1}";
+            ServiceAppModel model = restTemplate.getForObject(request, ServiceAppModel.class,
+                "service-app-test");
+            Assert.assertTrue(model.getProviders().size() == 1);
+            Assert.assertEquals("serviceId1", model.getProviders().get(0));
+            Assert.assertTrue(model.getConsumers().size() == 1);
+            Assert.assertEquals("serviceId1", model.getConsumers().get(0));
+        } finally {
+            registryDataCache.removeProviders("serviceId1", providerList);
+            registryDataCache.removeConsumers("serviceId1", consumerList);
+        }
+        Assert.assertTrue(registryDataCache.fetchProvidedServicesByApp("service-app-test")
+            .isEmpty());
+        Assert.assertTrue(registryDataCache.fetchConsumedServicesByApp("service-app-test")
+            .isEmpty());
+    }
+
     private void initZookeeperRpcData() throws Exception {
         createNode("/sofa-rpc", null, CreateMode.PERSISTENT);
         createNode("/sofa-rpc/serviceId1/consumers", null, CreateMode.EPHEMERAL);
@@ -74,16 +74,14 @@ public class SofaAdminRegistryTest {
     public void testCacheData() {
         String serviceName = "test1";
         List<RpcConsumer> consumers = new ArrayList<>();
-        RpcConsumer consumer = new RpcConsumer();
-        consumer.setServiceName(serviceName);
+        RpcConsumer consumer = RpcConsumer.newBuilder().serviceName(serviceName).build();
         consumers.add(consumer);
         registryDataCache.addConsumers(serviceName, consumers);
         List<RpcConsumer> consumersResult = registryDataCache.fetchConsumersByService(serviceName);
         Assert.assertTrue(consumersResult.size() == 1);
 
         List<RpcProvider> providers = new ArrayList<>();
-        RpcProvider provider = new RpcProvider();
-        provider.setServiceName(serviceName);
+        RpcProvider provider = RpcProvider.newBuilder().serviceName(serviceName).build();
         providers.add(provider);
         registryDataCache.addProviders(serviceName, providers);
         List<RpcProvider> providersResult = registryDataCache.fetchProvidersByService(serviceName);
@@ -105,8 +103,7 @@ public class SofaAdminRegistryTest {
         Map<String, RpcService> serviceMap = registryDataCache.fetchService();
         Assert.assertTrue(serviceMap.size() == 0);
         List<RpcService> services = new ArrayList<>();
-        RpcService rpcService = new RpcService();
-        rpcService.setServiceName("test1");
+        RpcService rpcService = RpcService.newBuilder().serviceName("test1").build();
         services.add(rpcService);
         registryDataCache.addService(services);
         Map<String, RpcService> serviceMap1 = registryDataCache.fetchService();
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.cache;
+
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.dashboard.domain.RpcService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RegistryChangeLoggerTest {
+
+    private RegistryDataCache    cache;
+
+    private RegistryChangeLogger changeLogger;
+
+    @Before
+    public void before() {
+        cache = new ZookeeperRegistryDataCacheImpl();
+        cache.addService(Arrays.asList(service("service-a"), service("service-b")));
+
+        changeLogger = new RegistryChangeLogger();
+        changeLogger.setMode(RegistryChangeLogger.MODE_SUMMARY);
+        changeLogger.setDetailLimit(1);
+        changeLogger.setTopServices(1);
+        changeLogger.setRegistryDataCache(cache);
+        cache.addChangeListener(changeLogger);
+    }
+
+    @Test
+    public void testSummary() {
+        cache.addProviders("service-a",
+            Arrays.asList(provider("service-a", "10.0.0.1"), provider("service-a", "10.0.0.2")));
+        cache.removeProviders("service-a",
+            Collections.singletonList(provider("service-a", "10.0.0.1")));
+        cache.addProviders("service-b",
+            Collections.singletonList(provider("service-b", "10.0.0.1")));
+
+        List<String> lines = changeLogger.drainSummary();
+        Assert.assertEquals(3, lines.size());
+        Assert.assertEquals("registry change summary events=3 services=2 resyncs=0 suppressed=0",
+            lines.get(0));
+        Assert.assertEquals("registry change service=service-a provider.add=2 provider.remove=1",
+            lines.get(1));
+        Assert.assertEquals("registry change summary omitted services=1", lines.get(2));
+
+        // 计数在输出后清零
+        Assert.assertTrue(changeLogger.drainSummary().isEmpty());
+    }
+
+    @Test
+    public void testDetailLimit() {
+        changeLogger.setMode(RegistryChangeLogger.MODE_DETAIL);
+        cache.addProviders("service-a",
+            Collections.singletonList(provider("service-a", "10.0.0.1")));
+        cache.addProviders("service-a",
+            Collections.singletonList(provider("service-a", "10.0.0.2")));
+        cache.addProviders("service-a",
+            Collections.singletonList(provider("service-a", "10.0.0.3")));
+
+        List<String> lines = changeLogger.drainSummary();
+        Assert.assertEquals("registry change summary events=3 services=1 resyncs=0 suppressed=2",
+            lines.get(0));
+    }
+
+    private static RpcService service(String serviceName) {
+        return RpcService.newBuilder().serviceName(serviceName).build();
+    }
+
+    private static RpcProvider provider(String serviceName, String address) {
+        return RpcProvider.newBuilder().serviceName(serviceName).appName("test-app")
+            .address(address).port(12200).build();
+    }
+}
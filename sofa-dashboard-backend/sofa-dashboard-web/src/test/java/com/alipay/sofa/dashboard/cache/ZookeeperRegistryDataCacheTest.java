@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.cache;
+
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.dashboard.domain.RpcService;
+import com.alipay.sofa.dashboard.model.AppServiceSummaryModel;
+import com.alipay.sofa.dashboard.model.ServiceModel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ZookeeperRegistryDataCacheTest {
+
+    private static final String SERVICE_NAME = "com.alipay.test.SampleService:1.0";
+
+    private RegistryDataCache   cache;
+
+    @Before
+    public void before() {
+        cache = new ZookeeperRegistryDataCacheImpl();
+        RpcService rpcService = RpcService.newBuilder().serviceName(SERVICE_NAME).build();
+        cache.addService(Collections.singletonList(rpcService));
+    }
+
+    @Test
+    public void testAddAndRemoveByInstance() {
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.2", 12200)));
+        Assert.assertEquals(2, cache.fetchProvidersByService(SERVICE_NAME).size());
+
+        cache.removeProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        List<RpcProvider> providers = cache.fetchProvidersByService(SERVICE_NAME);
+        Assert.assertEquals(1, providers.size());
+        Assert.assertEquals("10.0.0.2", providers.get(0).getAddress());
+    }
+
+    @Test
+    public void testStaleRemoveAfterReAdd() {
+        RpcProvider stale = provider("10.0.0.1", 12200);
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(stale));
+        // 同一地址重新注册，属性不同
+        RpcProvider live = stale.toBuilder().weight(50).appName("other-app").build();
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(live));
+
+        // 旧节点过期后的删除事件不能移除仍然存活的实例
+        cache.removeProviders(SERVICE_NAME, Collections.singletonList(stale));
+        List<RpcProvider> providers = cache.fetchProvidersByService(SERVICE_NAME);
+        Assert.assertEquals(1, providers.size());
+        Assert.assertSame(live, providers.get(0));
+        Assert.assertTrue(cache.fetchProvidedServicesByApp("other-app").contains(SERVICE_NAME));
+
+        cache.removeProviders(SERVICE_NAME, Collections.singletonList(live));
+        Assert.assertTrue(cache.fetchProvidersByService(SERVICE_NAME).isEmpty());
+
+        RpcConsumer staleConsumer = RpcConsumer.newBuilder().serviceName(SERVICE_NAME)
+            .appName("test-app").address("10.0.0.3").build();
+        RpcConsumer liveConsumer = staleConsumer.toBuilder().appName("other-app").build();
+        cache.addConsumers(SERVICE_NAME, Collections.singletonList(staleConsumer));
+        cache.addConsumers(SERVICE_NAME, Collections.singletonList(liveConsumer));
+        cache.removeConsumers(SERVICE_NAME, Collections.singletonList(staleConsumer));
+        Assert.assertEquals(Collections.singletonList(liveConsumer),
+            cache.fetchConsumersByService(SERVICE_NAME));
+    }
+
+    @Test
+    public void testSnapshotIsStable() {
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        List<RpcProvider> snapshot = cache.fetchProvidersByService(SERVICE_NAME);
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.2", 12200)));
+        Assert.assertEquals(1, snapshot.size());
+        Assert.assertEquals(2, cache.fetchProvidersByService(SERVICE_NAME).size());
+    }
+
+    @Test
+    public void testConcurrentIngestion() throws InterruptedException {
+        int threads = 4;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            executor.execute(() -> {
+                try {
+                    for (int i = base; i < base + perThread; i++) {
+                        List<RpcProvider> providers = new ArrayList<>();
+                        providers.add(provider("10.0.0.1", i));
+                        cache.addProviders(SERVICE_NAME, providers);
+                        cache.fetchProvidersByService(SERVICE_NAME);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assert.assertEquals(threads * perThread, cache.fetchProvidersByService(SERVICE_NAME)
+            .size());
+    }
+
+    @Test
+    public void testUpdateProviderReplacesInstance() {
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        RpcProvider cached = cache.fetchProvidersByService(SERVICE_NAME).get(0);
+        Assert.assertEquals(100, cached.getWeight());
+
+        RpcProvider update = provider("10.0.0.1", 12200).toBuilder().weight(50).build();
+        cache.updateProviders(SERVICE_NAME, Collections.singletonList(update));
+
+        List<RpcProvider> providers = cache.fetchProvidersByService(SERVICE_NAME);
+        Assert.assertEquals(1, providers.size());
+        Assert.assertSame(update, providers.get(0));
+        Assert.assertEquals(50, providers.get(0).getWeight());
+        // 已经取出的旧对象不受更新影响
+        Assert.assertEquals(100, cached.getWeight());
+    }
+
+    @Test
+    public void testUpdateUnknownProviderAddsIt() {
+        RpcProvider update = provider("10.0.0.3", 12200).toBuilder().appName("other-app")
+            .build();
+        cache.updateProviders(SERVICE_NAME, Collections.singletonList(update));
+        Assert.assertEquals(1, cache.fetchProvidersByService(SERVICE_NAME).size());
+        Assert.assertTrue(cache.fetchProvidedServicesByApp("other-app").contains(SERVICE_NAME));
+    }
+
+    @Test
+    public void testServiceModelFollowsInstances() {
+        Assert.assertNull(cache.fetchServiceModel(SERVICE_NAME));
+
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        ServiceModel model = cache.fetchServiceModel(SERVICE_NAME);
+        Assert.assertEquals("1", model.getServiceProviderAppNum());
+        Assert.assertEquals("0", model.getServiceConsumerAppNum());
+        Assert.assertEquals("test-app", model.getServiceProviderAppName());
+        Assert.assertEquals(1, cache.fetchServiceModels().size());
+
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.2", 12200)));
+        Assert.assertEquals("2", cache.fetchServiceModel(SERVICE_NAME).getServiceProviderAppNum());
+        Assert.assertEquals("1", model.getServiceProviderAppNum());
+
+        cache.removeProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        cache.removeProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.2", 12200)));
+        Assert.assertNull(cache.fetchServiceModel(SERVICE_NAME));
+        Assert.assertTrue(cache.fetchServiceModels().isEmpty());
+    }
+
+    @Test
+    public void testAppSummaryIsDistinct() {
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.2", 12200)));
+        RpcConsumer consumer = RpcConsumer.newBuilder().serviceName(SERVICE_NAME)
+            .appName("test-app").address("10.0.0.3").build();
+        cache.addConsumers(SERVICE_NAME, Collections.singletonList(consumer));
+
+        List<AppServiceSummaryModel> summaries = cache.fetchAppSummaries();
+        Assert.assertEquals(1, summaries.size());
+        Assert.assertEquals("test-app", summaries.get(0).getAppName());
+        Assert.assertEquals(1, summaries.get(0).getProviderNum());
+        Assert.assertEquals(1, summaries.get(0).getConsumerNum());
+    }
+
+    @Test
+    public void testChangeListener() {
+        List<RegistryChangeEvent> events = new ArrayList<>();
+        RegistryChangeListener listener = events::add;
+        cache.addChangeListener(listener);
+        long version = cache.fetchVersion();
+
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        cache.removeProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.1", 12200)));
+        cache.removeChangeListener(listener);
+        cache.addProviders(SERVICE_NAME, Collections.singletonList(provider("10.0.0.2", 12200)));
+
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals(RegistryChangeEvent.Category.PROVIDER, events.get(0).getCategory());
+        Assert.assertEquals(RegistryChangeEvent.Action.ADD, events.get(0).getAction());
+        Assert.assertEquals(SERVICE_NAME, events.get(0).getServiceName());
+        Assert.assertEquals(1, events.get(0).getData().size());
+        Assert.assertEquals(RegistryChangeEvent.Action.REMOVE, events.get(1).getAction());
+        Assert.assertEquals(version + 1, events.get(0).getVersion());
+        Assert.assertEquals(version + 2, events.get(1).getVersion());
+        Assert.assertEquals(version + 3, cache.fetchVersion());
+    }
+
+    private RpcProvider provider(String address, int port) {
+        return RpcProvider.newBuilder().serviceName(SERVICE_NAME).appName("test-app")
+            .address(address).port(port).weight(100).build();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class CompactDomainTest {
+
+    @Test
+    public void testInstanceKey() {
+        InstanceKey key = InstanceKey.of("10.0.0.1", 12200);
+        Assert.assertEquals(key, InstanceKey.of("10.0.0.1", 12200));
+        Assert.assertEquals(key.hashCode(), InstanceKey.of("10.0.0.1", 12200).hashCode());
+        Assert.assertFalse(key.equals(InstanceKey.of("10.0.0.1", 12201)));
+        Assert.assertFalse(key.equals(InstanceKey.of("10.0.0.2", 12200)));
+        Assert.assertEquals("255.1.0.9:65535", InstanceKey.of("255.1.0.9", 65535).toString());
+        Assert.assertEquals(InstanceKey.of("host-a", 80), InstanceKey.of("host-a", 80));
+        Assert.assertEquals("host-a:80", InstanceKey.of("host-a", 80).toString());
+
+        Assert.assertEquals(-1, InstanceKey.parseIpv4("256.0.0.1"));
+        Assert.assertEquals(-1, InstanceKey.parseIpv4("10.0.0"));
+        Assert.assertEquals(-1, InstanceKey.parseIpv4("10.0.0.01"));
+        Assert.assertEquals(-1, InstanceKey.parseIpv4("10..0.1"));
+        Assert.assertEquals(0xFFFFFFFFL, InstanceKey.parseIpv4("255.255.255.255"));
+    }
+
+    @Test
+    public void testSharedStorage() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("serialization", "hessian2");
+        parameters.put("version", "1.0");
+
+        RpcProvider first = RpcProvider.newBuilder().address(new String("10.0.0.1"))
+            .parameters(new HashMap<>(parameters)).build();
+        RpcProvider second = RpcProvider.newBuilder().address(new String("10.0.0.1"))
+            .parameters(new HashMap<>(parameters)).build();
+
+        Assert.assertSame(first.getAddress(), second.getAddress());
+        Assert.assertSame(first.getParameters(), second.getParameters());
+        Assert.assertEquals(parameters, first.getParameters());
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+        Assert.assertEquals(first.toInstanceKey(), second.toInstanceKey());
+
+        RpcProvider changed = first.toBuilder().weight(50).build();
+        Assert.assertEquals(0, first.getWeight());
+        Assert.assertFalse(first.equals(changed));
+        Assert.assertTrue(first.isSameInstance(changed));
+        Assert.assertFalse(first.isSameInstance(changed.toBuilder().port(12201).build()));
+    }
+}
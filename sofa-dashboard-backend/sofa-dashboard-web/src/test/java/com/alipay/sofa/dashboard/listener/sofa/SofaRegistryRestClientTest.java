@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.sofa;
+
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.cache.SofaRegistryDataCacheImpl;
+import com.alipay.sofa.dashboard.constants.SofaDashboardConstants;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.dashboard.domain.RpcService;
+import com.alipay.sofa.rpc.config.RegistryConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 增量同步只拉取新增的 dataInfoId
+ */
+public class SofaRegistryRestClientTest {
+
+    private StubSessionTemplate    session;
+
+    private RegistryDataCache      cache;
+
+    private SofaRegistryRestClient client;
+
+    @Before
+    public void before() {
+        session = new StubSessionTemplate();
+        cache = new SofaRegistryDataCacheImpl();
+        client = new SofaRegistryRestClient();
+        ReflectionTestUtils.setField(client, "restTemplate", session);
+        ReflectionTestUtils.setField(client, "registryDataCache", cache);
+        client.init(new RegistryConfig().setAddress("127.0.0.1:9603"));
+    }
+
+    @Test
+    public void testIncrementalSync() {
+        session.publish("service-a", "10.0.0.1:12200");
+        session.publish("service-b", "10.0.0.2:12200");
+
+        // 首次同步全部是新增的 dataInfoId
+        Assert.assertEquals(2, client.syncIncrementalSessionData());
+        Assert.assertEquals(2, session.pubQueries.get());
+        Assert.assertEquals(2, cache.fetchService().size());
+        List<RpcProvider> providersOfB = cache.fetchProvidersByService("service-b");
+
+        // 没有增减，不再拉取 pub/sub 数据
+        Assert.assertEquals(0, client.syncIncrementalSessionData());
+        Assert.assertEquals(2, session.pubQueries.get());
+
+        // 只拉取新增的 service-c
+        session.publish("service-c", "10.0.0.3:12200");
+        Assert.assertEquals(1, client.syncIncrementalSessionData());
+        Assert.assertEquals(3, session.pubQueries.get());
+        Assert.assertEquals(1, cache.fetchProvidersByService("service-c").size());
+        Assert.assertSame(providersOfB, cache.fetchProvidersByService("service-b"));
+
+        // service-b 下线
+        session.unpublish("service-b");
+        Assert.assertEquals(1, client.syncIncrementalSessionData());
+        Assert.assertEquals(3, session.pubQueries.get());
+        Assert.assertFalse(cache.fetchService().containsKey("service-b"));
+        Assert.assertTrue(cache.fetchProvidersByService("service-b").isEmpty());
+    }
+
+    @Test
+    public void testIncrementalAfterFullSync() {
+        session.publish("service-a", "10.0.0.1:12200");
+        session.publish("service-b", "10.0.0.2:12200");
+        client.syncAllSessionData();
+        Assert.assertEquals(2, session.pubQueries.get());
+
+        // 全量同步过的 dataInfoId 不再重复拉取
+        Assert.assertEquals(0, client.syncIncrementalSessionData());
+        Assert.assertEquals(2, session.pubQueries.get());
+
+        // 已有 dataInfoId 的数据变化由全量同步更新
+        session.publish("service-a", "10.0.0.1:12200", "10.0.0.3:12200");
+        client.syncAllSessionData();
+        Assert.assertEquals(2, cache.fetchProvidersByService("service-a").size());
+    }
+
+    @Test
+    public void testIncrementalRetryFailed() {
+        session.publish("service-a", "10.0.0.1:12200");
+        session.failing = "service-a";
+        Assert.assertEquals(0, client.syncIncrementalSessionData());
+        Assert.assertFalse(cache.fetchService().containsKey("service-a"));
+
+        // 拉取失败的 dataInfoId 下次重新拉取
+        session.failing = null;
+        Assert.assertEquals(1, client.syncIncrementalSessionData());
+        Assert.assertTrue(cache.fetchService().containsKey("service-a"));
+    }
+
+    @Test
+    public void testFullSyncConcurrently() {
+        ReflectionTestUtils.setField(client, "fetchParallelism", 4);
+        for (int i = 0; i < 100; i++) {
+            session.publish("service-" + i, "10.0.0.1:12200");
+        }
+        session.latencyMillis = 5;
+        try {
+            client.syncAllSessionData();
+        } finally {
+            client.shutdown();
+        }
+        Assert.assertEquals(100, cache.fetchService().size());
+        Assert.assertEquals(1, cache.fetchProvidersByService("service-99").size());
+        Assert.assertTrue(session.maxInFlight.get() > 1);
+        Assert.assertTrue(session.maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testFullSyncSwapsGeneration() {
+        session.publish("service-a", "10.0.0.1:12200");
+        session.publish("service-b", "10.0.0.2:12200");
+        client.syncAllSessionData();
+        Assert.assertEquals(2, cache.fetchService().size());
+
+        // 新一代发布前读不到
+        RegistryDataCache generation = cache.newGeneration();
+        RpcService pending = RpcService.newBuilder().serviceName("service-pending").build();
+        generation.addService(Collections.singletonList(pending));
+        Assert.assertEquals(2, cache.fetchService().size());
+
+        // 上游删除的服务随旧一代一起丢弃，拉取失败的服务沿用旧数据
+        session.unpublish("service-a");
+        session.publish("service-c", "10.0.0.3:12200");
+        session.failing = "service-b";
+        client.syncAllSessionData();
+        Assert.assertFalse(cache.fetchService().containsKey("service-a"));
+        Assert.assertTrue(cache.fetchProvidersByService("service-a").isEmpty());
+        Assert.assertEquals(1, cache.fetchProvidersByService("service-b").size());
+        Assert.assertEquals(1, cache.fetchProvidersByService("service-c").size());
+        Assert.assertEquals(2, cache.fetchService().size());
+    }
+
+    @Test
+    public void testNoWriteAfterSyncTimeout() throws Exception {
+        ReflectionTestUtils.setField(client, "syncTimeout", 100L);
+        session.publish("service-a", "10.0.0.1:12200");
+        session.publish("service-slow", "10.0.0.2:12200");
+        session.slow = "service-slow";
+        try {
+            client.syncAllSessionData();
+            Assert.assertEquals(1, cache.fetchProvidersByService("service-a").size());
+
+            // 超时的请求无法中断，完成后也不能写入已发布的缓存
+            Thread.sleep(500);
+            Assert.assertTrue(cache.fetchProvidersByService("service-slow").isEmpty());
+            Assert.assertFalse(cache.fetchService().containsKey("service-slow"));
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    /**
+     * 模拟 session 的 digest 接口
+     */
+    private static class StubSessionTemplate extends RestTemplate {
+
+        private final Map<String, List<String>> publishers  = new HashMap<>();
+
+        private final AtomicInteger             pubQueries  = new AtomicInteger();
+
+        private final AtomicInteger             inFlight    = new AtomicInteger();
+
+        private final AtomicInteger             maxInFlight = new AtomicInteger();
+
+        private volatile long                   latencyMillis;
+
+        private volatile String                 failing;
+
+        /**
+         * 该 dataInfoId 的请求耗时 300ms 且不响应中断，模拟已经发出的 HTTP 请求
+         */
+        private volatile String                 slow;
+
+        void publish(String dataInfoId, String... processIds) {
+            publishers.put(dataInfoId, Arrays.asList(processIds));
+        }
+
+        void unpublish(String dataInfoId) {
+            publishers.remove(dataInfoId);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> ResponseEntity<T> getForEntity(String url, Class<T> responseType,
+                                                  Object... uriVariables) {
+            if (url.endsWith("/getDataInfoIdList")) {
+                return (ResponseEntity<T>) ResponseEntity.ok(new ArrayList<>(publishers.keySet()));
+            }
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            String dataInfoId = (String) uriVariables[0];
+            if (dataInfoId.equals(slow)) {
+                long deadline = System.currentTimeMillis() + 300;
+                while (System.currentTimeMillis() < deadline) {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        // 忽略中断
+                    }
+                }
+            }
+            if (dataInfoId.equals(failing)) {
+                throw new ResourceAccessException("timeout");
+            }
+            Map<String, List<Map>> body = new HashMap<>();
+            if (url.contains("/pub/data/query")) {
+                pubQueries.incrementAndGet();
+                List<Map> list = new ArrayList<>();
+                for (String processId : publishers.getOrDefault(dataInfoId,
+                    Collections.emptyList())) {
+                    Map<String, Object> publisher = new HashMap<>();
+                    publisher.put(SofaDashboardConstants.REGISTRY_DATA_ID_KEY, dataInfoId);
+                    publisher.put(SofaDashboardConstants.REGISTRY_PROCESS_ID_KEY, processId);
+                    publisher.put(SofaDashboardConstants.APP_NAME, "test-app");
+                    list.add(publisher);
+                }
+                body.put("DEFAULT_ZONE", list);
+            }
+            return (ResponseEntity<T>) ResponseEntity.ok(body);
+        }
+    }
+}
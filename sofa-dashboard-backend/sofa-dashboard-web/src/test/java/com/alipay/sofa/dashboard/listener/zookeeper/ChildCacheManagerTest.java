@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.base.AbstractTestBase;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.zookeeper.CreateMode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 服务上下线过程中 PathChildrenCache 不泄漏
+ */
+public class ChildCacheManagerTest extends AbstractTestBase {
+
+    private static final String SERVICE_PATH = "/sofa-rpc/com.alipay.test.ChurnService:1.0";
+
+    private static final long   WAIT_MILLIS  = 10000;
+
+    @Autowired
+    private ChildCacheManager   childCacheManager;
+
+    @Before
+    public void before() throws Exception {
+        client = CuratorFrameworkFactory.newClient("localhost:2181", new ExponentialBackoffRetry(
+            1000, 3));
+        client.start();
+    }
+
+    @After
+    public void after() {
+        client.close();
+    }
+
+    @Test
+    public void testCloseCachesWhenServiceRemoved() throws Exception {
+        int baseCaches = childCacheManager.getOpenCacheCount();
+
+        for (int i = 0; i < 3; i++) {
+            createNode(SERVICE_PATH + "/providers/bolt%3A%2F%2F127.0.0.1%3A12200", null,
+                CreateMode.PERSISTENT);
+            createNode(SERVICE_PATH + "/consumers/bolt%3A%2F%2F127.0.0.1", null,
+                CreateMode.PERSISTENT);
+            // service + providers + consumers
+            Assert.assertTrue(waitForCacheCount(baseCaches + 3));
+            Assert.assertTrue(childCacheManager.getWatchCount() >= baseCaches + 3);
+            Assert.assertEquals(baseCaches + 3,
+                childCacheManager.fetchStats().get("childCache.openCaches"));
+
+            client.delete().deletingChildrenIfNeeded().forPath(SERVICE_PATH);
+            Assert.assertTrue(waitForCacheCount(baseCaches));
+        }
+    }
+
+    private boolean waitForCacheCount(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (childCacheManager.getOpenCacheCount() == expected) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
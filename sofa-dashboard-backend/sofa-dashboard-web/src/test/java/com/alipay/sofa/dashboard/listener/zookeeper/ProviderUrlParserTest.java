@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.domain.RpcConsumer;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProviderUrlParserTest {
+
+    private static final String PROVIDER_NODE = "bolt%3A%2F%2F127.0.0.1%3A12200%3Fversion%3D1.0"
+                                                + "%26uniqueId%3D%26timeout%3D3000%26delay%3D-1"
+                                                + "%26id%3Drpc-cfg-0%26dynamic%3Dtrue%26weight%3D80"
+                                                + "%26accepts%3D100000%26startTime%3D1550904160657"
+                                                + "%26appName%3Drpc-provider%26serialization%3D"
+                                                + "hessian2%26pid%3D72034%26language%3Djava"
+                                                + "%26rpcVer%3D50407";
+
+    @Test
+    public void testParseProvider() {
+        ProviderUrlParser parser = ProviderUrlParser.parse(PROVIDER_NODE);
+        Assert.assertNotNull(parser);
+        Assert.assertEquals("127.0.0.1", parser.getHost());
+        Assert.assertEquals(12200, parser.getPort());
+        Assert.assertEquals("rpc-provider", parser.getAppName());
+        Assert.assertEquals(80, parser.getWeight());
+
+        RpcProvider provider = ZookeeperNodeConverter.convert2Provider("service", PROVIDER_NODE);
+        Assert.assertEquals(
+            ZookeeperNodeConverter.convert2ProviderByProviderInfo("service", PROVIDER_NODE),
+            provider);
+    }
+
+    @Test
+    public void testParseConsumer() {
+        String node = "bolt%3A%2F%2F10.0.0.2%3A0%3FappName%3Drpc+consumer%26uniqueId%3D";
+        RpcConsumer consumer = ZookeeperNodeConverter.convert2Consumer("service", node);
+        Assert.assertEquals("10.0.0.2", consumer.getAddress());
+        Assert.assertEquals(0, consumer.getPort());
+        Assert.assertEquals("rpc consumer", consumer.getAppName());
+        Assert.assertEquals(ZookeeperNodeConverter.convert2ConsumerByProviderInfo("service", node),
+            consumer);
+    }
+
+    @Test
+    public void testDefaultsAndTruncation() {
+        ProviderUrlParser parser = ProviderUrlParser
+            .parse("bolt%3A%2F%2F10.0.0.3%3A12200%3FappName%3Da%3Db%26weight%3D");
+        Assert.assertNotNull(parser);
+        // 与 split("=") 一致，值在第二个 '=' 处截断，空的权重保留默认值
+        Assert.assertEquals("a", parser.getAppName());
+        Assert.assertEquals(100, parser.getWeight());
+
+        parser = ProviderUrlParser.parse("bolt://10.0.0.3/com.alipay.Sample?weight=5");
+        Assert.assertNotNull(parser);
+        Assert.assertEquals(80, parser.getPort());
+        Assert.assertNull(parser.getAppName());
+        Assert.assertEquals(5, parser.getWeight());
+    }
+
+    @Test
+    public void testUnsupportedFallsBack() {
+        // 多字节字符、非法转义、没有 '=' 的参数、非数字的权重都交给原有流程
+        Assert.assertNull(ProviderUrlParser
+            .parse("bolt%3A%2F%2F10.0.0.1%3A12200%3FappName%3D%E5%BA%94%E7%94%A8"));
+        Assert.assertNull(ProviderUrlParser.parse("bolt%3A%2F%2F10.0.0.1%3A12200%3FappName%3D%G1"));
+        Assert.assertNull(ProviderUrlParser.parse("bolt%3A%2F%2F10.0.0.1%3A12200%3Fdynamic"));
+        Assert.assertNull(ProviderUrlParser.parse("bolt%3A%2F%2F10.0.0.1%3A12200%3Fweight%3D-1"));
+        Assert.assertNull(ProviderUrlParser.parse("10.0.0.1%3A12200"));
+    }
+}
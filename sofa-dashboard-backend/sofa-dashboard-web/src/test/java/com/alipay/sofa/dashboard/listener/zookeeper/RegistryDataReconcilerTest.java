@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.cache.ZookeeperRegistryDataCacheImpl;
+import com.alipay.sofa.dashboard.domain.RpcProvider;
+import com.alipay.sofa.dashboard.domain.RpcService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RegistryDataReconcilerTest {
+
+    private static final String    SERVICE_NAME = "com.alipay.test.SampleService:1.0";
+
+    private static final String    STALE_NAME   = "com.alipay.test.StaleService:1.0";
+
+    private RegistryDataCache      cache;
+
+    private RegistryEventBatcher   batcher;
+
+    private RegistryDataReconciler reconciler;
+
+    @Before
+    public void before() {
+        cache = new ZookeeperRegistryDataCacheImpl();
+        batcher = new RegistryEventBatcher();
+        batcher.setRegistryDataCache(cache);
+        batcher.setBatchWindow(0);
+        reconciler = new RegistryDataReconciler();
+        reconciler.setRegistryDataCache(cache);
+        reconciler.setRegistryEventBatcher(batcher);
+
+        cache.addService(Arrays.asList(service(SERVICE_NAME), service(STALE_NAME)));
+        batcher.submit(RegistryEventBatcher.NodeType.PROVIDER, RegistryEventBatcher.EventType.ADD,
+            SERVICE_NAME, node("10.0.0.1", 100));
+        batcher.submit(RegistryEventBatcher.NodeType.PROVIDER, RegistryEventBatcher.EventType.ADD,
+            SERVICE_NAME, node("10.0.0.2", 100));
+    }
+
+    @After
+    public void after() {
+        batcher.shutdown();
+        reconciler.shutdown();
+    }
+
+    @Test
+    public void testApplyDelta() {
+        Map<String, List<String>> providers = new HashMap<>();
+        // 10.0.0.1 权重变更，10.0.0.2 下线，10.0.0.3 上线
+        providers.put(SERVICE_NAME, Arrays.asList(node("10.0.0.1", 50), node("10.0.0.3", 100)));
+        Map<String, List<String>> consumers = new HashMap<>();
+        consumers.put(SERVICE_NAME, Collections.emptyList());
+
+        int changes = reconciler.apply(Collections.singletonList(SERVICE_NAME), providers,
+            consumers, batcher.currentSequence());
+        // 删除一个服务 + 新增、删除、更新各一个实例
+        Assert.assertEquals(4, changes);
+        Assert.assertFalse(cache.fetchService().containsKey(STALE_NAME));
+
+        List<RpcProvider> current = cache.fetchProvidersByService(SERVICE_NAME);
+        Assert.assertEquals(2, current.size());
+        for (RpcProvider provider : current) {
+            if ("10.0.0.1".equals(provider.getAddress())) {
+                Assert.assertEquals(50, provider.getWeight());
+            } else {
+                Assert.assertEquals("10.0.0.3", provider.getAddress());
+            }
+        }
+
+        // 再对账一次没有差异
+        Assert.assertEquals(0, reconciler.apply(Collections.singletonList(SERVICE_NAME),
+            providers, consumers, batcher.currentSequence()));
+    }
+
+    @Test
+    public void testSkipServiceWithoutReadResult() {
+        // 读取失败的服务不在结果中，不能把实例删掉
+        int changes = reconciler.apply(Arrays.asList(SERVICE_NAME, STALE_NAME),
+            Collections.emptyMap(), Collections.emptyMap(), batcher.currentSequence());
+        Assert.assertEquals(0, changes);
+        Assert.assertEquals(2, cache.fetchProvidersByService(SERVICE_NAME).size());
+    }
+
+    @Test
+    public void testSkipServiceChangedAfterRead() {
+        // 读取 zookeeper 时只有 10.0.0.1 和 10.0.0.2
+        long readSequence = batcher.currentSequence();
+        Map<String, List<String>> providers = new HashMap<>();
+        providers.put(SERVICE_NAME, Arrays.asList(node("10.0.0.1", 100), node("10.0.0.2", 100)));
+
+        // 读取之后、写入差异之前，10.0.0.3 上线并停留在合并窗口中，同时新建了一个服务
+        batcher.setBatchWindow(60000);
+        batcher.submit(RegistryEventBatcher.NodeType.PROVIDER, RegistryEventBatcher.EventType.ADD,
+            SERVICE_NAME, node("10.0.0.3", 100));
+        String createdName = "com.alipay.test.CreatedService:1.0";
+        batcher.markServiceChanged(createdName);
+        cache.addService(Collections.singletonList(service(createdName)));
+
+        int changes = batcher.flushThen(() -> reconciler.apply(
+            Arrays.asList(SERVICE_NAME, STALE_NAME), providers, Collections.emptyMap(),
+            readSequence));
+        Assert.assertEquals(0, changes);
+        Assert.assertEquals(3, cache.fetchProvidersByService(SERVICE_NAME).size());
+        Assert.assertTrue(cache.fetchService().containsKey(createdName));
+
+        // 之后的对账不再跳过
+        batcher.clearChangesBefore(readSequence);
+        changes = batcher.flushThen(() -> reconciler.apply(Arrays.asList(SERVICE_NAME,
+            STALE_NAME), providers, Collections.emptyMap(), batcher.currentSequence()));
+        Assert.assertEquals(2, changes);
+        Assert.assertEquals(2, cache.fetchProvidersByService(SERVICE_NAME).size());
+        Assert.assertFalse(cache.fetchService().containsKey(createdName));
+    }
+
+    private RpcService service(String serviceName) {
+        RpcService rpcService = RpcService.newBuilder().serviceName(serviceName).build();
+        return rpcService;
+    }
+
+    private String node(String host, int weight) {
+        return "bolt%3A%2F%2F" + host + "%3A12200%3Fversion%3D1.0%26weight%3D" + weight
+               + "%26appName%3Dtest-app";
+    }
+}
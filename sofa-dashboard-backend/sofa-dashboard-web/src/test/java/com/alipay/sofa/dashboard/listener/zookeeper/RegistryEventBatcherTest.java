@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.listener.zookeeper;
+
+import com.alipay.sofa.dashboard.cache.RegistryDataCache;
+import com.alipay.sofa.dashboard.cache.ZookeeperRegistryDataCacheImpl;
+import com.alipay.sofa.dashboard.domain.RpcService;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.EventType;
+import com.alipay.sofa.dashboard.listener.zookeeper.RegistryEventBatcher.NodeType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class RegistryEventBatcherTest {
+
+    private static final String  SERVICE_NAME = "com.alipay.test.SampleService:1.0";
+
+    private RegistryDataCache    cache;
+
+    private RegistryEventBatcher batcher;
+
+    @Before
+    public void before() {
+        cache = new ZookeeperRegistryDataCacheImpl();
+        RpcService rpcService = RpcService.newBuilder().serviceName(SERVICE_NAME).build();
+        cache.addService(Collections.singletonList(rpcService));
+
+        batcher = new RegistryEventBatcher();
+        batcher.setRegistryDataCache(cache);
+        // 窗口足够长，由用例手动 flush
+        batcher.setBatchWindow(60000);
+    }
+
+    @After
+    public void after() {
+        batcher.shutdown();
+    }
+
+    @Test
+    public void testAddThenRemoveCancelled() {
+        batcher.submit(NodeType.PROVIDER, EventType.ADD, SERVICE_NAME, node("10.0.0.1"));
+        batcher.submit(NodeType.PROVIDER, EventType.REMOVE, SERVICE_NAME, node("10.0.0.1"));
+        batcher.flush();
+
+        Assert.assertNull(cache.fetchProvidersByService(SERVICE_NAME));
+        Assert.assertEquals(2, batcher.getReceivedEvents());
+        Assert.assertEquals(0, batcher.getAppliedEvents());
+        Assert.assertEquals(0, batcher.getBatchCount());
+    }
+
+    @Test
+    public void testBatchApplied() {
+        batcher.submit(NodeType.PROVIDER, EventType.ADD, SERVICE_NAME, node("10.0.0.1"));
+        batcher.submit(NodeType.PROVIDER, EventType.ADD, SERVICE_NAME, node("10.0.0.2"));
+        batcher.submit(NodeType.PROVIDER, EventType.UPDATE, SERVICE_NAME, node("10.0.0.1"));
+        batcher.submit(NodeType.CONSUMER, EventType.ADD, SERVICE_NAME, node("10.0.0.3"));
+        Assert.assertNull(cache.fetchProvidersByService(SERVICE_NAME));
+
+        batcher.flush();
+        Assert.assertEquals(2, cache.fetchProvidersByService(SERVICE_NAME).size());
+        Assert.assertEquals(1, cache.fetchConsumersByService(SERVICE_NAME).size());
+        Assert.assertEquals(1, batcher.getBatchCount());
+        Assert.assertEquals(3, batcher.getLastBatchSize());
+        Assert.assertEquals(3, batcher.getMaxBatchSize());
+    }
+
+    @Test
+    public void testRemoveThenAddKeepsInstance() {
+        batcher.submit(NodeType.PROVIDER, EventType.ADD, SERVICE_NAME, node("10.0.0.1"));
+        batcher.flush();
+
+        batcher.submit(NodeType.PROVIDER, EventType.REMOVE, SERVICE_NAME, node("10.0.0.1"));
+        batcher.submit(NodeType.PROVIDER, EventType.ADD, SERVICE_NAME, node("10.0.0.1"));
+        batcher.flush();
+        Assert.assertEquals(1, cache.fetchProvidersByService(SERVICE_NAME).size());
+    }
+
+    @Test
+    public void testIllegalNodeSkipped() {
+        batcher.submit(NodeType.PROVIDER, EventType.ADD, SERVICE_NAME, node("10.0.0.1"));
+        // 非法的转义，解码时抛出异常
+        batcher.submit(NodeType.PROVIDER, EventType.ADD, SERVICE_NAME, "bolt%ZZ");
+        batcher.submit(NodeType.CONSUMER, EventType.ADD, SERVICE_NAME, node("10.0.0.2"));
+        batcher.flush();
+
+        Assert.assertEquals(1, cache.fetchProvidersByService(SERVICE_NAME).size());
+        Assert.assertEquals(1, cache.fetchConsumersByService(SERVICE_NAME).size());
+        Assert.assertEquals(1, batcher.getSkippedEvents());
+        Assert.assertEquals(1L, batcher.fetchStats().get("eventBatcher.skippedEvents"));
+    }
+
+    @Test
+    public void testStaleRemoveOfRestartedNode() {
+        batcher.setBatchWindow(0);
+        // 同一地址重启，新旧节点只有 startTime 不同，新节点的新增先于旧节点的删除到达
+        String oldNode = node("10.0.0.1") + "%26startTime%3D1000";
+        String newNode = node("10.0.0.1") + "%26startTime%3D2000";
+        for (NodeType nodeType : NodeType.values()) {
+            batcher.submit(nodeType, EventType.ADD, SERVICE_NAME, oldNode);
+            batcher.submit(nodeType, EventType.ADD, SERVICE_NAME, newNode);
+            batcher.submit(nodeType, EventType.REMOVE, SERVICE_NAME, oldNode);
+        }
+
+        Assert.assertEquals(1, cache.fetchProvidersByService(SERVICE_NAME).size());
+        Assert.assertEquals(newNode, cache.fetchProvidersByService(SERVICE_NAME).get(0).getUrl());
+        Assert.assertEquals(1, cache.fetchConsumersByService(SERVICE_NAME).size());
+        Assert.assertEquals(newNode, cache.fetchConsumersByService(SERVICE_NAME).get(0).getUrl());
+
+        batcher.submit(NodeType.PROVIDER, EventType.REMOVE, SERVICE_NAME, newNode);
+        Assert.assertTrue(cache.fetchProvidersByService(SERVICE_NAME).isEmpty());
+    }
+
+    @Test
+    public void testNoWindowAppliesDirectly() {
+        batcher.setBatchWindow(0);
+        batcher.submit(NodeType.PROVIDER, EventType.ADD, SERVICE_NAME, node("10.0.0.1"));
+        Assert.assertEquals(1, cache.fetchProvidersByService(SERVICE_NAME).size());
+        Assert.assertEquals(1, batcher.getBatchCount());
+    }
+
+    private String node(String host) {
+        return "bolt%3A%2F%2F" + host + "%3A12200%3Fversion%3D1.0%26appName%3Dtest-app";
+    }
+}
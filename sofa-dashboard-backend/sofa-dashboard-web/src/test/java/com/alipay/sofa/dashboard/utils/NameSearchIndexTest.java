@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class NameSearchIndexTest {
+
+    @Test
+    public void testRankByMatchType() {
+        NameSearchIndex index = new NameSearchIndex();
+        for (String name : Arrays.asList("com.foo.UserService", "UserService", "UserServiceV2",
+            "com.bar.OrderService", "AdminUserService")) {
+            index.add(name);
+        }
+        Assert.assertEquals(Arrays.asList("UserService", "UserServiceV2", "AdminUserService",
+            "com.foo.UserService"), index.search("UserService", 10));
+        Assert.assertEquals(Arrays.asList("UserService", "UserServiceV2"),
+            index.search("UserService", 2));
+        Assert.assertEquals(Collections.singletonList("com.bar.OrderService"),
+            index.search("Or", 10));
+        Assert.assertTrue(index.search("userservice", 10).isEmpty());
+        Assert.assertEquals(5, index.search("", 10).size());
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        NameSearchIndex index = new NameSearchIndex();
+        Assert.assertTrue(index.add("com.foo.UserService"));
+        Assert.assertFalse(index.add("com.foo.UserService"));
+        index.add("com.foo.UserFacade");
+        Assert.assertEquals(2, index.search("User", 10).size());
+
+        Assert.assertTrue(index.remove("com.foo.UserService"));
+        Assert.assertEquals(Collections.singletonList("com.foo.UserFacade"),
+            index.search("User", 10));
+        Assert.assertTrue(index.search("Service", 10).isEmpty());
+
+        index.sync(Arrays.asList("com.foo.OrderService", "com.foo.UserFacade"));
+        Assert.assertEquals(2, index.size());
+        Assert.assertTrue(index.contains("com.foo.OrderService"));
+        Assert.assertEquals(Collections.singletonList("com.foo.OrderService"),
+            index.search("Service", 10));
+    }
+
+    @Test
+    public void testSameResultAsScan() {
+        Random random = new Random(7);
+        NameSearchIndex index = new NameSearchIndex();
+        for (int i = 0; i < 2000; i++) {
+            String name = "com.alipay.app" + random.nextInt(50) + ".Service" + random.nextInt(500);
+            index.add(name);
+        }
+        List<String> distinct = new ArrayList<>(index.search(null, Integer.MAX_VALUE));
+        for (String keyword : Arrays.asList("7", "12", "app1", "Service3", "com.alipay.app4",
+            "missing", "e1")) {
+            Assert.assertEquals(keyword, NameSearchIndex.scan(distinct, keyword, 20),
+                index.search(keyword, 20));
+            Assert.assertEquals(keyword, NameSearchIndex.scan(distinct, keyword, Integer.MAX_VALUE),
+                index.search(keyword, Integer.MAX_VALUE));
+        }
+    }
+}
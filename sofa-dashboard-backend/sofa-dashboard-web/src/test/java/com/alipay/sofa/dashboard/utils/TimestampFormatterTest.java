@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.dashboard.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 共享格式化与 SimpleDateFormat 结果一致
+ */
+public class TimestampFormatterTest {
+
+    @Test
+    public void testFormat() {
+        SimpleDateFormat expected = new SimpleDateFormat(TimestampFormatter.PATTERN);
+        long now = System.currentTimeMillis();
+        for (long millis : new long[] { 0L, now, now + 999, now + 1024 * 1000L, 1561619281318L }) {
+            Assert.assertEquals(expected.format(new Date(millis)),
+                TimestampFormatter.format(millis));
+        }
+        Assert.assertEquals(expected.format(new Date(now)),
+            SofaDashboardUtil.formatDate(new Date(now)));
+    }
+
+    @Test
+    public void testSameSecondReused() {
+        long second = 1561619281000L;
+        String first = TimestampFormatter.format(second + 1);
+        Assert.assertSame(first, TimestampFormatter.format(second + 999));
+        // 槽位被相隔 1024 秒的时间覆盖后重新格式化
+        Assert.assertFalse(first.equals(TimestampFormatter.format(second + 1024 * 1000L)));
+        Assert.assertEquals(first, TimestampFormatter.format(second));
+    }
+}